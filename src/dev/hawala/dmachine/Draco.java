@@ -38,26 +38,32 @@ import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 import javax.swing.Timer;
 
 import dev.hawala.dmachine.dwarf.DebuggerSubstituteMpHandler;
+import dev.hawala.dmachine.dwarf.HeadlessRunner;
 import dev.hawala.dmachine.dwarf.KeyHandler;
 import dev.hawala.dmachine.dwarf.KeyboardMapper;
 import dev.hawala.dmachine.dwarf.MainUI;
 import dev.hawala.dmachine.dwarf.MainUI.RunningState;
 import dev.hawala.dmachine.dwarf.MouseHandler;
 import dev.hawala.dmachine.dwarf.PropertiesExt;
+import dev.hawala.dmachine.dwarf.SessionRecorder;
 import dev.hawala.dmachine.dwarf.UiRefresher;
 import dev.hawala.dmachine.dwarf.WindowStateListener;
 import dev.hawala.dmachine.dwarf.eKeyEventCode;
 import dev.hawala.dmachine.engine.Cpu;
+import dev.hawala.dmachine.engine.DisplayExport;
+import dev.hawala.dmachine.engine.FlightRecorder;
 import dev.hawala.dmachine.engine.InitialMesaMicrocode;
 import dev.hawala.dmachine.engine.Mem;
 import dev.hawala.dmachine.engine.Opcodes;
 import dev.hawala.dmachine.engine.Processes;
+import dev.hawala.dmachine.engine.Trace;
 import dev.hawala.dmachine.engine.Xfer;
 import dev.hawala.dmachine.engine.iUiDataConsumer;
 import dev.hawala.dmachine.engine.agents.NetworkInternalTimeService;
@@ -87,7 +93,10 @@ public class Draco {
 	 */
 	
 	// the (Java-side) intended refresh rate for the UI
-	private static final int UiRefreshInterval = 20; // 20 ms => 50 wakeups => 25 display refeshes in average
+	private static final int UiRefreshInterval = 20; // 20 ms while ui data arrives, backing off when idle (see UiRefresher)
+	
+	// the optional recorder for the display content
+	private static SessionRecorder sessionRecorder = null;
 	
 	// the interface between the Java UI and the mesa engine
 	private static UiRefresher uiRefresher;
@@ -135,6 +144,14 @@ public class Draco {
 	private static String netHubHost = "";
 	private static int netHubPort = 3333;
 	private static int localTimeOffsetMinutes = 0;
+	private static boolean virtualTime = false;
+	private static boolean itTicker = false;
+	private static double displayZoom = 1.0;
+	private static int rfbPort = 0;
+	private static String rfbAddress = "127.0.0.1";
+	private static String displayExportFile = null;
+	private static String recordingFile = null;
+	private static boolean softwareCursor = false;
 	
 	private static String keyboardMapFile = null;
 	private static int xeroxControlKeyCode = eKeyEventCode.VK_CONTROL.getCode();
@@ -238,6 +255,14 @@ public class Draco {
 		netHubHost = props.getString("netHubHost", netHubHost);
 		netHubPort = props.getInt("netHubPort", netHubPort);
 		localTimeOffsetMinutes = props.getInt("localTimeOffsetMinutes", localTimeOffsetMinutes);
+		virtualTime = props.getBoolean("virtualTime", virtualTime);
+		itTicker = props.getBoolean("itTicker", itTicker);
+		displayZoom = props.getDouble("displayZoom", displayZoom);
+		rfbPort = props.getInt("rfbPort", rfbPort);
+		rfbAddress = props.getString("rfbAddress", rfbAddress);
+		displayExportFile = props.getString("displayExportFile", displayExportFile);
+		recordingFile = props.getString("recordingFile", recordingFile);
+		softwareCursor = props.getBoolean("softwareCursor", softwareCursor);
 		
 		daysBackInTime = props.getInt("daysBackInTime", daysBackInTime);
 		
@@ -319,6 +344,13 @@ public class Draco {
 		System.out.printf(" netHubPort  : %d\n", netHubPort);
 		System.out.printf(" localTimeOff: %d\n", localTimeOffsetMinutes);
 		System.out.printf(" daysBack    : %d\n", daysBackInTime);
+		System.out.printf(" virtualTime : %s\n", (virtualTime) ? "yes" : "no");
+		System.out.printf(" itTicker    : %s\n", (itTicker) ? "yes" : "no");
+		System.out.printf(" displayZoom : %s\n", displayZoom);
+		System.out.printf(" rfb server  : %s\n", (rfbPort > 0) ? rfbAddress + ":" + rfbPort : "");
+		System.out.printf(" disp. export: %s\n", (displayExportFile != null) ? displayExportFile : "");
+		System.out.printf(" recording   : %s\n", (recordingFile != null) ? recordingFile : "");
+		System.out.printf(" soft. cursor: %s\n", softwareCursor);
 	}
 	
 	// load the germ file from the rigid disk
@@ -407,6 +439,32 @@ public class Draco {
 		}
 	}
 
+	// create the display export file if configured (requires the initialized mesa engine memory)
+	private static void setupDisplayExport(Supplier<int[]> colorTableSupplier) {
+		if (displayExportFile == null || displayExportFile.isEmpty()) { return; }
+		try {
+			Processes.registerDisplayExport(new DisplayExport(displayExportFile, colorTableSupplier));
+		} catch (IOException e) {
+			System.out.printf("Warning: unable to create display export file '%s': %s\n", displayExportFile, e.getMessage());
+		}
+	}
+	
+	// parse the value of the -rfb: option: [address:]port
+	private static boolean parseRfbOption(String value) {
+		int colon = value.lastIndexOf(':');
+		try {
+			int port = Integer.parseInt(value.substring(colon + 1));
+			if (port < 1 || port > 65535) { return false; }
+			if (colon > 0) {
+				rfbAddress = value.substring(0, colon);
+			}
+			rfbPort = port;
+			return true;
+		} catch (NumberFormatException nfe) {
+			return false;
+		}
+	}
+	
 	public static void main(String[] args) throws IOException {
 
 		boolean logKeyPressed = false;
@@ -415,6 +473,7 @@ public class Draco {
 		long bootFileNumber = 0;
 		String cfgFile = null;
 		boolean doFullscreen = false;
+		boolean doFlightRecording = false;
 
 		// command line parameters pass 1: check for test only OR run configuration
 		for (String arg : args) {
@@ -449,6 +508,26 @@ public class Draco {
 					doMerge = true;
 				} else if ("-autoclose".equalsIgnoreCase(arg)) {
 					doTerminate = true;
+				} else if ("-virtualtime".equalsIgnoreCase(arg)) {
+					virtualTime = true;
+				} else if ("-itticker".equalsIgnoreCase(arg)) {
+					itTicker = true;
+				} else if (arg.toLowerCase().startsWith("-zoom:")) {
+					try {
+						displayZoom = Double.parseDouble(arg.substring(6));
+					} catch (NumberFormatException nfe) {
+						System.out.printf("Warning: invalid zoom factor in: %s\n", arg);
+					}
+				} else if (arg.toLowerCase().startsWith("-rfb:")) {
+					if (!parseRfbOption(arg.substring(5))) {
+						System.out.printf("Warning: invalid rfb server address in: %s\n", arg);
+					}
+				} else if (arg.toLowerCase().startsWith("-fbexport:")) {
+					displayExportFile = arg.substring(10);
+				} else if (arg.toLowerCase().startsWith("-record:")) {
+					recordingFile = arg.substring(8);
+				} else if ("-softcursor".equalsIgnoreCase(arg)) {
+					softwareCursor = true;
 				} else if ("-netexec".equalsIgnoreCase(arg)) {
 					doNetboot = true;
 					bootFileNumber = InitialMesaMicrocode.BFN_Daybreak_SimpleNetExec;
@@ -457,12 +536,22 @@ public class Draco {
 					bootFileNumber = InitialMesaMicrocode.BFN_Daybreak_Installer;
 				} else if ("-fullscreen".equalsIgnoreCase(arg)) {
 					doFullscreen = true;
+				} else if ("-flightrecorder".equalsIgnoreCase(arg)) {
+					doFlightRecording = true;
+					FlightRecorder.setActive(true);
+				} else if (arg.toLowerCase().startsWith("-trace:")) {
+					if (!Trace.configure(arg.substring(7))) {
+						System.out.printf("Warning: unknown trace category in: %s\n", arg);
+					}
 				} else {
 					System.out.printf("Warning: ignoring unknown command line argument: %s\n", arg);
 				}
 			}
 		}
 
+		if (doFullscreen && rfbPort > 0) {
+			doFullscreen = false; // not for headless operation
+		}
 		if (doFullscreen) {
 			Rectangle dims = MainUI.getFullscreenUsableDims();
 			if (dims == null) {
@@ -502,6 +591,12 @@ public class Draco {
 			Cpu.setPID(macWords[0], macWords[1], macWords[2]);
 			HEthernet.setHubParameters(netHubHost, netHubPort, localTimeOffsetMinutes);
 			
+			// use instruction-count based time instead of real time if requested
+			Cpu.setVirtualTime(virtualTime);
+			
+			// use a separate thread for providing the interval timer if requested
+			Cpu.setITTicker(itTicker);
+			
 			// initialize the memory subsystem with the display-size as configured (large: 1152x861, small: 832x633)
 			Mem.initializeMemoryDaybreak(largeScreen);
 			
@@ -562,6 +657,7 @@ public class Draco {
 			
 			// initialize the 6085 IOP, allocating the static device handler structures in the IORegion
 			IOP.initialize(labelOpOnRead, labelOpOnWrite, labelOpOnVerify, logLabelProblems);
+			setupDisplayExport(null);
 			// (debug) IORegion.dumpIORegionStructure(Mem.IORegion_Virtual_StartPage * 256);
 			
 			// prepare booting the machine (setup germ, boot source, boot switches)
@@ -586,21 +682,53 @@ public class Draco {
 			uiDataConsumer = IOP.getUiCallbacks();
 		}
 		
+		// create the session recorder if requested
+		if (recordingFile != null && !recordingFile.isEmpty()) {
+			try {
+				sessionRecorder = new SessionRecorder(recordingFile, Mem.displayPixelWidth, Mem.displayPixelHeight, false, Mem.getDisplayWordsPerLine());
+			} catch (IOException e) {
+				System.out.printf("Warning: unable to create session recording file '%s': %s\n", recordingFile, e.getMessage());
+			}
+		}
+		
+		// run without Swing ui if the display is to be served to VNC clients
+		if (rfbPort > 0) {
+			KeyboardMapper kMapper = new KeyboardMapper(uiDataConsumer, xeroxControlKeyCode, logKeyPressed);
+			if (keyboardMapFile != null) {
+				kMapper.loadConfigFile(keyboardMapFile);
+			} else {
+				kMapper.mapDefaults_de_DE();
+			}
+			HeadlessRunner.run(
+					"Dwarf / Draco 6085 : " + title, uiDataConsumer,
+					Mem.displayPixelWidth, Mem.displayPixelHeight, false,
+					kMapper, rfbAddress, rfbPort, sessionRecorder,
+					initialFloppy, IOP::insertFloppy, IOP::shutdown);
+			return;
+		}
+		
 		// create and start the ui
 		boolean logKeys = logKeyPressed;
 		boolean runInFullscreen = doFullscreen;
+		double zoom = Math.max(0.25, Math.min(8.0, displayZoom));
+		boolean flightRecording = doFlightRecording;
 		EventQueue.invokeLater(() -> {	
 			try {	
 				// setup the ui main window
 				int displayWidth = Mem.displayPixelWidth;
 				int displayHeight = Mem.displayPixelHeight;
-				window = new MainUI("Dwarf / Draco 6085", title, displayWidth, displayHeight, true, false, runInFullscreen); // TODO: make resizable a program/configuration parameter?
+				window = new MainUI("Dwarf / Draco 6085", title, displayWidth, displayHeight, true, false, runInFullscreen, zoom); // TODO: make resizable a program/configuration parameter?
+				window.addTraceControls();
+				if (flightRecording) {
+					window.addFlightRecorderControls();
+				}
 				window.getFrame().setVisible(true);
 				
 				// attach the mouse and keyboard handlers (java-ui => mesa engine) 
 				MouseHandler mouseHandler = new MouseHandler(window, uiDataConsumer, displayWidth, displayHeight);
 				window.getDisplayPane().addMouseMotionListener(mouseHandler);
 				window.getDisplayPane().addMouseListener(mouseHandler);
+				if (softwareCursor) { window.getDisplayPane().setSoftwareCursor(); }
 				
 				KeyboardMapper kMapper = new KeyboardMapper(uiDataConsumer, xeroxControlKeyCode, logKeys);
 				if (keyboardMapFile != null) {
@@ -620,10 +748,12 @@ public class Draco {
 				
 				// install the ui refresher (mesa engine => java-ui)
 				uiRefresher = new UiRefresher(window, uiDataConsumer, !largeScreen);
+				uiRefresher.setSessionRecorder(sessionRecorder);
 				window.getFrame().addWindowListener(new WindowStateListener(window, uiRefresher, Draco::isMesaEngineRunning, Draco::terminateOnEngineStopped));
 				
 				// start regular invocations of the ui refresher by the Swing ui thread
 				uiTimer = new Timer(UiRefreshInterval, uiRefresher);
+				uiRefresher.setTimer(uiTimer);
 				uiTimer.start();
 				
 				// setup the actions for the toolbar buttons
@@ -712,6 +842,7 @@ public class Draco {
 				System.out.printf("\n***\n*** processor exited: %s\n***\n", finalMessage);
 				uiRefresher.setEngineEndedMessage(finalMessage);
 				window.setRunningState(RunningState.stopped);
+				if (sessionRecorder != null) { sessionRecorder.close(); }
 				
 				// shutdown the devices, mainly saving changes to the harddisk and a possibly mounted virtual floppy
 				StringBuilder errMsgTarget = new StringBuilder();
@@ -36,29 +36,35 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.function.Supplier;
 
 import javax.swing.JFileChooser;
 import javax.swing.JOptionPane;
 import javax.swing.Timer;
 
 import dev.hawala.dmachine.dwarf.DebuggerSubstituteMpHandler;
+import dev.hawala.dmachine.dwarf.HeadlessRunner;
 import dev.hawala.dmachine.dwarf.KeyHandler;
 import dev.hawala.dmachine.dwarf.KeyboardMapper;
 import dev.hawala.dmachine.dwarf.MainUI;
 import dev.hawala.dmachine.dwarf.MainUI.RunningState;
 import dev.hawala.dmachine.dwarf.MouseHandler;
 import dev.hawala.dmachine.dwarf.PropertiesExt;
+import dev.hawala.dmachine.dwarf.SessionRecorder;
 import dev.hawala.dmachine.dwarf.TestUiDataConsumer;
 import dev.hawala.dmachine.dwarf.UiRefresher;
 import dev.hawala.dmachine.dwarf.WindowStateListener;
 import dev.hawala.dmachine.dwarf.eKeyEventCode;
 import dev.hawala.dmachine.engine.Cpu;
+import dev.hawala.dmachine.engine.DisplayExport;
+import dev.hawala.dmachine.engine.FlightRecorder;
 import dev.hawala.dmachine.engine.InitialMesaMicrocode;
 import dev.hawala.dmachine.engine.Mem;
 import dev.hawala.dmachine.engine.Opcodes;
 import dev.hawala.dmachine.engine.PilotDefs;
 import dev.hawala.dmachine.engine.PrincOpsDefs;
 import dev.hawala.dmachine.engine.Processes;
+import dev.hawala.dmachine.engine.Trace;
 import dev.hawala.dmachine.engine.Xfer;
 import dev.hawala.dmachine.engine.iUiDataConsumer;
 import dev.hawala.dmachine.engine.agents.Agents;
@@ -84,7 +90,10 @@ public class Duchess {
 	private static final String DEFAULT_MAC = "00-1D-BA-AE-04-C3";
 	
 	// the (Java-side) intended refresh rate for the UI
-	private static final int UiRefreshInterval = 20; // 20 ms => 50 wakeups => 25 display refeshes in average
+	private static final int UiRefreshInterval = 20; // 20 ms while ui data arrives, backing off when idle (see UiRefresher)
+	
+	// the optional recorder for the display content
+	private static SessionRecorder sessionRecorder = null;
 	
 	// the interface between the Java UI and the mea engine
 	private static UiRefresher uiRefresher;
@@ -121,6 +130,14 @@ public class Duchess {
 	private static String netHubHost = "";
 	private static int netHubPort = 3333;
 	private static int localTimeOffsetMinutes = 0;
+	private static boolean virtualTime = false;
+	private static boolean itTicker = false;
+	private static double displayZoom = 1.0;
+	private static int rfbPort = 0;
+	private static String rfbAddress = "127.0.0.1";
+	private static String displayExportFile = null;
+	private static String recordingFile = null;
+	private static boolean softwareCursor = false;
 	
 	// control flags for the mesa engine
 	private static boolean doStartEngine = false;
@@ -198,6 +215,14 @@ public class Duchess {
 		netHubHost = props.getString("netHubHost", netHubHost);
 		netHubPort = props.getInt("netHubPort", netHubPort);
 		localTimeOffsetMinutes = props.getInt("localTimeOffsetMinutes", localTimeOffsetMinutes);
+		virtualTime = props.getBoolean("virtualTime", virtualTime);
+		itTicker = props.getBoolean("itTicker", itTicker);
+		displayZoom = props.getDouble("displayZoom", displayZoom);
+		rfbPort = props.getInt("rfbPort", rfbPort);
+		rfbAddress = props.getString("rfbAddress", rfbAddress);
+		displayExportFile = props.getString("displayExportFile", displayExportFile);
+		recordingFile = props.getString("recordingFile", recordingFile);
+		softwareCursor = props.getBoolean("softwareCursor", softwareCursor);
 		
 		String ctrlKeyCode = props.getString("xeroxControlKeyCode", null);
 		if (ctrlKeyCode != null && ctrlKeyCode.length() > 0) {
@@ -278,6 +303,39 @@ public class Duchess {
 		System.out.printf(" netHubHost  : %s\n", netHubHost);
 		System.out.printf(" netHubPort  : %d\n", netHubPort);
 		System.out.printf(" localTimeOff: %d\n", localTimeOffsetMinutes);
+		System.out.printf(" virtualTime : %s\n", (virtualTime) ? "yes" : "no");
+		System.out.printf(" itTicker    : %s\n", (itTicker) ? "yes" : "no");
+		System.out.printf(" displayZoom : %s\n", displayZoom);
+		System.out.printf(" rfb server  : %s\n", (rfbPort > 0) ? rfbAddress + ":" + rfbPort : "");
+		System.out.printf(" disp. export: %s\n", (displayExportFile != null) ? displayExportFile : "");
+		System.out.printf(" recording   : %s\n", (recordingFile != null) ? recordingFile : "");
+		System.out.printf(" soft. cursor: %s\n", softwareCursor);
+	}
+	
+	// create the display export file if configured (requires the initialized mesa engine memory)
+	private static void setupDisplayExport(Supplier<int[]> colorTableSupplier) {
+		if (displayExportFile == null || displayExportFile.isEmpty()) { return; }
+		try {
+			Processes.registerDisplayExport(new DisplayExport(displayExportFile, colorTableSupplier));
+		} catch (IOException e) {
+			System.out.printf("Warning: unable to create display export file '%s': %s\n", displayExportFile, e.getMessage());
+		}
+	}
+	
+	// parse the value of the -rfb: option: [address:]port
+	private static boolean parseRfbOption(String value) {
+		int colon = value.lastIndexOf(':');
+		try {
+			int port = Integer.parseInt(value.substring(colon + 1));
+			if (port < 1 || port > 65535) { return false; }
+			if (colon > 0) {
+				rfbAddress = value.substring(0, colon);
+			}
+			rfbPort = port;
+			return true;
+		} catch (NumberFormatException nfe) {
+			return false;
+		}
 	}
 	
 	// the main program
@@ -288,6 +346,7 @@ public class Duchess {
 		boolean doMerge = false;
 		String cfgFile = null;
 		boolean doFullscreen = false;
+		boolean doFlightRecording = false;
 		
 		// command line parameters pass 1: check for test only OR run configuration
 		for (String arg : args) {
@@ -327,8 +386,35 @@ public class Duchess {
 						doMerge = true;
 					} else if ("-autoclose".equalsIgnoreCase(arg)) {
 						doTerminate = true;
+					} else if ("-virtualtime".equalsIgnoreCase(arg)) {
+						virtualTime = true;
+					} else if ("-itticker".equalsIgnoreCase(arg)) {
+						itTicker = true;
+					} else if (arg.toLowerCase().startsWith("-zoom:")) {
+						try {
+							displayZoom = Double.parseDouble(arg.substring(6));
+						} catch (NumberFormatException nfe) {
+							System.out.printf("Warning: invalid zoom factor in: %s\n", arg);
+						}
+					} else if (arg.toLowerCase().startsWith("-rfb:")) {
+						if (!parseRfbOption(arg.substring(5))) {
+							System.out.printf("Warning: invalid rfb server address in: %s\n", arg);
+						}
+					} else if (arg.toLowerCase().startsWith("-fbexport:")) {
+						displayExportFile = arg.substring(10);
+					} else if (arg.toLowerCase().startsWith("-record:")) {
+						recordingFile = arg.substring(8);
+					} else if ("-softcursor".equalsIgnoreCase(arg)) {
+						softwareCursor = true;
 					} else if ("-fullscreen".equalsIgnoreCase(arg)) {
 						doFullscreen = true;
+					} else if ("-flightrecorder".equalsIgnoreCase(arg)) {
+						doFlightRecording = true;
+						FlightRecorder.setActive(true);
+					} else if (arg.toLowerCase().startsWith("-trace:")) {
+						if (!Trace.configure(arg.substring(7))) {
+							System.out.printf("Warning: unknown trace category in: %s\n", arg);
+						}
 					} else {
 						System.out.printf("Warning: ignoring unknown command line argument: %s\n", arg);
 					}
@@ -360,8 +446,8 @@ public class Duchess {
 			// test mode
 			uiDataConsumer = new TestUiDataConsumer(DEFAULT_DISPLAY_WIDTH, DEFAULT_DISPLAY_HEIGHT);
 		} else {
-			// get fullscreen display size for the Mesa engine display if requested
-			if (doFullscreen) {
+			// get fullscreen display size for the Mesa engine display if requested (not for headless operation)
+			if (doFullscreen && rfbPort == 0) {
 				Rectangle dims = MainUI.getFullscreenUsableDims();
 				if (dims != null) {
 					displayWidth = dims.width;
@@ -377,6 +463,12 @@ public class Duchess {
 			// set processor id (aka MAC address)
 			Cpu.setPID(macWords[0], macWords[1], macWords[2]);
 			
+			// use instruction-count based time instead of real time if requested
+			Cpu.setVirtualTime(virtualTime);
+			
+			// use a separate thread for providing the interval timer if requested
+			Cpu.setITTicker(itTicker);
+			
 			// initialize the memory subsystem with the configured display configuration
 			Mem.initializeMemoryGuam(
 					addressBitsVirtual, addressBitsReal,
@@ -397,6 +489,7 @@ public class Duchess {
 			}
 			NetworkAgent.setHubParameters(netHubHost, netHubPort, localTimeOffsetMinutes);
 			Agents.initialize();
+			setupDisplayExport(Agents::getDisplayColorTable);
 			
 			// perform the initial microcode pre-boot actions (simulating the IOP on a 8000/6085)
 			InitialMesaMicrocode.loadGerm(germFile, true);
@@ -410,19 +503,51 @@ public class Duchess {
 			uiDataConsumer = Agents.getUiCallbacks();
 		}
 		
+		// create the session recorder if requested
+		if (!testOnly && recordingFile != null && !recordingFile.isEmpty()) {
+			try {
+				sessionRecorder = new SessionRecorder(recordingFile, displayWidth, displayHeight, displayTypeColor, Mem.getDisplayWordsPerLine());
+			} catch (IOException e) {
+				System.out.printf("Warning: unable to create session recording file '%s': %s\n", recordingFile, e.getMessage());
+			}
+		}
+		
+		// run without Swing ui if the display is to be served to VNC clients
+		if (rfbPort > 0 && !testOnly) {
+			KeyboardMapper kMapper = new KeyboardMapper(uiDataConsumer, xeroxControlKeyCode, logKeyPressed);
+			if (keyboardMapFile != null) {
+				kMapper.loadConfigFile(keyboardMapFile);
+			} else {
+				kMapper.mapDefaults_de_DE();
+			}
+			HeadlessRunner.run(
+					"Dwarf / Duchess : " + title, uiDataConsumer,
+					displayWidth, displayHeight, displayTypeColor,
+					kMapper, rfbAddress, rfbPort, sessionRecorder,
+					initialFloppy, Agents::insertFloppy, Agents::shutdown);
+			return;
+		}
+		
 		// create and start the ui
 		boolean logKeys = logKeyPressed;
 		boolean runInFullscreen = doFullscreen;
+		double zoom = Math.max(0.25, Math.min(8.0, displayZoom));
+		boolean flightRecording = doFlightRecording;
 		EventQueue.invokeLater(() -> {	
 			try {	
 				// setup the ui main window
-				window = new MainUI("Dwarf / Duchess", title, displayWidth, displayHeight, true, displayTypeColor, runInFullscreen); // TODO: make resizable a program/configuration parameter?
+				window = new MainUI("Dwarf / Duchess", title, displayWidth, displayHeight, true, displayTypeColor, runInFullscreen, zoom); // TODO: make resizable a program/configuration parameter?
+				window.addTraceControls();
+				if (flightRecording) {
+					window.addFlightRecorderControls();
+				}
 				window.getFrame().setVisible(true);
 				
 				// attach the mouse and keyboard handlers (java-ui => mesa engine) 
 				MouseHandler mouseHandler = new MouseHandler(window, uiDataConsumer, displayWidth, displayHeight);
 				window.getDisplayPane().addMouseMotionListener(mouseHandler);
 				window.getDisplayPane().addMouseListener(mouseHandler);
+				if (softwareCursor) { window.getDisplayPane().setSoftwareCursor(); }
 				
 				KeyboardMapper kMapper = new KeyboardMapper(uiDataConsumer, xeroxControlKeyCode, logKeys);
 				if (keyboardMapFile != null) {
@@ -442,10 +567,12 @@ public class Duchess {
 				
 				// install the ui refresher (mesa engine => java-ui)
 				uiRefresher = new UiRefresher(window, uiDataConsumer, displayWidth < 960);
+				uiRefresher.setSessionRecorder(sessionRecorder);
 				window.getFrame().addWindowListener(new WindowStateListener(window, uiRefresher, Duchess::isMesaEngineRunning, Duchess::terminateOnEngineStopped));
 				
 				// start regular invocations of the ui refresher by the Swing ui thread
 				uiTimer = new Timer(UiRefreshInterval, uiRefresher);
+				uiRefresher.setTimer(uiTimer);
 				uiTimer.start();
 				
 				// setup the actions for the toolbar buttons
@@ -534,6 +661,7 @@ public class Duchess {
 					// inform the user about why the mesa engine halted
 					System.out.printf("\n***\n*** processor exited: %s\n***\n", finalMessage);
 					window.setRunningState(RunningState.stopped);
+					if (sessionRecorder != null) { sessionRecorder.close(); }
 					
 					// shutdown the agents to save changes to the harddisk and a possibly mounted virtual floppy
 					uiRefresher.setEngineEndedMessage(finalMessage + " -- saving disk(s) state");
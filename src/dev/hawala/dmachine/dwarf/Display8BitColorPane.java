@@ -26,8 +26,10 @@ ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package dev.hawala.dmachine.dwarf;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
-import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
 
 import dev.hawala.dmachine.engine.PrincOpsDefs;
 
@@ -35,6 +37,13 @@ import dev.hawala.dmachine.engine.PrincOpsDefs;
  * Java swing pane representing the screen of a Dwarf machine, providing
  * a 8-bit lookup table color display.
  * <p>
+ * The backing store holds the pixel values of the mesa display (i.e. the indexes
+ * into the color table) with an {@code IndexColorModel} built from the color
+ * table, so modified display pages are copied without mapping the pixels through
+ * the color table, and a new color table only requires a new color model for the
+ * unchanged pixel data instead of re-expanding the whole display.
+ * </p>
+ * <p>
  * The basic functionality for the Dwarf UI is inherited from the parent
  * class {@code DisplayPane}.
  * </p>
@@ -54,22 +63,44 @@ public class Display8BitColorPane extends DisplayPane {
 	private static int getEffectiveWidth(int displayWidth) {
 		return ((displayWidth + PIXELS_PER_PAGE - 1) / PIXELS_PER_PAGE) * PIXELS_PER_PAGE;
 	}
+	
+	// create the color model for a color table, missing entries being black
+	private static IndexColorModel createColorModel(int[] colorTable) {
+		byte[] r = new byte[256];
+		byte[] g = new byte[256];
+		byte[] b = new byte[256];
+		for (int i = 0; i < Math.min(256, colorTable.length); i++) {
+			int color = colorTable[i];
+			r[i] = (byte)(color >>> 16);
+			g[i] = (byte)(color >>> 8);
+			b[i] = (byte)color;
+		}
+		return new IndexColorModel(8, 256, r, g, b);
+	}
 
 	public Display8BitColorPane(int displayWidth, int displayHeight) {
 		super(getEffectiveWidth(displayWidth), displayHeight);
+		this.setChangeUnits(getEffectiveWidth(displayWidth), 1);
 	}
 
 	@Override
 	protected BufferedImage createBackingImage(int displayWidth, int displayHeight) {
-		return new BufferedImage(displayWidth, displayHeight, BufferedImage.TYPE_INT_RGB);
+		int[] initialColors = { 0x00000000, 0x00FFFFFF }; // black, white (as initialized by the DisplayAgent)
+		return new BufferedImage(displayWidth, displayHeight, BufferedImage.TYPE_BYTE_INDEXED, createColorModel(initialColors));
+	}
+	
+	@Override
+	public Rectangle setColorTable(int[] colorTable) {
+		this.bi = new BufferedImage(createColorModel(colorTable), this.bi.getRaster(), false, null);
+		return new Rectangle(0, 0, this.bi.getWidth(), this.bi.getHeight());
 	}
 
 	@Override
-	public boolean copyDisplayContent(short[] mem, int start, int count, short[] pageFlags, int firstPage, int[] colorTable) {
-		DataBufferInt dbb = (DataBufferInt)bi.getRaster().getDataBuffer();
-		int[] pixels = dbb.getData();
+	public Rectangle copyDisplayContent(short[] mem, int start, int count, short[] pageFlags, int firstPage) {
+		DataBufferByte dbb = (DataBufferByte)bi.getRaster().getDataBuffer();
+		byte[] pixels = dbb.getData();
 		
-		boolean bitmapWasUpdated = false;
+		this.resetChanges();
 		int end = start + Math.min(Math.min(count, pixels.length / 2), mem.length - start);
 		int bitmapIdx = 0;
 		int memIdx = start;
@@ -79,18 +110,29 @@ public class Display8BitColorPane extends DisplayPane {
 			short flags = pageFlags[pageIdx++];
 			if ((flags & PrincOpsDefs.MAPFLAGS_DIRTY) == 0) {
 				memIdx += PrincOpsDefs.WORDS_PER_PAGE;
-				bitmapIdx += PrincOpsDefs.WORDS_PER_PAGE * 2; // 2 pixels per mesa word in display data
+				bitmapIdx += PIXELS_PER_PAGE;
 				continue;
 			}
-			for (int i = 0; i < PrincOpsDefs.WORDS_PER_PAGE && memIdx < end; i++) {
-				int w = mem[memIdx++] & 0xFFFF;
-				pixels[bitmapIdx++] = colorTable[w >>> 8];
-				pixels[bitmapIdx++] = colorTable[w & 0x00FF];
+			// copy the pixel pairs of the page, registering the pixels actually changed
+			int pageEnd = Math.min(memIdx + PrincOpsDefs.WORDS_PER_PAGE, end);
+			int pixIdx = bitmapIdx;
+			for (int i = memIdx; i < pageEnd; i++) {
+				short w = mem[i];
+				this.setPixel(pixels, pixIdx++, (byte)(w >>> 8));
+				this.setPixel(pixels, pixIdx++, (byte)w);
 			}
-			bitmapWasUpdated = true;
+			memIdx += PrincOpsDefs.WORDS_PER_PAGE;
+			bitmapIdx += PIXELS_PER_PAGE;
 		}
 		
-		return bitmapWasUpdated;
+		return this.getChanges();
+	}
+	
+	private void setPixel(byte[] pixels, int idx, byte pixel) {
+		if (pixels[idx] != pixel) {
+			pixels[idx] = pixel;
+			this.noteChange(idx);
+		}
 	}
 
-}
\ No newline at end of file
+}
@@ -26,8 +26,14 @@ ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package dev.hawala.dmachine.dwarf;
 
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
-import java.awt.image.DataBufferByte;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.IndexColorModel;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
 
 import dev.hawala.dmachine.engine.PrincOpsDefs;
 
@@ -35,6 +41,12 @@ import dev.hawala.dmachine.engine.PrincOpsDefs;
  * Java swing pane representing the screen of a Dwarf machine, providing
  * a Black&amp;White display.
  * <p>
+ * The backing store of the display uses the same layout as the mesa display
+ * memory (16 pixels per word, leftmost pixel in the most significant bit)
+ * with a color model mapping a 1-bit to black, so the mesa display words
+ * can be transferred as is into the backing store.
+ * </p>
+ * <p>
  * The basic functionality for the Dwarf UI is inherited from the parent
  * class {@code DisplayPane}.
  * </p>
@@ -47,20 +59,26 @@ public class DisplayMonochromePane extends DisplayPane {
 
 	public DisplayMonochromePane(int displayWidth, int displayHeight) {
 		super(displayWidth, displayHeight);
+		this.setChangeUnits((displayWidth + 15) / 16, 16);
 	}
 
 	@Override
 	protected BufferedImage createBackingImage(int displayWidth, int displayHeight) {
-		return new BufferedImage(displayWidth, displayHeight, BufferedImage.TYPE_BYTE_BINARY);
+		byte[] levels = { (byte)0xFF, (byte)0x00 }; // 0 = white, 1 = black
+		IndexColorModel colorModel = new IndexColorModel(1, 2, levels, levels, levels);
+		MultiPixelPackedSampleModel sampleModel = new MultiPixelPackedSampleModel(DataBuffer.TYPE_USHORT, displayWidth, displayHeight, 1);
+		DataBufferUShort dataBuffer = new DataBufferUShort(sampleModel.getScanlineStride() * displayHeight);
+		WritableRaster raster = Raster.createWritableRaster(sampleModel, dataBuffer, null);
+		return new BufferedImage(colorModel, raster, false, null);
 	}
 
 	@Override
-	public boolean copyDisplayContent(short[] mem, int start, int count, short[] pageFlags, int firstPage, int[] colorTable) {
-		DataBufferByte dbb = (DataBufferByte)bi.getRaster().getDataBuffer();
-		byte[] data = dbb.getData();
+	public Rectangle copyDisplayContent(short[] mem, int start, int count, short[] pageFlags, int firstPage) {
+		DataBufferUShort dbus = (DataBufferUShort)bi.getRaster().getDataBuffer();
+		short[] data = dbus.getData();
 		
-		boolean bitmapWasUpdated = false;
-		int end = start + Math.min(Math.min(count, data.length / 2), mem.length - start);
+		this.resetChanges();
+		int end = start + Math.min(Math.min(count, data.length), mem.length - start);
 		int bitmapIdx = 0;
 		int memIdx = start;
 		int pageIdx = firstPage;
@@ -69,18 +87,20 @@ public class DisplayMonochromePane extends DisplayPane {
 			short flags = pageFlags[pageIdx++];
 			if ((flags & PrincOpsDefs.MAPFLAGS_DIRTY) == 0) {
 				memIdx += PrincOpsDefs.WORDS_PER_PAGE;
-				bitmapIdx += PrincOpsDefs.WORDS_PER_PAGE * 2;
+				bitmapIdx += PrincOpsDefs.WORDS_PER_PAGE;
 				continue;
 			}
 			for (int i = 0; i < PrincOpsDefs.WORDS_PER_PAGE && memIdx < end; i++) {
-				short w = (short)(mem[memIdx++] ^ 0xFFFF); // TODO: really invert manually ??
-				data[bitmapIdx++] = (byte)((w >>> 8));
-				data[bitmapIdx++] = (byte)((w & 0x00FF));
+				short w = mem[memIdx++];
+				if (data[bitmapIdx] != w) {
+					data[bitmapIdx] = w;
+					this.noteChange(bitmapIdx);
+				}
+				bitmapIdx++;
 			}
-			bitmapWasUpdated = true;
 		}
 		
-		return bitmapWasUpdated;
+		return this.getChanges();
 	}
 	
 }
\ No newline at end of file
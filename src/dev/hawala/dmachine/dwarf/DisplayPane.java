@@ -29,13 +29,23 @@ package dev.hawala.dmachine.dwarf;
 import java.awt.Cursor;
 import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
 import java.awt.Toolkit;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferByte;
-import java.util.ArrayList;
+import java.awt.image.DataBufferInt;
+import java.awt.image.VolatileImage;
 import java.util.Arrays;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.swing.JComponent;
 
@@ -50,10 +60,27 @@ import javax.swing.JComponent;
  * address space.
  * </p>
  * <p>
+ * The display can be presented zoomed by an integral factor (scaled with
+ * nearest-neighbor interpolation) or a fractional factor (scaled with bilinear
+ * interpolation): the regions to repaint are uploaded unscaled from the backing
+ * store into an accelerated surface ({@code VolatileImage}), which is then scaled
+ * by the graphics pipeline when drawn into the pane.
+ * </p>
+ * <p>
  * The pane also provides access to the mouse pointer shape displayed when
- * the system cursor is in the panes area. All cursors created through the
- * {@code setCursor()} method are cached, so resource usage can be reduced by
- * re-using already defined cursor shapes.
+ * the system cursor is in the panes area. The native cursors created through the
+ * {@code setCursor()} method are kept in a cache of limited size (dropping the
+ * least recently used cursor), so resource usage can be reduced by re-using
+ * already defined cursor shapes.
+ * <br>
+ * Alternatively, the cursor shape can be drawn as overlay at the pointer position
+ * (software cursor, see {@link #setSoftwareCursor()}), which avoids creating native
+ * cursors for frequently changing shapes (e.g. animated cursors) and has the cursor
+ * scaled together with the display if zoomed.
+ * </p>
+ * <p>
+ * In a headless environment, the pane can still be created and used as
+ * backing store for the mesa display (without setting cursors).
  * </p>
  * 
  * @author Dr. Hans-Walter Latz / Berlin (2017,2020)
@@ -64,15 +91,37 @@ public abstract class DisplayPane extends JComponent {
 
 	// buffer image as backing store for the bitmap currently displayed and
 	// used for pseudo-regular transfer from mesa memory to java display
-	protected final BufferedImage bi;
+	// (may be replaced by an image sharing the raster but having a new color model)
+	protected volatile BufferedImage bi;
 	
 	// custom cursor construction support
 	private final BufferedImage cursorBits;
 	private final int cursorBitsSkipPerLine;
 	private final Toolkit tk;
 	
-	// cached cursors
-	private final List<CachedCursor> cachedCursors = new ArrayList<>();
+	// cached native cursors, in least recently used order
+	private static final int MAX_CACHED_CURSORS = 32;
+	private final Map<CursorShape, Cursor> cachedCursors = new LinkedHashMap<CursorShape, Cursor>(16, 0.75f, true) {
+		private static final long serialVersionUID = -2936263005614407207L;
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<CursorShape, Cursor> eldest) {
+			return this.size() > MAX_CACHED_CURSORS;
+		}
+	};
+	
+	// software cursor: the shape drawn as overlay and its position in display coordinates (-1 if outside the pane)
+	private boolean softwareCursor = false;
+	private final BufferedImage softCursorImage = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+	private boolean softCursorDefined = false;
+	private int softCursorHotspotX = 0;
+	private int softCursorHotspotY = 0;
+	private int softCursorX = -1;
+	private int softCursorY = -1;
+	
+	// zoom factor for presenting the display and the accelerated surface used if zoomed
+	private double zoom = 1.0;
+	private Object zoomInterpolation = RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR;
+	private VolatileImage zoomSurface = null;
 
 	/**
 	 * Create the panel of the given size.
@@ -90,8 +139,8 @@ public abstract class DisplayPane extends JComponent {
 		
 		// get the environments cursor geometry characteristics, assuming the cursor square
 		// is multiples of 16 and create the image buffer for creating new cursors later.
-		this.tk = Toolkit.getDefaultToolkit();
-		Dimension cursorDims = this.tk.getBestCursorSize(16, 16);
+		this.tk = GraphicsEnvironment.isHeadless() ? null : Toolkit.getDefaultToolkit();
+		Dimension cursorDims = (this.tk != null) ? this.tk.getBestCursorSize(16, 16) : new Dimension(16, 16);
 		double cursorWidth = cursorDims.getWidth();
 		// System.out.printf("cursorDims: w = %f , h = %f\n", cursorWidth, cursorDims.getHeight());
 		if (cursorWidth > 63.0d) {
@@ -121,15 +170,193 @@ public abstract class DisplayPane extends JComponent {
 		return this.bi;
 	}
 	
+	/**
+	 * Set the zoom factor for presenting the display, setting the
+	 * size of the pane accordingly.
+	 * 
+	 * @param zoom the zoom factor, with {@code 1.0} for presenting
+	 *   the display unscaled.
+	 * @param displayWidth pixel width of the mesa display.
+	 * @param displayHeight pixel height of the mesa display. 
+	 */
+	public void setZoom(double zoom, int displayWidth, int displayHeight) {
+		this.zoom = zoom;
+		this.zoomInterpolation = (zoom == Math.rint(zoom))
+				? RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR
+				: RenderingHints.VALUE_INTERPOLATION_BILINEAR;
+		Dimension dims = new Dimension((int)Math.round(displayWidth * zoom), (int)Math.round(displayHeight * zoom));
+		this.setMinimumSize(dims);
+		this.setMaximumSize(dims);
+		this.setPreferredSize(dims);
+	}
+	
+	/**
+	 * Convert a pane coordinate to the corresponding mesa display coordinate.
+	 * 
+	 * @param paneCoordinate the x or y coordinate in the pane.
+	 * @return the x resp. y coordinate on the mesa display.
+	 */
+	public int toDisplayCoordinate(int paneCoordinate) {
+		return (this.zoom == 1.0) ? paneCoordinate : (int)Math.floor(paneCoordinate / this.zoom);
+	}
+	
+	/**
+	 * Request repainting the pane region presenting a region of the mesa display.
+	 * 
+	 * @param x left pixel position of the region on the mesa display
+	 * @param y top scanline of the region on the mesa display
+	 * @param w pixel width of the region
+	 * @param h scanline count of the region
+	 */
+	public void repaintDisplayRegion(int x, int y, int w, int h) {
+		if (this.zoom == 1.0) {
+			this.repaint(x, y, w, h);
+			return;
+		}
+		int x1 = (int)Math.floor(x * this.zoom) - 1;
+		int y1 = (int)Math.floor(y * this.zoom) - 1;
+		int x2 = (int)Math.ceil((x + w) * this.zoom) + 1;
+		int y2 = (int)Math.ceil((y + h) * this.zoom) + 1;
+		this.repaint(x1, y1, x2 - x1, y2 - y1);
+	}
+	
 	@Override
 	public void paint(Graphics g) {
-		g.drawImage(bi, 0, 0, bi.getWidth(), bi.getHeight(), null);
+		if (this.zoom != 1.0) {
+			this.paintZoomed((Graphics2D)g);
+			return;
+		}
+		
+		Rectangle clip = g.getClipBounds();
+		if (clip == null) {
+			g.drawImage(bi, 0, 0, bi.getWidth(), bi.getHeight(), null);
+		} else {
+			// draw only the region to be repainted
+			int x1 = Math.max(0, clip.x);
+			int y1 = Math.max(0, clip.y);
+			int x2 = Math.min(bi.getWidth(), clip.x + clip.width);
+			int y2 = Math.min(bi.getHeight(), clip.y + clip.height);
+			if (x1 < x2 && y1 < y2) {
+				g.drawImage(bi, x1, y1, x2, y2, x1, y1, x2, y2, null);
+			}
+		}
+		this.paintSoftwareCursor(g);
 	}
 	
-	// cursor cache class
-	// a single cursor is identified by an hashcode computed over the
-	// cursor bits and the hotspot position
-	private static class CachedCursor {
+	// paint the region to repaint scaled through the accelerated surface
+	private void paintZoomed(Graphics2D g) {
+		int width = bi.getWidth();
+		int height = bi.getHeight();
+		
+		// the display region covering the clip, with 1 pixel added for interpolating at the borders
+		Rectangle clip = g.getClipBounds();
+		if (clip == null) { clip = new Rectangle(0, 0, this.getWidth(), this.getHeight()); }
+		int x1 = Math.max(0, (int)Math.floor(clip.x / this.zoom) - 1);
+		int y1 = Math.max(0, (int)Math.floor(clip.y / this.zoom) - 1);
+		int x2 = Math.min(width, (int)Math.ceil((clip.x + clip.width) / this.zoom) + 1);
+		int y2 = Math.min(height, (int)Math.ceil((clip.y + clip.height) / this.zoom) + 1);
+		if (x1 >= x2 || y1 >= y2) { return; }
+		
+		AffineTransform savedTransform = g.getTransform();
+		g.scale(this.zoom, this.zoom);
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, this.zoomInterpolation);
+		
+		GraphicsConfiguration gc = this.getGraphicsConfiguration();
+		if (gc == null) {
+			g.drawImage(bi, x1, y1, x2, y2, x1, y1, x2, y2, null);
+			this.paintSoftwareCursor(g);
+			g.setTransform(savedTransform);
+			return;
+		}
+		
+		// only the uploaded region of the surface is drawn, so a restored surface needs no special handling
+		do {
+			if (this.zoomSurface == null || this.zoomSurface.validate(gc) == VolatileImage.IMAGE_INCOMPATIBLE) {
+				this.zoomSurface = gc.createCompatibleVolatileImage(width, height);
+			}
+			Graphics2D sg = this.zoomSurface.createGraphics();
+			sg.drawImage(bi, x1, y1, x2, y2, x1, y1, x2, y2, null);
+			sg.dispose();
+			g.drawImage(this.zoomSurface, x1, y1, x2, y2, x1, y1, x2, y2, null);
+		} while (this.zoomSurface.contentsLost());
+		
+		this.paintSoftwareCursor(g);
+		g.setTransform(savedTransform);
+	}
+	
+	// draw the software cursor over the display content (with g using display coordinates)
+	private void paintSoftwareCursor(Graphics g) {
+		if (!this.softwareCursor || !this.softCursorDefined || this.softCursorX < 0) { return; }
+		if (g instanceof Graphics2D) {
+			((Graphics2D)g).setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+		}
+		g.drawImage(this.softCursorImage, this.softCursorX - this.softCursorHotspotX, this.softCursorY - this.softCursorHotspotY, null);
+	}
+	
+	/*
+	 * tracking of the region modified by copyDisplayContent(), with positions
+	 * in the backing store given in units of the backing store data array
+	 */
+	
+	private int changeUnitsPerLine = 1;
+	private int changePixelsPerUnit = 1;
+	
+	private int changeMinIdx;
+	private int changeMaxIdx;
+	private int changeMinCol;
+	private int changeMaxCol;
+	
+	/**
+	 * Set the layout of the data array of the backing store for tracking changes.
+	 * 
+	 * @param unitsPerLine number of data array elements for a scanline.
+	 * @param pixelsPerUnit number of pixels in a data array element.
+	 */
+	protected void setChangeUnits(int unitsPerLine, int pixelsPerUnit) {
+		this.changeUnitsPerLine = unitsPerLine;
+		this.changePixelsPerUnit = pixelsPerUnit;
+	}
+	
+	/**
+	 * Start tracking the changes to the backing store.
+	 */
+	protected void resetChanges() {
+		this.changeMinIdx = Integer.MAX_VALUE;
+		this.changeMaxIdx = -1;
+		this.changeMinCol = Integer.MAX_VALUE;
+		this.changeMaxCol = -1;
+	}
+	
+	/**
+	 * Register a modified data array element of the backing store.
+	 * 
+	 * @param idx index of the modified element.
+	 */
+	protected void noteChange(int idx) {
+		if (idx < this.changeMinIdx) { this.changeMinIdx = idx; }
+		if (idx > this.changeMaxIdx) { this.changeMaxIdx = idx; }
+		int col = idx % this.changeUnitsPerLine;
+		if (col < this.changeMinCol) { this.changeMinCol = col; }
+		if (col > this.changeMaxCol) { this.changeMaxCol = col; }
+	}
+	
+	/**
+	 * Get the bounding box of the changes registered since {@code resetChanges()}.
+	 * 
+	 * @return the region modified or {@code null} if the backing store was not modified.
+	 */
+	protected Rectangle getChanges() {
+		if (this.changeMaxIdx < 0) { return null; }
+		int y1 = this.changeMinIdx / this.changeUnitsPerLine;
+		int y2 = this.changeMaxIdx / this.changeUnitsPerLine;
+		int x1 = this.changeMinCol * this.changePixelsPerUnit;
+		int x2 = Math.min((this.changeMaxCol + 1) * this.changePixelsPerUnit, this.bi.getWidth());
+		return new Rectangle(x1, y1, x2 - x1, y2 - y1 + 1);
+	}
+	
+	// key for the native cursor cache, identifying a cursor by
+	// the cursor bits and the hotspot position
+	private static class CursorShape {
 		
 		// the characteristics of the mesa cursor
 		private final short[] cursor;
@@ -137,42 +364,84 @@ public abstract class DisplayPane extends JComponent {
 		private final int hotspotY;
 		private final int hashcode; 
 		
-		// the Java Swing allocated cursor
-		private final Cursor uiCursor;
-		
-		// constructor with all final member data
-		public CachedCursor(short[] cursor, int hotspotX, int hotspotY, int hashcode, Cursor uiCursor) {
-			this.cursor = cursor;
+		public CursorShape(short[] cursor, int hotspotX, int hotspotY) {
+			this.cursor = cursor.clone();
 			this.hotspotX = hotspotX;
 			this.hotspotY = hotspotY;
-			this.hashcode = hashcode;
-			this.uiCursor = uiCursor;
-		}
-		
-		public int getHashcode() { return this.hashcode; }
-		
-		public Cursor getCursor() { return this.uiCursor; }
-
-		public static int computeHashcode(short[] cursor, int hotspotX, int hotspotY) {
+			
 			final int prime = 31;
 			int result = 1;
-			result = prime * result + Arrays.hashCode(cursor);
+			result = prime * result + Arrays.hashCode(this.cursor);
 			result = prime * result + hotspotX;
 			result = prime * result + hotspotY;
-			return result;
+			this.hashcode = result;
 		}
-
-		public boolean is(short[] cursor, int hotspotX, int hotspotY) {
-			if (!Arrays.equals(this.cursor, cursor)) { return false; }
-			if (this.hotspotX != hotspotX) { return false; }
-			if (this.hotspotY != hotspotY) { return false; }
-			return true;
+		
+		@Override
+		public int hashCode() {
+			return this.hashcode;
+		}
+		
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof CursorShape)) { return false; }
+			CursorShape other = (CursorShape)obj;
+			return this.hashcode == other.hashcode
+				&& this.hotspotX == other.hotspotX
+				&& this.hotspotY == other.hotspotY
+				&& Arrays.equals(this.cursor, other.cursor);
 		}
 	}
 	
+	/**
+	 * Present the mesa cursor as overlay drawn at the pointer position instead
+	 * of as native cursor, hiding the native cursor while it is in the pane.
+	 * This cannot be undone.
+	 */
+	public void setSoftwareCursor() {
+		if (this.softwareCursor) { return; }
+		this.softwareCursor = true;
+		
+		if (this.tk != null) {
+			BufferedImage blank = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+			this.setCursor(this.tk.createCustomCursor(blank, new Point(0, 0), "none"));
+		}
+		
+		MouseAdapter pointerTracker = new MouseAdapter() {
+			@Override public void mouseMoved(MouseEvent ev) { moveSoftwareCursor(ev.getX(), ev.getY()); }
+			@Override public void mouseDragged(MouseEvent ev) { moveSoftwareCursor(ev.getX(), ev.getY()); }
+			@Override public void mouseEntered(MouseEvent ev) { moveSoftwareCursor(ev.getX(), ev.getY()); }
+			@Override public void mouseExited(MouseEvent ev) { moveSoftwareCursor(-1, -1); }
+		};
+		this.addMouseListener(pointerTracker);
+		this.addMouseMotionListener(pointerTracker);
+	}
+	
+	// move the software cursor to a pane position (negative if outside the pane)
+	private void moveSoftwareCursor(int paneX, int paneY) {
+		int x = -1;
+		int y = -1;
+		if (paneX >= 0 && paneY >= 0) {
+			x = Math.min(this.toDisplayCoordinate(paneX), this.bi.getWidth() - 1);
+			y = Math.min(this.toDisplayCoordinate(paneY), this.bi.getHeight() - 1);
+		}
+		if (x == this.softCursorX && y == this.softCursorY) { return; }
+		this.repaintSoftwareCursor();
+		this.softCursorX = x;
+		this.softCursorY = y;
+		this.repaintSoftwareCursor();
+	}
+	
+	// request repainting the region covered by the software cursor
+	private void repaintSoftwareCursor() {
+		if (!this.softCursorDefined || this.softCursorX < 0) { return; }
+		this.repaintDisplayRegion(this.softCursorX - this.softCursorHotspotX, this.softCursorY - this.softCursorHotspotY, 16, 16);
+	}
+	
 	/**
 	 * Set a new cursor for the Dwarf screen, possibly re-using an already
-	 * (previously) created cursor having the same display characteristics. 
+	 * (previously) created cursor having the same display characteristics,
+	 * resp. changing the shape of the software cursor.
 	 * 
 	 * @param cursor the 16x16 pixel shape of the cursor, thus the array should
 	 *   have 16 elements.
@@ -180,13 +449,34 @@ public abstract class DisplayPane extends JComponent {
 	 * @param hotspotY the hotspot y coordinate, should be in the range 0..15
 	 */
 	public void setCursor(short[] cursor, int hotspotX, int hotspotY) {
-		// check if the cursor is already cached, if so re-use it
-		int hashcode = CachedCursor.computeHashcode(cursor, hotspotX, hotspotY);
-		for (CachedCursor cc : this.cachedCursors) {
-			if (cc.getHashcode() == hashcode && cc.is(cursor, hotspotX, hotspotY)) {
-				this.setCursor(cc.getCursor());
-				return;
+		// the software cursor only needs the new shape to be drawn
+		if (this.softwareCursor) {
+			this.repaintSoftwareCursor();
+			int[] pixels = ((DataBufferInt)this.softCursorImage.getRaster().getDataBuffer()).getData();
+			Arrays.fill(pixels, 0); // transparent
+			for (int i = 0; i < Math.min(16,  cursor.length); i++) {
+				int cursorLine = cursor[i];
+				int bit = 0x8000;
+				for (int j = 0; j < 16; j++) {
+					if ((cursorLine & bit) != 0) {
+						pixels[(i * 16) + j] = 0xFF000000; // opaque black
+					}
+					bit >>>= 1;
+				}
 			}
+			this.softCursorHotspotX = hotspotX;
+			this.softCursorHotspotY = hotspotY;
+			this.softCursorDefined = true;
+			this.repaintSoftwareCursor();
+			return;
+		}
+		
+		// check if the cursor is already cached, if so re-use it
+		CursorShape shape = new CursorShape(cursor, hotspotX, hotspotY);
+		Cursor cachedCursor = this.cachedCursors.get(shape);
+		if (cachedCursor != null) {
+			this.setCursor(cachedCursor);
+			return;
 		}
 		
 		// create the cursor instance and cache it before using it
@@ -225,12 +515,25 @@ public abstract class DisplayPane extends JComponent {
 				new Point(hotspotX, hotspotY),
 				"?"
 				);
-		CachedCursor newCachedCursor = new CachedCursor(cursor, hotspotX, hotspotY, hashcode, newCursor);
-		this.cachedCursors.add(newCachedCursor);
+		this.cachedCursors.put(shape, newCursor);
 		
 		this.setCursor(newCursor);
 	}
 	
+	/**
+	 * Set the color table for presenting the pixel values in the backing store
+	 * (invoked by the {@link DisplayRenderer} thread when the color table changed).
+	 * The default implementation ignores the color table, as appropriate for
+	 * display types without color table.
+	 * 
+	 * @param colorTable mapping of pixel values to color values as array of {@code 0x00rrggbb} color values
+	 * @return the region of the backing store whose presentation changed with the new
+	 *   color table, or {@code null} if the color table does not apply to the display.
+	 */
+	public Rectangle setColorTable(int[] colorTable) {
+		return null;
+	}
+	
 	/*
 	 * ******* abstract methods to be implemented by real display panes
 	 */
@@ -246,7 +549,8 @@ public abstract class DisplayPane extends JComponent {
 	
 	/**
 	 * Copy modified pages from the real memory of the mesa engine into the bitmap
-	 * backing store for this Dwarf display. 
+	 * backing store for this Dwarf display (invoked by the {@link DisplayRenderer}
+	 * thread with its snapshot of the modified display pages).
 	 * 
 	 * @param mem the real memory of the mesa engine from where to copy the screen content
 	 * @param start the start offset (address) for the mesa display memory in {@code mem}.
@@ -255,11 +559,10 @@ public abstract class DisplayPane extends JComponent {
 	 *   memory page was modified, allowing to copy only modified pages from mesa memory space.
 	 * @param firstPage index of the first entry in {@code pageFlags} to use, corresponding
 	 *   to the {@code start} index.
-	 * @param colorTable mapping of pixel values to color values as array of {@code 0x00rrggbb} color values
-	 * @return {@code true} if the backing store of the display bitmap was modifiied, i.e. if
-	 *   any of the pageFlags signaled that the mesa display was modified, thus a repaint of
-	 *   the Java-UI should be initiated.
+	 * @return the region of the backing store that was modified by the pages signaled
+	 *   as changed by the pageFlags and must therefore be repainted in the Java-UI, or
+	 *   {@code null} if the content of the display bitmap did not change.
 	 */
-	public abstract boolean copyDisplayContent(short[] mem, int start, int count, short[] pageFlags, int firstPage, int[] colorTable) ;
+	public abstract Rectangle copyDisplayContent(short[] mem, int start, int count, short[] pageFlags, int firstPage) ;
 
 }
\ No newline at end of file
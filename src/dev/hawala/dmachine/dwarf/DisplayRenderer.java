@@ -0,0 +1,223 @@
+/*
+Copyright (c) 2026, the Dwarf contributors
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+    * Redistributions of source code must retain the above copyright
+      notice, this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * The name of the author may not be used to endorse or promote products
+      derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package dev.hawala.dmachine.dwarf;
+
+import java.awt.Rectangle;
+import java.util.function.Consumer;
+
+import dev.hawala.dmachine.engine.PrincOpsDefs;
+
+/**
+ * Render pipeline transferring the mesa display memory into the backing
+ * store of the Dwarf display outside the mesa engine thread.
+ * <p>
+ * The mesa engine thread only copies the words of the modified display pages
+ * into the current handover buffer and flags these pages (see {@link #handOver}).
+ * The render thread swaps the handover buffer with its own buffer, converts the
+ * flagged pages to pixels in the backing store of the display pane and passes
+ * the region of the pane actually changed to the change listener, by default
+ * requesting a Swing repaint for this region.
+ * </p>
+ * <p>
+ * As a page is only rendered from a buffer if it was copied into this buffer
+ * since the last swap, the (unmodified) content of the other pages in a
+ * buffer is irrelevant, so swapping the buffers is sufficient for transferring
+ * the modifications to the render thread.
+ * </p>
+ * <p>
+ * The color table is only copied and passed to the display pane if its
+ * generation changed, so an unchanged color table costs nothing per refresh
+ * and a new color table is handed over even if no display page was modified.
+ * </p>
+ *
+ * @author the Dwarf contributors (2026)
+ */
+public class DisplayRenderer implements Runnable {
+
+	// the display pane to render to and the receiver for the changed regions
+	private final DisplayPane displayPane;
+	private final Consumer<Rectangle> changeListener;
+
+	// synchronization between the mesa engine and the render thread
+	private final Object lock = new Object();
+
+	// handover buffer filled by the mesa engine, protected by lock
+	private short[] pendingWords = new short[0];
+	private short[] pendingFlags = new short[0];
+	private int[] pendingColors = new int[0];
+	private boolean pendingColorsChanged = false;
+	private boolean pendingPages = false;
+
+	// the generation of the last color table handed over, protected by lock
+	private boolean colorsHandedOver = false;
+	private int handedColorGeneration = 0;
+
+	// buffer owned by the render thread
+	private short[] renderWords = new short[0];
+	private short[] renderFlags = new short[0];
+	private int[] renderColors = new int[0];
+	private boolean renderColorsChanged = false;
+
+	// the render thread
+	private final Thread renderThread;
+
+	/**
+	 * Create and start the render pipeline for a display pane.
+	 *
+	 * @param displayPane the pane to render the mesa display to.
+	 */
+	public DisplayRenderer(DisplayPane displayPane) {
+		this(displayPane, r -> displayPane.repaintDisplayRegion(r.x, r.y, r.width, r.height));
+	}
+
+	/**
+	 * Create and start the render pipeline for a display pane, informing
+	 * the given listener about the regions changed in the backing store.
+	 *
+	 * @param displayPane the pane to render the mesa display to.
+	 * @param changeListener the receiver for the changed regions (invoked in the render thread).
+	 */
+	public DisplayRenderer(DisplayPane displayPane, Consumer<Rectangle> changeListener) {
+		this.displayPane = displayPane;
+		this.changeListener = changeListener;
+		this.renderThread = new Thread(this, "Dwarf display renderer");
+		this.renderThread.setDaemon(true);
+		this.renderThread.start();
+	}
+
+	/**
+	 * Copy the modified pages of the mesa display memory into the handover
+	 * buffer for the render thread (invoked in the mesa engine thread).
+	 *
+	 * @param mem the real memory of the mesa engine.
+	 * @param start the start offset (address) for the mesa display memory in {@code mem}.
+	 * @param count length of the mesa display memory in {@code mem}.
+	 * @param pageFlags the virtual page map of the mesa engine.
+	 * @param firstPage index of the first entry in {@code pageFlags} for the display memory.
+	 * @param colorTable mapping of pixel values to color values.
+	 * @param colorGeneration the generation of the color table, the color table being
+	 *   handed over only if the generation differs from the last one handed over.
+	 */
+	public void handOver(short[] mem, int start, int count, short[] pageFlags, int firstPage, int[] colorTable, int colorGeneration) {
+		int pageCount = (count + PrincOpsDefs.WORDS_PER_PAGE - 1) / PrincOpsDefs.WORDS_PER_PAGE;
+		int end = Math.min(start + count, mem.length);
+
+		synchronized(this.lock) {
+			boolean colorsChanged = !this.colorsHandedOver || colorGeneration != this.handedColorGeneration;
+
+			if (this.pendingFlags.length != pageCount) {
+				this.pendingWords = new short[pageCount * PrincOpsDefs.WORDS_PER_PAGE];
+				this.pendingFlags = new short[pageCount];
+			}
+
+			boolean copied = false;
+			int memIdx = start;
+			int bufIdx = 0;
+			for (int page = 0; page < pageCount; page++) {
+				if ((pageFlags[firstPage + page] & PrincOpsDefs.MAPFLAGS_DIRTY) != 0 && memIdx < end) {
+					System.arraycopy(mem, memIdx, this.pendingWords, bufIdx, Math.min(PrincOpsDefs.WORDS_PER_PAGE, end - memIdx));
+					this.pendingFlags[page] = PrincOpsDefs.MAPFLAGS_DIRTY;
+					copied = true;
+				}
+				memIdx += PrincOpsDefs.WORDS_PER_PAGE;
+				bufIdx += PrincOpsDefs.WORDS_PER_PAGE;
+			}
+			if (!copied && !colorsChanged) { return; }
+
+			if (colorsChanged) {
+				if (this.pendingColors.length != colorTable.length) {
+					this.pendingColors = new int[colorTable.length];
+				}
+				System.arraycopy(colorTable, 0, this.pendingColors, 0, colorTable.length);
+				this.pendingColorsChanged = true;
+				this.colorsHandedOver = true;
+				this.handedColorGeneration = colorGeneration;
+			}
+
+			this.pendingPages = true;
+			this.lock.notify();
+		}
+	}
+
+	// swap the handover buffer with the render buffer when modified pages are available
+	private void takeOver() throws InterruptedException {
+		synchronized(this.lock) {
+			while (!this.pendingPages) {
+				this.lock.wait();
+			}
+
+			short[] words = this.renderWords;
+			short[] flags = this.renderFlags;
+
+			this.renderWords = this.pendingWords;
+			this.renderFlags = this.pendingFlags;
+
+			this.pendingWords = (words.length == this.renderWords.length) ? words : new short[this.renderWords.length];
+			this.pendingFlags = (flags.length == this.renderFlags.length) ? flags : new short[this.renderFlags.length];
+			this.pendingPages = false;
+
+			// the color table stays in the handover buffer, as it is only copied there when changed
+			if (this.pendingColorsChanged) {
+				if (this.renderColors.length != this.pendingColors.length) {
+					this.renderColors = new int[this.pendingColors.length];
+				}
+				System.arraycopy(this.pendingColors, 0, this.renderColors, 0, this.pendingColors.length);
+				this.renderColorsChanged = true;
+				this.pendingColorsChanged = false;
+			}
+		}
+	}
+
+	@Override
+	public void run() {
+		try {
+			while(true) {
+				this.takeOver();
+				Rectangle changed = null;
+				if (this.renderColorsChanged) {
+					changed = this.displayPane.setColorTable(this.renderColors);
+					this.renderColorsChanged = false;
+				}
+				Rectangle copied = this.displayPane.copyDisplayContent(
+						this.renderWords, 0, this.renderWords.length,
+						this.renderFlags, 0);
+				if (copied != null) {
+					changed = (changed != null) ? changed.union(copied) : copied;
+				}
+				for (int i = 0; i < this.renderFlags.length; i++) {
+					this.renderFlags[i] = PrincOpsDefs.MAPFLAGS_CLEAR;
+				}
+				if (changed != null) {
+					this.changeListener.accept(changed);
+				}
+			}
+		} catch (InterruptedException e) {
+			// render thread stopped
+		}
+	}
+
+}
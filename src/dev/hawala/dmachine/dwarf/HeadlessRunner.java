@@ -0,0 +1,175 @@
+/*
+Copyright (c) 2026, the Dwarf contributors
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+    * Redistributions of source code must retain the above copyright
+      notice, this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * The name of the author may not be used to endorse or promote products
+      derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package dev.hawala.dmachine.dwarf;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import dev.hawala.dmachine.engine.Cpu;
+import dev.hawala.dmachine.engine.FlightRecorder;
+import dev.hawala.dmachine.engine.Processes;
+import dev.hawala.dmachine.engine.Trace;
+import dev.hawala.dmachine.engine.iUiDataConsumer;
+
+/**
+ * Headless operation of a Dwarf mesa machine (Duchess or Draco): the mesa
+ * engine runs in the current thread without Swing ui, the display being
+ * served to VNC clients by a {@link RfbServer}.
+ * <p>
+ * Without a stop button, the engine runs until it halts by itself or the
+ * Java VM is terminated (e.g. with Ctrl-C or SIGTERM), in which case a
+ * shutdown hook stops the engine gracefully, so the changes to the harddisk
+ * and the floppy are saved by shutting down the devices.
+ * </p>
+ * <p>
+ * The diagnostic options work as with the Swing ui, but without the
+ * toolbar controls: the session recording is fed by the display
+ * transfers to the rfb server, the trace buffer is dumped to the console
+ * when the engine stops and the flight recorder is saved on errors and
+ * when the engine stops.
+ * </p>
+ *
+ * @author the Dwarf contributors (2026)
+ */
+public class HeadlessRunner {
+	
+	// max. time for the engine to stop when the Java VM is terminated
+	private static final long STOP_TIMEOUT = 30000; // 30 seconds
+	
+	/**
+	 * Inserting a virtual floppy into the drive of the mesa machine.
+	 */
+	@FunctionalInterface
+	public interface FloppyInserter {
+		boolean insertFloppy(File f, boolean readonly) throws IOException;
+	}
+	
+	private static final Object lock = new Object();
+	private static boolean engineIsRunning = false;
+	
+	/**
+	 * Run the mesa engine in the current thread until it stops, then shut down
+	 * the devices and terminate the Java VM.
+	 * 
+	 * @param desktopName the name of the desktop sent to the VNC clients.
+	 * @param uiDataConsumer the data consumer object provided by the mesa engine.
+	 * @param displayWidth the pixel width of the mesa display.
+	 * @param displayHeight the pixel height of the mesa display.
+	 * @param colorDisplay is the mesa display a 8-bit color display?
+	 * @param keyMapper the keyboard mapping to use for key events from clients.
+	 * @param rfbAddress the local address for the rfb server to listen on.
+	 * @param rfbPort the tcp port for the rfb server to listen on.
+	 * @param sessionRecorder the recorder for the display content or {@code null}.
+	 * @param initialFloppy the virtual floppy to insert initially or {@code null}.
+	 * @param floppyInserter the machine specific floppy insertion.
+	 * @param deviceShutdown the machine specific device shutdown, getting the target for error messages.
+	 */
+	public static void run(
+			String desktopName,
+			iUiDataConsumer uiDataConsumer,
+			int displayWidth,
+			int displayHeight,
+			boolean colorDisplay,
+			KeyboardMapper keyMapper,
+			String rfbAddress,
+			int rfbPort,
+			SessionRecorder sessionRecorder,
+			String initialFloppy,
+			FloppyInserter floppyInserter,
+			Consumer<StringBuilder> deviceShutdown) {
+		RfbServer rfbServer = new RfbServer(desktopName, uiDataConsumer, displayWidth, displayHeight, colorDisplay, keyMapper);
+		rfbServer.setSessionRecorder(sessionRecorder);
+		try {
+			rfbServer.start(rfbAddress, rfbPort);
+		} catch (IOException e) {
+			System.err.printf("Error: unable to start rfb server on %s:%d: %s\n", rfbAddress, rfbPort, e.getMessage());
+			if (sessionRecorder != null) { sessionRecorder.close(); }
+			return;
+		}
+		
+		if (initialFloppy != null && initialFloppy.length() > 0) {
+			try {
+				floppyInserter.insertFloppy(new File(initialFloppy), false);
+			} catch (Exception e) {
+				System.out.printf("Warning: invalid initial floppy: %s\n", e.getMessage());
+			}
+		}
+		
+		// stop the mesa engine gracefully if the Java VM is terminated from outside
+		Runtime.getRuntime().addShutdownHook(new Thread(HeadlessRunner::stopEngine, "HeadlessRunner-shutdown"));
+		
+		// there is no start button, so run the mesa engine until it halts by itself or by external request
+		synchronized(lock) {
+			engineIsRunning = true;
+		}
+		String finalMessage = Cpu.processor();
+		System.out.printf("\n***\n*** processor exited: %s\n***\n", finalMessage);
+		
+		// save the diagnostic data as there are no toolbar buttons for it
+		if (!Trace.getEnabled().isEmpty()) {
+			Trace.dump(System.out);
+		}
+		FlightRecorder.saveIfActive("stopped");
+		
+		// shutdown the devices, mainly saving changes to the harddisk and a possibly mounted virtual floppy
+		StringBuilder errMsgTarget = new StringBuilder();
+		deviceShutdown.accept(errMsgTarget);
+		if (errMsgTarget.length() > 0) {
+			System.out.printf("\n***\n*** Error(s) shutting down mesa engine devices: %s\n***\n", errMsgTarget.toString());
+		}
+		if (sessionRecorder != null) { sessionRecorder.close(); }
+		synchronized(lock) {
+			engineIsRunning = false;
+			lock.notifyAll();
+		}
+		System.exit(0);
+	}
+	
+	// shutdown hook: request the engine to stop and wait until the devices are shut down
+	private static void stopEngine() {
+		synchronized(lock) {
+			if (!engineIsRunning) { return; }
+			System.out.printf("\n***\n*** terminating: stopping mesa engine\n***\n");
+			Processes.requestMesaEngineStop();
+			long limit = System.currentTimeMillis() + STOP_TIMEOUT;
+			long remaining = STOP_TIMEOUT;
+			while(engineIsRunning && remaining > 0) {
+				try {
+					lock.wait(remaining);
+				} catch (InterruptedException e) {
+					return;
+				}
+				remaining = limit - System.currentTimeMillis();
+			}
+			if (engineIsRunning) {
+				System.out.printf("Warning: mesa engine did not stop within %d seconds, changes may be lost\n", STOP_TIMEOUT / 1000);
+			}
+		}
+	}
+	
+}
@@ -34,7 +34,6 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
-import dev.hawala.dmachine.engine.Config;
 import dev.hawala.dmachine.engine.eLevelVKey;
 import dev.hawala.dmachine.engine.iUiDataConsumer;
 
@@ -102,12 +101,6 @@ public class KeyboardMapper {
 	 */
 	public void pressed(int key) {
 		
-		if (Config.LOG_BITBLT_INSNS && key == 0x000070) {
-			// special case F1 for development: enable logging of BITBLT/COLORBLT instructions
-			Config.dynLogBitblts = true;
-			return;
-		}
-		
 		// when Ctrl goes down: simply remember it, this will influence the next keystrokes  
 		if (key == CTL_KEY) {
 			this.isCtlPressed = true;
@@ -144,12 +137,6 @@ public class KeyboardMapper {
 	 */
 	public void released(int key) {
 		
-		if (key == 0x000070) {
-			// special case F1 for development: disable logging of BITBLT/COLORBLT instructions
-			Config.dynLogBitblts = false;
-			return;
-		}
-
 		// if Ctrl goes up: let all Xerox special keys go up
 		if (key == CTL_KEY) {			
 			// release all keys pressed on the mesa side while the Ctrl key was down
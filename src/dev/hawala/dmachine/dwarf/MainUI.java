@@ -41,14 +41,19 @@ import java.awt.event.WindowEvent;
 
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JPopupMenu;
 import javax.swing.JScrollPane;
 import javax.swing.JToolBar;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
 
+import dev.hawala.dmachine.engine.Processes;
+import dev.hawala.dmachine.engine.Trace;
+
 /**
  * Main UI frame for a Dwarf machine.
  * 
@@ -98,14 +103,30 @@ public class MainUI {
 	 * @param runInFullscreen let it be a fullscreen application?
 	 */
 	public MainUI(String emulatorName, String title, int displayWidth, int displayHeight, boolean resizable, boolean colorDisplay, boolean runInFullscreen) {
+		this(emulatorName, title, displayWidth, displayHeight, resizable, colorDisplay, runInFullscreen, 1.0);
+	}
+
+	/**
+	 * Create the application with a zoomed display.
+	 * 
+	 * @param emulatorName the name of the emulator running in the UI
+	 * @param title the title text for the window
+	 * @param displayWidth the pixel width of the mesa display
+	 * @param displayHeight the pixel height of the mesa display
+	 * @param resizable should the top level window be resizable?
+	 * @param colorDisplay is this a color (8-bit color lookup table) display machine?
+	 * @param runInFullscreen let it be a fullscreen application?
+	 * @param zoom the zoom factor for presenting the mesa display
+	 */
+	public MainUI(String emulatorName, String title, int displayWidth, int displayHeight, boolean resizable, boolean colorDisplay, boolean runInFullscreen, double zoom) {
 		this.title = title;
 		this.displayWidth = displayWidth;
 		this.displayHeight = displayHeight;
-		initialize(emulatorName, resizable, colorDisplay, runInFullscreen);
+		initialize(emulatorName, resizable, colorDisplay, runInFullscreen, zoom);
 	}
 
 	// Initialize the contents of the frame.
-	private void initialize(String emulatorName, boolean resizable, boolean colorDisplay, boolean runInFullscreen) {
+	private void initialize(String emulatorName, boolean resizable, boolean colorDisplay, boolean runInFullscreen, double zoom) {
 		this.frmDwarfMesaEngine = new JFrame();
 		this.frmDwarfMesaEngine.setTitle(emulatorName + " Mesa Engine - " + this.title);
 		this.frmDwarfMesaEngine.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
@@ -166,10 +187,8 @@ public class MainUI {
 				? new Display8BitColorPane(this.displayWidth, this.displayHeight)
 				: new DisplayMonochromePane(this.displayWidth, this.displayHeight);
 		this.displayPanel.setBackground(Color.WHITE);
-		Dimension dims = new Dimension(this.displayWidth, this.displayHeight);
-		this.displayPanel.setMinimumSize(dims);
-		this.displayPanel.setMaximumSize(dims);
-		this.displayPanel.setPreferredSize(dims);
+		this.displayPanel.setZoom(zoom, this.displayWidth, this.displayHeight);
+		Dimension dims = this.displayPanel.getPreferredSize();
 		if (isFullScreen) {
 			// Create the parent panel with a black background
 			JPanel bezelPanel = new JPanel();
@@ -316,6 +335,52 @@ public class MainUI {
 		this.btnEjectFloppy.addActionListener(action);
 	}
 	
+	/**
+	 * Add the controls for switching the tracing of each trace category
+	 * (a menu with a checkbox per category) and for dumping the trace buffer
+	 * to the console to the toolbar.
+	 */
+	public void addTraceControls() {
+		this.toolBar.add(new JLabel("   "));
+		
+		JPopupMenu categoriesMenu = new JPopupMenu();
+		for (Trace.Category category : Trace.Category.values()) {
+			JCheckBoxMenuItem item = new JCheckBoxMenuItem(category.name());
+			item.addActionListener(e -> Trace.setEnabled(category, item.isSelected()));
+			categoriesMenu.add(item);
+		}
+		
+		JButton btnTrace = new JButton("Trace");
+		btnTrace.setToolTipText("switch tracing per category");
+		btnTrace.addActionListener(e -> {
+			// the categories may have been switched elsewhere (e.g. by the -trace: option)
+			for (int i = 0; i < categoriesMenu.getComponentCount(); i++) {
+				JCheckBoxMenuItem item = (JCheckBoxMenuItem)categoriesMenu.getComponent(i);
+				item.setSelected(Trace.isEnabled(Trace.Category.valueOf(item.getText())));
+			}
+			categoriesMenu.show(btnTrace, 0, btnTrace.getHeight());
+		});
+		this.toolBar.add(btnTrace);
+		
+		JButton btnDump = new JButton("Dump");
+		btnDump.setToolTipText("write the trace buffer to the console and clear it");
+		btnDump.addActionListener(e -> Processes.requestTraceDump());
+		this.toolBar.add(btnDump);
+	}
+
+	/**
+	 * Add the button for saving the instructions in the flight recorder
+	 * to a file to the toolbar.
+	 */
+	public void addFlightRecorderControls() {
+		this.toolBar.add(new JLabel("   "));
+
+		JButton btnSave = new JButton("Flight record");
+		btnSave.setToolTipText("save the last instructions executed to a flight record file");
+		btnSave.addActionListener(e -> Processes.requestFlightRecorderSave());
+		this.toolBar.add(btnSave);
+	}
+	
 	/**
 	 * Get the state of the (floppy) 'R/O' checkbox.
 	 * @return checked {@code true} if the 'R/O' checkbox is checked.
@@ -74,8 +74,9 @@ public class MouseHandler implements MouseListener, MouseMotionListener {
 			this.mainWindow.getDisplayPane().grabFocus();
 		}
 
-		int newX = Math.min(Math.max(0, ev.getX()), this.maxX);
-		int newY = Math.min(Math.max(0, ev.getY()), this.maxY);
+		DisplayPane pane = this.mainWindow.getDisplayPane();
+		int newX = Math.min(Math.max(0, pane.toDisplayCoordinate(ev.getX())), this.maxX);
+		int newY = Math.min(Math.max(0, pane.toDisplayCoordinate(ev.getY())), this.maxY);
 		
 		if (this.lastX != newX || this.lastY != newY) {
 			this.lastX = newX;
@@ -85,6 +85,22 @@ public class PropertiesExt extends Properties {
 		return this.getInt(name, 0);
 	}
 	
+	/**
+	 * Read a floating point property with a default value.
+	 * @param name the name of the property to read
+	 * @param defValue the default value to return if the property
+	 *   is not configured of the value cannot be converted to a number
+	 * @return the floating point value
+	 */
+	public double getDouble(String name, double defValue) {
+		if (!this.containsKey(name)) { return defValue; }
+		try {
+			return Double.parseDouble(this.getProperty(name));
+		} catch (NumberFormatException exc) {
+			return defValue;
+		}
+	}
+	
 	/**
 	 * Read a boolean property with a default value.
 	 * @param name the name of the property to read
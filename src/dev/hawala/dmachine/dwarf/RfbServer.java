@@ -0,0 +1,406 @@
+/*
+Copyright (c) 2026, the Dwarf contributors
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+    * Redistributions of source code must retain the above copyright
+      notice, this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * The name of the author may not be used to endorse or promote products
+      derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package dev.hawala.dmachine.dwarf;
+
+import java.awt.Rectangle;
+import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import dev.hawala.dmachine.engine.iMesaMachineDataAccessor;
+import dev.hawala.dmachine.engine.iUiDataConsumer;
+import dev.hawala.dmachine.engine.iUiDataConsumer.PointerBitmapAcceptor;
+
+/**
+ * Headless replacement for the Dwarf Swing UI, serving the mesa display
+ * to VNC clients through the RFB protocol.
+ * <p>
+ * The server registers itself with the mesa engine like the {@link UiRefresher}
+ * does for the Swing UI: the display content is rendered by a {@link DisplayRenderer}
+ * into a display pane used as backing store only (the pane is never shown),
+ * and the regions changed in the backing store are passed to the connected
+ * clients, which send only these regions (see {@link RfbSession}). As long as no
+ * client is connected, the display memory is not transferred at all.
+ * </p>
+ * <p>
+ * Keyboard events of the clients (X11 keysyms) are translated to the Java
+ * key codes for a US keyboard layout and passed through the {@link KeyboardMapper},
+ * so the keyboard map file of the configuration applies as for the Swing UI.
+ * Pointer events are passed as mouse position and mouse keys to the mesa engine.
+ * The mouse cursor shape set by the mesa engine is sent to clients supporting
+ * the cursor pseudo-encoding.
+ * </p>
+ * <p>
+ * The server does not implement any authentication, so it should only be
+ * bound to a local address and accessed through a secure tunnel.
+ * </p>
+ *
+ * @author the Dwarf contributors (2026)
+ */
+public class RfbServer implements iMesaMachineDataAccessor, PointerBitmapAcceptor {
+
+	// the mesa engine
+	private final iUiDataConsumer mesaEngine;
+
+	// the backing store for the mesa display and the render pipeline filling it
+	private final DisplayPane displayPane;
+	private final DisplayRenderer displayRenderer;
+	private final int displayWidth;
+	private final int displayHeight;
+
+	// color tables
+	private final int[] defaultColorTable = { 0x00FFFFFF, 0x00000000 };
+	private final Supplier<int[]> colorTableSupplier;
+
+	// keyboard mapping for keysyms translated to Java key codes
+	private final KeyboardMapper keyMapper;
+
+	// the desktop name sent to clients
+	private final String desktopName;
+
+	// the connected clients
+	private final List<RfbSession> sessions = new ArrayList<>();
+	private volatile boolean hasSessions = false;
+
+	// the optional recorder for the display content
+	private volatile SessionRecorder sessionRecorder = null;
+
+	// the current mouse cursor shape
+	private short[] cursorBitmap = new short[16];
+	private int cursorHotspotX = 0;
+	private int cursorHotspotY = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param desktopName the name of the desktop sent to the clients.
+	 * @param consumer the data consumer object provided by the mesa engine.
+	 * @param displayWidth the pixel width of the mesa display.
+	 * @param displayHeight the pixel height of the mesa display.
+	 * @param colorDisplay is the mesa display a 8-bit color display?
+	 * @param keyMapper the keyboard mapping to use for key events from clients.
+	 */
+	public RfbServer(String desktopName, iUiDataConsumer consumer, int displayWidth, int displayHeight, boolean colorDisplay, KeyboardMapper keyMapper) {
+		this.desktopName = desktopName;
+		this.mesaEngine = consumer;
+		this.displayWidth = displayWidth;
+		this.displayHeight = displayHeight;
+		this.keyMapper = keyMapper;
+
+		this.displayPane = (colorDisplay)
+				? new Display8BitColorPane(displayWidth, displayHeight)
+				: new DisplayMonochromePane(displayWidth, displayHeight);
+		this.displayRenderer = new DisplayRenderer(this.displayPane, this::displayChanged);
+
+		// register with the mesa engine
+		this.mesaEngine.registerPointerBitmapAcceptor(this);
+		Supplier<int[]> cltSupplier = this.mesaEngine.registerUiDataRefresher(this);
+		this.colorTableSupplier = (cltSupplier != null)
+				? cltSupplier
+				: () -> defaultColorTable ;
+	}
+
+	/**
+	 * Start accepting client connections in a background thread.
+	 *
+	 * @param bindAddress the local address to listen on.
+	 * @param port the tcp port to listen on.
+	 * @throws IOException if the server socket cannot be opened.
+	 */
+	public void start(String bindAddress, int port) throws IOException {
+		ServerSocket serverSocket = new ServerSocket();
+		serverSocket.setReuseAddress(true);
+		serverSocket.bind(new InetSocketAddress(InetAddress.getByName(bindAddress), port));
+		System.out.printf("RFB server listening on %s:%d\n", bindAddress, port);
+
+		Thread acceptor = new Thread(() -> {
+			while(true) {
+				try {
+					Socket socket = serverSocket.accept();
+					RfbSession session = new RfbSession(this, socket);
+					session.start();
+				} catch (IOException e) {
+					System.out.printf("RFB server: error accepting connection: %s\n", e.getMessage());
+				}
+			}
+		}, "Dwarf RFB acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	/*
+	 * services for the client sessions
+	 */
+
+	/**
+	 * Set the recorder getting the display changes at each display transfer
+	 * by the mesa engine.
+	 *
+	 * @param recorder the session recorder or {@code null} to stop passing
+	 *   display changes to the current recorder.
+	 */
+	public void setSessionRecorder(SessionRecorder recorder) {
+		this.sessionRecorder = recorder;
+	}
+
+	String getDesktopName() { return this.desktopName; }
+
+	int getDisplayWidth() { return this.displayWidth; }
+
+	int getDisplayHeight() { return this.displayHeight; }
+
+	BufferedImage getBackingStore() { return this.displayPane.getBufferedImage(); }
+
+	void addSession(RfbSession session) {
+		synchronized(this.sessions) {
+			this.sessions.add(session);
+			this.hasSessions = true;
+		}
+	}
+
+	void removeSession(RfbSession session) {
+		synchronized(this.sessions) {
+			this.sessions.remove(session);
+			this.hasSessions = !this.sessions.isEmpty();
+		}
+		synchronized(this.keyMapper) {
+			this.mesaEngine.resetKeys();
+		}
+	}
+
+	synchronized void sendCursorTo(RfbSession session) {
+		session.setCursor(this.cursorBitmap, this.cursorHotspotX, this.cursorHotspotY);
+	}
+
+	void handleKey(int keysym, boolean down) {
+		int javaKey = toJavaKeyCode(keysym);
+		if (javaKey < 0) { return; }
+		synchronized(this.keyMapper) {
+			if (down) {
+				this.keyMapper.pressed(javaKey);
+			} else {
+				this.keyMapper.released(javaKey);
+			}
+		}
+	}
+
+	void handlePointer(int x, int y, int buttonsPressed, int buttonsReleased) {
+		synchronized(this.keyMapper) {
+			this.mesaEngine.acceptMousePosition(
+					Math.max(0, Math.min(x, this.displayWidth - 1)),
+					Math.max(0, Math.min(y, this.displayHeight - 1)));
+			for (int button = 0; button < 3; button++) {
+				int bit = 1 << button;
+				if ((buttonsPressed & bit) != 0) { this.mesaEngine.acceptMouseKey(button + 1, true); }
+				if ((buttonsReleased & bit) != 0) { this.mesaEngine.acceptMouseKey(button + 1, false); }
+			}
+		}
+	}
+
+	// invoked by the render thread with the region changed in the backing store
+	private void displayChanged(Rectangle region) {
+		synchronized(this.sessions) {
+			for (RfbSession session : this.sessions) {
+				session.addDirtyRegion(region);
+			}
+		}
+	}
+
+	/*
+	 * callbacks from the mesa engine
+	 */
+
+	@Override
+	public boolean isDisplayPresented() {
+		return this.hasSessions || this.sessionRecorder != null;
+	}
+
+	@Override
+	public void accessRealMemory(short[] realMemory, int memOffset, int memWords, short[] pageFlags, int firstPage) {
+		int[] colorTable = this.colorTableSupplier.get();
+		int colorGeneration = this.mesaEngine.getColorTableGeneration();
+
+		SessionRecorder recorder = this.sessionRecorder;
+		if (recorder != null) {
+			recorder.record(realMemory, memOffset, memWords, pageFlags, firstPage, colorTable, colorGeneration);
+		}
+
+		if (this.hasSessions) {
+			this.displayRenderer.handOver(
+					realMemory,	memOffset, memWords,
+					pageFlags,	firstPage,
+					colorTable,	colorGeneration);
+		}
+	}
+
+	@Override
+	public void acceptMP(int mp) {
+		System.out.printf("\nMPCODE: %04d \n", mp);
+	}
+
+	@Override
+	public void acceptStatistics(
+			long counterInstructions,
+			int counterDiskReads,
+			int counterDiskWrites,
+			int counterFloppyReads,
+			int counterFloppyWrites,
+			int counterNetworkPacketsReceived,
+			int counterNetworkPacketsSent) {
+		// no status line in headless mode
+	}
+
+	@Override
+	public void setPointerBitmap(short[] bitmap, int hotspotX, int hotspotY) {
+		synchronized(this) {
+			this.cursorBitmap = bitmap;
+			this.cursorHotspotX = hotspotX;
+			this.cursorHotspotY = hotspotY;
+		}
+		synchronized(this.sessions) {
+			for (RfbSession session : this.sessions) {
+				session.setCursor(bitmap, hotspotX, hotspotY);
+			}
+		}
+	}
+
+	/*
+	 * translation of X11 keysyms (as used by RFB) to Java extended key codes
+	 */
+
+	private static final Map<Integer,Integer> specialKeysyms = new HashMap<>();
+	private static final String shiftedChars   = "!@#$%^&*()_+{}|:\"<>?~";
+	private static final String unshiftedChars = "1234567890-=[]\\;',./`";
+
+	private static void mapKeysym(int keysym, int javaKey) {
+		specialKeysyms.put(keysym, javaKey);
+	}
+
+	static {
+		mapKeysym(0xFF08, KeyEvent.VK_BACK_SPACE);
+		mapKeysym(0xFF09, KeyEvent.VK_TAB);
+		mapKeysym(0xFF0D, KeyEvent.VK_ENTER);
+		mapKeysym(0xFF13, KeyEvent.VK_PAUSE);
+		mapKeysym(0xFF14, KeyEvent.VK_SCROLL_LOCK);
+		mapKeysym(0xFF1B, KeyEvent.VK_ESCAPE);
+		mapKeysym(0xFF50, KeyEvent.VK_HOME);
+		mapKeysym(0xFF51, KeyEvent.VK_LEFT);
+		mapKeysym(0xFF52, KeyEvent.VK_UP);
+		mapKeysym(0xFF53, KeyEvent.VK_RIGHT);
+		mapKeysym(0xFF54, KeyEvent.VK_DOWN);
+		mapKeysym(0xFF55, KeyEvent.VK_PAGE_UP);
+		mapKeysym(0xFF56, KeyEvent.VK_PAGE_DOWN);
+		mapKeysym(0xFF57, KeyEvent.VK_END);
+		mapKeysym(0xFF61, KeyEvent.VK_PRINTSCREEN);
+		mapKeysym(0xFF63, KeyEvent.VK_INSERT);
+		mapKeysym(0xFF67, KeyEvent.VK_CONTEXT_MENU);
+		mapKeysym(0xFF7F, KeyEvent.VK_NUM_LOCK);
+		mapKeysym(0xFF8D, KeyEvent.VK_ENTER); // KP_Enter
+		mapKeysym(0xFF95, KeyEvent.VK_HOME); // KP_Home
+		mapKeysym(0xFF96, KeyEvent.VK_KP_LEFT);
+		mapKeysym(0xFF97, KeyEvent.VK_KP_UP);
+		mapKeysym(0xFF98, KeyEvent.VK_KP_RIGHT);
+		mapKeysym(0xFF99, KeyEvent.VK_KP_DOWN);
+		mapKeysym(0xFF9A, KeyEvent.VK_PAGE_UP); // KP_Page_Up
+		mapKeysym(0xFF9B, KeyEvent.VK_PAGE_DOWN); // KP_Page_Down
+		mapKeysym(0xFF9C, KeyEvent.VK_END); // KP_End
+		mapKeysym(0xFF9E, KeyEvent.VK_INSERT); // KP_Insert
+		mapKeysym(0xFF9F, KeyEvent.VK_DELETE); // KP_Delete
+		mapKeysym(0xFFAA, KeyEvent.VK_MULTIPLY);
+		mapKeysym(0xFFAB, KeyEvent.VK_ADD);
+		mapKeysym(0xFFAC, KeyEvent.VK_SEPARATOR);
+		mapKeysym(0xFFAD, KeyEvent.VK_SUBTRACT);
+		mapKeysym(0xFFAE, KeyEvent.VK_DECIMAL);
+		mapKeysym(0xFFAF, KeyEvent.VK_DIVIDE);
+		for (int i = 0; i < 10; i++) {
+			mapKeysym(0xFFB0 + i, KeyEvent.VK_NUMPAD0 + i);
+		}
+		for (int i = 0; i < 12; i++) {
+			mapKeysym(0xFFBE + i, KeyEvent.VK_F1 + i);
+		}
+		for (int i = 0; i < 12; i++) {
+			mapKeysym(0xFFCA + i, KeyEvent.VK_F13 + i);
+		}
+		mapKeysym(0xFFE1, KeyEvent.VK_SHIFT);
+		mapKeysym(0xFFE2, KeyEvent.VK_SHIFT);
+		mapKeysym(0xFFE3, KeyEvent.VK_CONTROL);
+		mapKeysym(0xFFE4, KeyEvent.VK_CONTROL);
+		mapKeysym(0xFFE5, KeyEvent.VK_CAPS_LOCK);
+		mapKeysym(0xFFE7, KeyEvent.VK_META);
+		mapKeysym(0xFFE8, KeyEvent.VK_META);
+		mapKeysym(0xFFE9, KeyEvent.VK_ALT);
+		mapKeysym(0xFFEA, KeyEvent.VK_ALT);
+		mapKeysym(0xFFEB, KeyEvent.VK_WINDOWS);
+		mapKeysym(0xFFEC, KeyEvent.VK_WINDOWS);
+		mapKeysym(0xFE03, KeyEvent.VK_ALT_GRAPH); // ISO_Level3_Shift
+		mapKeysym(0xFE50, KeyEvent.VK_DEAD_GRAVE);
+		mapKeysym(0xFE51, KeyEvent.VK_DEAD_ACUTE);
+		mapKeysym(0xFE52, KeyEvent.VK_DEAD_CIRCUMFLEX);
+		mapKeysym(0xFFFF, KeyEvent.VK_DELETE);
+	}
+
+	/**
+	 * Translate a X11 keysym to the Java extended key code of the key
+	 * producing it on a US keyboard.
+	 *
+	 * @param keysym the keysym to translate.
+	 * @return the Java extended key code or {@code -1} if the keysym
+	 *   has no Java key code.
+	 */
+	static int toJavaKeyCode(int keysym) {
+		if (keysym >= 'a' && keysym <= 'z') {
+			return keysym - 'a' + KeyEvent.VK_A;
+		}
+		if (keysym >= 0x20 && keysym <= 0x7E) {
+			int shifted = shiftedChars.indexOf(keysym);
+			char c = (shifted >= 0) ? unshiftedChars.charAt(shifted) : (char)keysym;
+			switch(c) {
+			case '\'': return KeyEvent.VK_QUOTE;
+			case '`': return KeyEvent.VK_BACK_QUOTE;
+			default: return c; // the Java key codes for the remaining keys are the ascii codes
+			}
+		}
+		if (keysym >= 0xA0 && keysym <= 0xFF) {
+			return 0x01000000 + Character.toUpperCase(keysym);
+		}
+		if (keysym >= 0x01000100 && keysym <= 0x0110FFFF) {
+			return 0x01000000 + Character.toUpperCase(keysym & 0x00FFFFFF);
+		}
+		Integer javaKey = specialKeysyms.get(keysym);
+		return (javaKey != null) ? javaKey.intValue() : -1;
+	}
+
+}
@@ -0,0 +1,692 @@
+/*
+Copyright (c) 2026, the Dwarf contributors
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+    * Redistributions of source code must retain the above copyright
+      notice, this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * The name of the author may not be used to endorse or promote products
+      derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package dev.hawala.dmachine.dwarf;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Connection of a single VNC client to the {@link RfbServer}, implementing
+ * the server side of the RFB protocol (versions 3.3, 3.7 and 3.8, without
+ * authentication).
+ * <p>
+ * The session uses 2 threads: the reader thread handles the messages from
+ * the client (pixel format, encodings, update requests, key and pointer events),
+ * the sender thread waits for an update request of the client and for regions
+ * of the display changed since the last update and then sends these regions.
+ * </p>
+ * <p>
+ * The regions are sent with the first encoding of the client's preference list
+ * among ZRLE, RRE and Raw (the latter being the fallback also used if RRE is
+ * larger for a region), so a client only receives the changed parts of the
+ * display in the most compact form it understands. The mouse cursor shape is sent
+ * with the cursor pseudo-encoding if the client supports it.
+ * </p>
+ *
+ * @author the Dwarf contributors (2026)
+ */
+class RfbSession {
+
+	// encodings
+	private static final int ENC_RAW = 0;
+	private static final int ENC_RRE = 2;
+	private static final int ENC_ZRLE = 16;
+	private static final int ENC_CURSOR = -239;
+
+	// max. number of separate dirty regions kept before they are merged
+	private static final int MAX_DIRTY_REGIONS = 16;
+
+	// ZRLE tile size
+	private static final int TILE_SIZE = 64;
+
+	private final RfbServer server;
+	private final Socket socket;
+	private final DataInputStream in;
+	private final DataOutputStream out;
+	private final String clientName;
+
+	// the pixel format requested by the client, initially 32 bit true color
+	private volatile PixelFormat pixelFormat = new PixelFormat(32, 24, false, true, 255, 255, 255, 16, 8, 0);
+
+	// the encoding selected for the client and if the client accepts cursor shapes
+	private volatile int encoding = ENC_RAW;
+	private volatile boolean cursorShapes = false;
+
+	// the zlib stream for ZRLE, kept for the whole connection as required by the protocol
+	private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+
+	// update state, protected by 'lock'
+	private final Object lock = new Object();
+	private final List<Rectangle> dirtyRegions = new ArrayList<>();
+	private Rectangle requestedRegion = null;
+	private short[] pendingCursor = null;
+	private int pendingHotspotX;
+	private int pendingHotspotY;
+	private boolean closed = false;
+
+	// the last pointer button state of the client
+	private int lastButtons = 0;
+
+	RfbSession(RfbServer server, Socket socket) throws IOException {
+		this.server = server;
+		this.socket = socket;
+		this.socket.setTcpNoDelay(true);
+		this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+		this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 65536));
+		this.clientName = socket.getRemoteSocketAddress().toString();
+	}
+
+	/**
+	 * Start the threads handling the connection.
+	 */
+	void start() {
+		Thread reader = new Thread(this::readerLoop, "Dwarf RFB reader " + this.clientName);
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/**
+	 * Register a region of the display to be sent with the next update.
+	 *
+	 * @param region the changed region.
+	 */
+	void addDirtyRegion(Rectangle region) {
+		synchronized(this.lock) {
+			this.addDirty(region);
+			this.lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Register a new mouse cursor shape to be sent with the next update.
+	 */
+	void setCursor(short[] bitmap, int hotspotX, int hotspotY) {
+		synchronized(this.lock) {
+			this.pendingCursor = bitmap;
+			this.pendingHotspotX = hotspotX;
+			this.pendingHotspotY = hotspotY;
+			this.lock.notifyAll();
+		}
+	}
+
+	// add a dirty region, merging with overlapping regions resp. all regions if too many (lock must be held)
+	private void addDirty(Rectangle region) {
+		Rectangle r = new Rectangle(region);
+		for (int i = this.dirtyRegions.size() - 1; i >= 0; i--) {
+			Rectangle d = this.dirtyRegions.get(i);
+			if (d.intersects(r) || d.contains(r) || r.contains(d)) {
+				r = r.union(d);
+				this.dirtyRegions.remove(i);
+			}
+		}
+		this.dirtyRegions.add(r);
+		if (this.dirtyRegions.size() > MAX_DIRTY_REGIONS) {
+			Rectangle all = this.dirtyRegions.get(0);
+			for (Rectangle d : this.dirtyRegions) { all = all.union(d); }
+			this.dirtyRegions.clear();
+			this.dirtyRegions.add(all);
+		}
+	}
+
+	private void close() {
+		synchronized(this.lock) {
+			if (this.closed) { return; }
+			this.closed = true;
+			this.lock.notifyAll();
+		}
+		try { this.socket.close(); } catch (IOException e) { }
+		this.server.removeSession(this);
+		System.out.printf("RFB server: client %s disconnected\n", this.clientName);
+	}
+
+	/*
+	 * client messages
+	 */
+
+	private void readerLoop() {
+		try {
+			if (!this.handshake()) {
+				this.close();
+				return;
+			}
+			System.out.printf("RFB server: client %s connected\n", this.clientName);
+			this.server.addSession(this);
+			this.server.sendCursorTo(this);
+
+			Thread sender = new Thread(this::senderLoop, "Dwarf RFB sender " + this.clientName);
+			sender.setDaemon(true);
+			sender.start();
+
+			while(true) {
+				int msgType = this.in.readUnsignedByte();
+				switch(msgType) {
+				case 0: this.readSetPixelFormat(); break;
+				case 2: this.readSetEncodings(); break;
+				case 3: this.readUpdateRequest(); break;
+				case 4: this.readKeyEvent(); break;
+				case 5: this.readPointerEvent(); break;
+				case 6: this.readCutText(); break;
+				default:
+					System.out.printf("RFB server: unsupported message type %d from client %s\n", msgType, this.clientName);
+					this.close();
+					return;
+				}
+			}
+		} catch (IOException e) {
+			this.close();
+		}
+	}
+
+	// protocol version and security negotiation, client and server init
+	private boolean handshake() throws IOException {
+		this.out.write("RFB 003.008\n".getBytes(StandardCharsets.US_ASCII));
+		this.out.flush();
+
+		byte[] versionBytes = new byte[12];
+		this.in.readFully(versionBytes);
+		String version = new String(versionBytes, StandardCharsets.US_ASCII);
+		if (!version.startsWith("RFB 003.")) {
+			System.out.printf("RFB server: unsupported protocol version from client %s\n", this.clientName);
+			return false;
+		}
+		int minor = Integer.parseInt(version.substring(8, 11));
+		if (minor >= 7) {
+			// security types list with only 'None'
+			this.out.writeByte(1);
+			this.out.writeByte(1);
+			this.out.flush();
+			if (this.in.readUnsignedByte() != 1) { return false; }
+			if (minor >= 8) {
+				this.out.writeInt(0); // SecurityResult: OK
+			}
+		} else {
+			this.out.writeInt(1); // security type 'None'
+		}
+		this.out.flush();
+
+		this.in.readUnsignedByte(); // ClientInit: shared-flag (all clients share the display)
+
+		byte[] name = this.server.getDesktopName().getBytes(StandardCharsets.UTF_8);
+		this.out.writeShort(this.server.getDisplayWidth());
+		this.out.writeShort(this.server.getDisplayHeight());
+		this.pixelFormat.write(this.out);
+		this.out.writeInt(name.length);
+		this.out.write(name);
+		this.out.flush();
+		return true;
+	}
+
+	private void readSetPixelFormat() throws IOException {
+		this.in.skipBytes(3);
+		int bpp = this.in.readUnsignedByte();
+		int depth = this.in.readUnsignedByte();
+		boolean bigEndian = this.in.readUnsignedByte() != 0;
+		boolean trueColor = this.in.readUnsignedByte() != 0;
+		int redMax = this.in.readUnsignedShort();
+		int greenMax = this.in.readUnsignedShort();
+		int blueMax = this.in.readUnsignedShort();
+		int redShift = this.in.readUnsignedByte();
+		int greenShift = this.in.readUnsignedByte();
+		int blueShift = this.in.readUnsignedByte();
+		this.in.skipBytes(3);
+		if (!trueColor || (bpp != 8 && bpp != 16 && bpp != 32)) {
+			System.out.printf("RFB server: unsupported pixel format (bpp %d, true-color %s) requested by client %s, ignored\n",
+					bpp, trueColor, this.clientName);
+			return;
+		}
+		this.pixelFormat = new PixelFormat(bpp, depth, bigEndian, trueColor, redMax, greenMax, blueMax, redShift, greenShift, blueShift);
+	}
+
+	private void readSetEncodings() throws IOException {
+		this.in.skipBytes(1);
+		int count = this.in.readUnsignedShort();
+		int selected = -1;
+		boolean cursor = false;
+		for (int i = 0; i < count; i++) {
+			int enc = this.in.readInt();
+			if (selected < 0 && (enc == ENC_RAW || enc == ENC_RRE || enc == ENC_ZRLE)) {
+				selected = enc;
+			} else if (enc == ENC_CURSOR) {
+				cursor = true;
+			}
+		}
+		this.encoding = (selected < 0) ? ENC_RAW : selected;
+		this.cursorShapes = cursor;
+		if (cursor) {
+			this.server.sendCursorTo(this);
+		}
+	}
+
+	private void readUpdateRequest() throws IOException {
+		boolean incremental = this.in.readUnsignedByte() != 0;
+		int x = this.in.readUnsignedShort();
+		int y = this.in.readUnsignedShort();
+		int w = this.in.readUnsignedShort();
+		int h = this.in.readUnsignedShort();
+		Rectangle requested = new Rectangle(x, y, w, h).intersection(
+				new Rectangle(0, 0, this.server.getDisplayWidth(), this.server.getDisplayHeight()));
+		if (requested.isEmpty()) { return; }
+		synchronized(this.lock) {
+			this.requestedRegion = (this.requestedRegion == null) ? requested : this.requestedRegion.union(requested);
+			if (!incremental) {
+				this.addDirty(requested);
+			}
+			this.lock.notifyAll();
+		}
+	}
+
+	private void readKeyEvent() throws IOException {
+		boolean down = this.in.readUnsignedByte() != 0;
+		this.in.skipBytes(2);
+		int keysym = this.in.readInt();
+		this.server.handleKey(keysym, down);
+	}
+
+	private void readPointerEvent() throws IOException {
+		int buttons = this.in.readUnsignedByte();
+		int x = this.in.readUnsignedShort();
+		int y = this.in.readUnsignedShort();
+		int changed = buttons ^ this.lastButtons;
+		this.lastButtons = buttons;
+		this.server.handlePointer(x, y, changed & buttons, changed & ~buttons);
+	}
+
+	private void readCutText() throws IOException {
+		this.in.skipBytes(3);
+		int length = this.in.readInt();
+		this.in.skipBytes(length); // clipboard transfer to the mesa machine is not supported
+	}
+
+	/*
+	 * framebuffer updates
+	 */
+
+	private void senderLoop() {
+		try {
+			while(true) {
+				List<Rectangle> regions = new ArrayList<>();
+				short[] cursor = null;
+				int hotspotX;
+				int hotspotY;
+				synchronized(this.lock) {
+					while(!this.closed
+							&& (this.requestedRegion == null
+								|| (!this.hasRequestedDirty() && (this.pendingCursor == null || !this.cursorShapes)))) {
+						this.lock.wait();
+					}
+					if (this.closed) { return; }
+					List<Rectangle> unsent = new ArrayList<>();
+					for (Rectangle d : this.dirtyRegions) {
+						Rectangle r = d.intersection(this.requestedRegion);
+						if (r.isEmpty()) {
+							unsent.add(d);
+						} else {
+							regions.add(r);
+							addRemainder(d, r, unsent);
+						}
+					}
+					this.dirtyRegions.clear();
+					for (Rectangle u : unsent) { this.addDirty(u); } // keep the changes not requested for the next update
+					this.requestedRegion = null;
+					if (this.cursorShapes) {
+						cursor = this.pendingCursor;
+						this.pendingCursor = null;
+					}
+					hotspotX = this.pendingHotspotX;
+					hotspotY = this.pendingHotspotY;
+				}
+				this.sendUpdate(regions, cursor, hotspotX, hotspotY);
+			}
+		} catch (InterruptedException e) {
+			// session ended
+		} catch (IOException e) {
+			this.close();
+		}
+	}
+
+	// check if a dirty region intersects the requested region (lock must be held)
+	private boolean hasRequestedDirty() {
+		for (Rectangle d : this.dirtyRegions) {
+			if (d.intersects(this.requestedRegion)) { return true; }
+		}
+		return false;
+	}
+
+	// add the parts of region not covered by its contained part sent to target
+	// (at most 4 rectangles: the bands above and below sent, left and right of sent)
+	private static void addRemainder(Rectangle region, Rectangle sent, List<Rectangle> target) {
+		int top = sent.y - region.y;
+		int bottom = (region.y + region.height) - (sent.y + sent.height);
+		int left = sent.x - region.x;
+		int right = (region.x + region.width) - (sent.x + sent.width);
+		if (top > 0) { target.add(new Rectangle(region.x, region.y, region.width, top)); }
+		if (bottom > 0) { target.add(new Rectangle(region.x, sent.y + sent.height, region.width, bottom)); }
+		if (left > 0) { target.add(new Rectangle(region.x, sent.y, left, sent.height)); }
+		if (right > 0) { target.add(new Rectangle(sent.x + sent.width, sent.y, right, sent.height)); }
+	}
+
+	private void sendUpdate(List<Rectangle> regions, short[] cursor, int hotspotX, int hotspotY) throws IOException {
+		PixelFormat pf = this.pixelFormat;
+		int enc = this.encoding;
+		BufferedImage bi = this.server.getBackingStore();
+
+		this.out.writeByte(0); // FramebufferUpdate
+		this.out.writeByte(0);
+		this.out.writeShort(regions.size() + ((cursor != null) ? 1 : 0));
+		for (Rectangle r : regions) {
+			int[] rgb = readRegion(bi, r);
+			int[] pixels = new int[rgb.length];
+			for (int i = 0; i < rgb.length; i++) {
+				pixels[i] = pf.toPixel(rgb[i]);
+			}
+			if (enc == ENC_ZRLE) {
+				this.writeZrle(r, pixels, pf);
+			} else if (enc == ENC_RRE && this.writeRre(r, pixels, pf)) {
+				// sent as RRE
+			} else {
+				this.writeRaw(r, pixels, pf);
+			}
+		}
+		if (cursor != null) {
+			this.writeCursor(cursor, hotspotX, hotspotY, pf);
+		}
+		this.out.flush();
+	}
+
+	// get the 0x00rrggbb colors of a region of the backing store
+	private static int[] readRegion(BufferedImage bi, Rectangle r) {
+		if (!(bi.getColorModel() instanceof IndexColorModel)) {
+			return bi.getRGB(r.x, r.y, r.width, r.height, null, 0, r.width);
+		}
+		// BufferedImage.getRGB() does not support the ushort layout of the monochrome backing store 
+		IndexColorModel cm = (IndexColorModel)bi.getColorModel();
+		int[] pixels = bi.getRaster().getSamples(r.x, r.y, r.width, r.height, 0, (int[])null);
+		for (int i = 0; i < pixels.length; i++) {
+			pixels[i] = cm.getRGB(pixels[i]);
+		}
+		return pixels;
+	}
+
+	private void writeRectHeader(Rectangle r, int enc) throws IOException {
+		this.out.writeShort(r.x);
+		this.out.writeShort(r.y);
+		this.out.writeShort(r.width);
+		this.out.writeShort(r.height);
+		this.out.writeInt(enc);
+	}
+
+	private void writeRaw(Rectangle r, int[] pixels, PixelFormat pf) throws IOException {
+		this.writeRectHeader(r, ENC_RAW);
+		byte[] buf = new byte[pixels.length * pf.bytesPerPixel];
+		int pos = 0;
+		for (int p : pixels) {
+			pos = pf.putPixel(buf, pos, p);
+		}
+		this.out.write(buf);
+	}
+
+	// RRE with horizontal runs as subrectangles, returns false if raw would be smaller
+	private boolean writeRre(Rectangle r, int[] pixels, PixelFormat pf) throws IOException {
+		int bpp = pf.bytesPerPixel;
+		int maxSubrects = (pixels.length * bpp - bpp) / (bpp + 8);
+		int background = pixels[0];
+		ByteArrayOutputStream subrects = new ByteArrayOutputStream();
+		byte[] sub = new byte[bpp + 8];
+		int count = 0;
+		for (int y = 0; y < r.height; y++) {
+			int rowStart = y * r.width;
+			int x = 0;
+			while (x < r.width) {
+				int p = pixels[rowStart + x];
+				if (p == background) { x++; continue; }
+				int runStart = x;
+				while (x < r.width && pixels[rowStart + x] == p) { x++; }
+				if (++count > maxSubrects) { return false; }
+				int pos = pf.putPixel(sub, 0, p);
+				pos = putShort(sub, pos, runStart);
+				pos = putShort(sub, pos, y);
+				pos = putShort(sub, pos, x - runStart);
+				putShort(sub, pos, 1);
+				subrects.write(sub, 0, sub.length);
+			}
+		}
+		this.writeRectHeader(r, ENC_RRE);
+		this.out.writeInt(count);
+		byte[] bg = new byte[bpp];
+		pf.putPixel(bg, 0, background);
+		this.out.write(bg);
+		subrects.writeTo(this.out);
+		return true;
+	}
+
+	private static int putShort(byte[] buf, int pos, int value) {
+		buf[pos] = (byte)(value >>> 8);
+		buf[pos + 1] = (byte)value;
+		return pos + 2;
+	}
+
+	// ZRLE with solid, packed palette and raw tiles
+	private void writeZrle(Rectangle r, int[] pixels, PixelFormat pf) throws IOException {
+		ByteArrayOutputStream tiles = new ByteArrayOutputStream();
+		byte[] cpixel = new byte[4];
+		int[] palette = new int[16];
+		for (int ty = 0; ty < r.height; ty += TILE_SIZE) {
+			int th = Math.min(TILE_SIZE, r.height - ty);
+			for (int tx = 0; tx < r.width; tx += TILE_SIZE) {
+				int tw = Math.min(TILE_SIZE, r.width - tx);
+
+				// collect the palette of the tile (up to 16 colors)
+				int colors = 0;
+				scan:
+				for (int y = ty; y < ty + th; y++) {
+					for (int x = tx; x < tx + tw; x++) {
+						int p = pixels[y * r.width + x];
+						int c = 0;
+						while (c < colors && palette[c] != p) { c++; }
+						if (c == colors) {
+							if (colors == palette.length) { colors++; break scan; }
+							palette[colors++] = p;
+						}
+					}
+				}
+
+				if (colors == 1) {
+					tiles.write(1);
+					tiles.write(cpixel, 0, pf.putCPixel(cpixel, 0, palette[0]));
+				} else if (colors <= palette.length) {
+					tiles.write(colors);
+					for (int c = 0; c < colors; c++) {
+						tiles.write(cpixel, 0, pf.putCPixel(cpixel, 0, palette[c]));
+					}
+					int bits = (colors == 2) ? 1 : (colors <= 4) ? 2 : 4;
+					for (int y = ty; y < ty + th; y++) {
+						int acc = 0;
+						int accBits = 0;
+						for (int x = tx; x < tx + tw; x++) {
+							int p = pixels[y * r.width + x];
+							int c = 0;
+							while (palette[c] != p) { c++; }
+							acc = (acc << bits) | c;
+							accBits += bits;
+							if (accBits == 8) {
+								tiles.write(acc);
+								acc = 0;
+								accBits = 0;
+							}
+						}
+						if (accBits > 0) {
+							tiles.write(acc << (8 - accBits));
+						}
+					}
+				} else {
+					tiles.write(0);
+					for (int y = ty; y < ty + th; y++) {
+						for (int x = tx; x < tx + tw; x++) {
+							tiles.write(cpixel, 0, pf.putCPixel(cpixel, 0, pixels[y * r.width + x]));
+						}
+					}
+				}
+			}
+		}
+
+		byte[] raw = tiles.toByteArray();
+		this.deflater.setInput(raw);
+		ByteArrayOutputStream zipped = new ByteArrayOutputStream(raw.length / 4 + 64);
+		byte[] buf = new byte[8192];
+		int len;
+		while ((len = this.deflater.deflate(buf, 0, buf.length, Deflater.SYNC_FLUSH)) > 0) {
+			zipped.write(buf, 0, len);
+		}
+
+		this.writeRectHeader(r, ENC_ZRLE);
+		this.out.writeInt(zipped.size());
+		zipped.writeTo(this.out);
+	}
+
+	// the mesa cursor as cursor pseudo-encoding rectangle: 1-bits are opaque black, 0-bits transparent
+	private void writeCursor(short[] cursor, int hotspotX, int hotspotY, PixelFormat pf) throws IOException {
+		this.writeRectHeader(new Rectangle(hotspotX, hotspotY, 16, 16), ENC_CURSOR);
+		byte[] black = new byte[pf.bytesPerPixel];
+		pf.putPixel(black, 0, pf.toPixel(0x000000));
+		for (int i = 0; i < 16 * 16; i++) {
+			this.out.write(black);
+		}
+		for (int line = 0; line < 16; line++) {
+			int bits = (line < cursor.length) ? cursor[line] : 0;
+			this.out.writeByte(bits >>> 8);
+			this.out.writeByte(bits);
+		}
+	}
+
+	/*
+	 * client pixel format
+	 */
+
+	private static class PixelFormat {
+		private final int bitsPerPixel;
+		private final int depth;
+		private final boolean bigEndian;
+		private final boolean trueColor;
+		private final int redMax;
+		private final int greenMax;
+		private final int blueMax;
+		private final int redShift;
+		private final int greenShift;
+		private final int blueShift;
+
+		private final int bytesPerPixel;
+
+		// compressed pixel (ZRLE): length and if the least significant byte is dropped
+		private final int cpixelBytes;
+		private final boolean cpixelDropsLsb;
+
+		PixelFormat(int bpp, int depth, boolean bigEndian, boolean trueColor,
+				int redMax, int greenMax, int blueMax, int redShift, int greenShift, int blueShift) {
+			this.bitsPerPixel = bpp;
+			this.depth = depth;
+			this.bigEndian = bigEndian;
+			this.trueColor = trueColor;
+			this.redMax = redMax;
+			this.greenMax = greenMax;
+			this.blueMax = blueMax;
+			this.redShift = redShift;
+			this.greenShift = greenShift;
+			this.blueShift = blueShift;
+			this.bytesPerPixel = bpp / 8;
+
+			long colorBits = ((long)redMax << redShift) | ((long)greenMax << greenShift) | ((long)blueMax << blueShift);
+			if (bpp == 32 && depth <= 24 && colorBits <= 0x00FFFFFFL) {
+				this.cpixelBytes = 3;
+				this.cpixelDropsLsb = false;
+			} else if (bpp == 32 && depth <= 24 && (colorBits & 0xFF) == 0) {
+				this.cpixelBytes = 3;
+				this.cpixelDropsLsb = true;
+			} else {
+				this.cpixelBytes = this.bytesPerPixel;
+				this.cpixelDropsLsb = false;
+			}
+		}
+
+		void write(DataOutputStream out) throws IOException {
+			out.writeByte(this.bitsPerPixel);
+			out.writeByte(this.depth);
+			out.writeByte(this.bigEndian ? 1 : 0);
+			out.writeByte(this.trueColor ? 1 : 0);
+			out.writeShort(this.redMax);
+			out.writeShort(this.greenMax);
+			out.writeShort(this.blueMax);
+			out.writeByte(this.redShift);
+			out.writeByte(this.greenShift);
+			out.writeByte(this.blueShift);
+			out.write(new byte[3]);
+		}
+
+		// convert a 0x00rrggbb color to a pixel value
+		int toPixel(int rgb) {
+			int r = (rgb >>> 16) & 0xFF;
+			int g = (rgb >>> 8) & 0xFF;
+			int b = rgb & 0xFF;
+			return (((r * this.redMax + 127) / 255) << this.redShift)
+				 | (((g * this.greenMax + 127) / 255) << this.greenShift)
+				 | (((b * this.blueMax + 127) / 255) << this.blueShift);
+		}
+
+		// put a pixel value into buf at pos, returning the position after the pixel
+		int putPixel(byte[] buf, int pos, int pixel) {
+			for (int i = 0; i < this.bytesPerPixel; i++) {
+				int shift = this.bigEndian ? (this.bytesPerPixel - 1 - i) * 8 : i * 8;
+				buf[pos++] = (byte)(pixel >>> shift);
+			}
+			return pos;
+		}
+
+		// put a compressed pixel value into buf at pos, returning the number of bytes put
+		int putCPixel(byte[] buf, int pos, int pixel) {
+			if (this.cpixelBytes == this.bytesPerPixel) {
+				return this.putPixel(buf, pos, pixel) - pos;
+			}
+			int value = this.cpixelDropsLsb ? (pixel >>> 8) : pixel;
+			for (int i = 0; i < 3; i++) {
+				int shift = this.bigEndian ? (2 - i) * 8 : i * 8;
+				buf[pos + i] = (byte)(value >>> shift);
+			}
+			return 3;
+		}
+	}
+}
@@ -0,0 +1,522 @@
+/*
+Copyright (c) 2026, the Dwarf contributors
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+    * Redistributions of source code must retain the above copyright
+      notice, this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * The name of the author may not be used to endorse or promote products
+      derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package dev.hawala.dmachine.dwarf;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import javax.imageio.ImageIO;
+
+import dev.hawala.dmachine.engine.PrincOpsDefs;
+
+/**
+ * Recorder for the mesa display content of a Dwarf session, writing the
+ * display changes at the ui refresh points into a compact file, which can
+ * be exported to a PNG image sequence with the {@code main()} method of this class.
+ * <p>
+ * The mesa engine thread only copies the modified display pages into a handover
+ * buffer (see {@link #record}), the same way as for the {@link DisplayRenderer}.
+ * The recorder thread takes over these pages, drops the pages whose content
+ * did not really change and writes the remaining pages as zlib-compressed delta
+ * frame. A keyframe with the complete display is written at regular intervals,
+ * so a truncated recording (e.g. if Dwarf was killed) is usable up to the last
+ * complete frame. If the recorder thread cannot keep up with the display changes,
+ * successive changes are merged into one frame instead of slowing down the mesa engine.
+ * </p>
+ * <p>
+ * File layout (all values big-endian):
+ * </p>
+ * <pre>
+ *   header: magic 'DWRC' (int), version (int), width (int), height (int),
+ *           bits per pixel (int), words per scanline (int), display pages (int),
+ *           recording start (long, milliseconds since epoch)
+ *   frame:  kind (byte: 1 = keyframe, 2 = delta), time since start (int, milliseconds),
+ *           color table entries (short, 0 = unchanged) followed by the entries (int 0x00rrggbb),
+ *           page count (short) followed by the page numbers (short, only for delta frames),
+ *           compressed length (int) followed by the deflated words of the pages
+ * </pre>
+ *
+ * @author the Dwarf contributors (2026)
+ */
+public class SessionRecorder implements Runnable {
+
+	private static final int MAGIC = 0x44575243; // 'DWRC'
+	private static final int VERSION = 1;
+
+	private static final byte FRAME_KEY = 1;
+	private static final byte FRAME_DELTA = 2;
+
+	// max. time between keyframes
+	private static final long KEYFRAME_INTERVAL = 30000; // milliseconds
+
+	// recording geometry
+	private final int width;
+	private final int height;
+	private final int bitsPerPixel;
+	private final int wordsPerLine;
+	private final int pageCount;
+	private final long startMillis;
+
+	// synchronization between the mesa engine and the recorder thread
+	private final Object lock = new Object();
+
+	// handover buffer filled by the mesa engine, protected by lock
+	private short[] pendingWords;
+	private short[] pendingFlags;
+	private int[] pendingColors = null;
+	private boolean pendingColorsChanged = false;
+	private long pendingTime = 0;
+	private boolean pendingPages = false;
+	private boolean closing = false;
+
+	// the generation of the last color table handed over, protected by lock
+	private boolean colorsHandedOver = false;
+	private int handedColorGeneration = 0;
+
+	// buffer owned by the recorder thread
+	private short[] recordWords;
+	private short[] recordFlags;
+	private int[] recordColors = null; // only set if the color table changed
+	private long recordTime = 0;
+
+	// the display content as known to the recording (all frames applied)
+	private final short[] shadow;
+	private int[] shadowColors = null;
+
+	// output
+	private final DataOutputStream out;
+	private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+	private final ByteArrayOutputStream frameBuffer = new ByteArrayOutputStream();
+	private final byte[] deflateChunk = new byte[16384];
+	private long lastKeyframe = -KEYFRAME_INTERVAL;
+	private int frameCount = 0;
+	private long byteCount = 0;
+	private boolean failed = false;
+
+	// the recorder thread
+	private final Thread recorderThread;
+
+	/**
+	 * Create a recording file and start the recorder thread.
+	 *
+	 * @param fileName the recording file to create (an existing file is overwritten).
+	 * @param displayWidth the pixel width of the mesa display.
+	 * @param displayHeight the pixel height of the mesa display.
+	 * @param colorDisplay {@code true} for a 8 bit color display, {@code false} for monochrome.
+	 * @param displayWordsPerLine the number of words of a scanline in the mesa display memory.
+	 * @throws IOException if the recording file cannot be created.
+	 */
+	public SessionRecorder(String fileName, int displayWidth, int displayHeight, boolean colorDisplay, int displayWordsPerLine) throws IOException {
+		this.width = displayWidth;
+		this.height = displayHeight;
+		this.bitsPerPixel = (colorDisplay) ? 8 : 1;
+		this.wordsPerLine = displayWordsPerLine;
+		this.pageCount = ((displayWordsPerLine * displayHeight) + PrincOpsDefs.WORDS_PER_PAGE - 1) / PrincOpsDefs.WORDS_PER_PAGE;
+		this.startMillis = System.currentTimeMillis();
+
+		int words = this.pageCount * PrincOpsDefs.WORDS_PER_PAGE;
+		this.pendingWords = new short[words];
+		this.pendingFlags = new short[this.pageCount];
+		this.recordWords = new short[words];
+		this.recordFlags = new short[this.pageCount];
+		this.shadow = new short[words];
+
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName), 65536));
+		this.out.writeInt(MAGIC);
+		this.out.writeInt(VERSION);
+		this.out.writeInt(this.width);
+		this.out.writeInt(this.height);
+		this.out.writeInt(this.bitsPerPixel);
+		this.out.writeInt(this.wordsPerLine);
+		this.out.writeInt(this.pageCount);
+		this.out.writeLong(this.startMillis);
+		this.out.flush();
+
+		this.recorderThread = new Thread(this, "Dwarf session recorder");
+		this.recorderThread.setDaemon(true);
+		this.recorderThread.start();
+	}
+
+	/**
+	 * Copy the modified pages of the mesa display memory into the handover
+	 * buffer for the recorder thread (invoked in the mesa engine thread),
+	 * with the same parameters as {@link DisplayRenderer#handOver}.
+	 */
+	public void record(short[] mem, int start, int count, short[] pageFlags, int firstPage, int[] colorTable, int colorGeneration) {
+		int pages = Math.min(this.pageCount, (count + PrincOpsDefs.WORDS_PER_PAGE - 1) / PrincOpsDefs.WORDS_PER_PAGE);
+		int end = Math.min(start + count, mem.length);
+
+		synchronized(this.lock) {
+			if (this.closing) { return; }
+
+			boolean copied = false;
+			int memIdx = start;
+			int bufIdx = 0;
+			for (int page = 0; page < pages; page++) {
+				if ((pageFlags[firstPage + page] & PrincOpsDefs.MAPFLAGS_DIRTY) != 0 && memIdx < end) {
+					System.arraycopy(mem, memIdx, this.pendingWords, bufIdx, Math.min(PrincOpsDefs.WORDS_PER_PAGE, end - memIdx));
+					this.pendingFlags[page] = PrincOpsDefs.MAPFLAGS_DIRTY;
+					copied = true;
+				}
+				memIdx += PrincOpsDefs.WORDS_PER_PAGE;
+				bufIdx += PrincOpsDefs.WORDS_PER_PAGE;
+			}
+			boolean colorsChanged = this.bitsPerPixel == 8 && colorTable != null
+					&& (!this.colorsHandedOver || colorGeneration != this.handedColorGeneration);
+			if (!copied && !colorsChanged) { return; }
+
+			if (colorsChanged) {
+				this.pendingColors = colorTable.clone();
+				this.pendingColorsChanged = true;
+				this.colorsHandedOver = true;
+				this.handedColorGeneration = colorGeneration;
+			}
+
+			this.pendingTime = System.currentTimeMillis();
+			this.pendingPages = true;
+			this.lock.notify();
+		}
+	}
+
+	/**
+	 * Stop recording, writing the pending display changes and closing the
+	 * recording file.
+	 */
+	public void close() {
+		synchronized(this.lock) {
+			if (this.closing) { return; }
+			this.closing = true;
+			this.lock.notify();
+		}
+		try {
+			this.recorderThread.join(5000);
+		} catch (InterruptedException e) {
+			// ignored
+		}
+	}
+
+	// swap the handover buffer with the record buffer when modified pages are available,
+	// returning false if the recording is to be closed
+	private boolean takeOver() throws InterruptedException {
+		synchronized(this.lock) {
+			while (!this.pendingPages && !this.closing) {
+				this.lock.wait();
+			}
+			if (!this.pendingPages) { return false; }
+
+			short[] words = this.recordWords;
+			short[] flags = this.recordFlags;
+
+			this.recordWords = this.pendingWords;
+			this.recordFlags = this.pendingFlags;
+			this.recordColors = (this.pendingColorsChanged) ? this.pendingColors : null;
+			this.recordTime = this.pendingTime;
+
+			this.pendingWords = words;
+			this.pendingFlags = flags;
+			this.pendingColorsChanged = false;
+			this.pendingPages = false;
+			return true;
+		}
+	}
+
+	@Override
+	public void run() {
+		try {
+			while(this.takeOver()) {
+				if (!this.failed) {
+					this.writeFrame();
+				}
+				Arrays.fill(this.recordFlags, PrincOpsDefs.MAPFLAGS_CLEAR);
+			}
+		} catch (InterruptedException e) {
+			// recorder thread stopped
+		}
+		try {
+			this.out.close();
+		} catch (IOException e) {
+			// ignored
+		}
+		System.out.printf("Session recording closed: %d frames, %d bytes\n", this.frameCount, this.byteCount);
+	}
+
+	// apply the taken over pages to the shadow and write them as frame if the display really changed
+	private void writeFrame() {
+		final int wpp = PrincOpsDefs.WORDS_PER_PAGE;
+
+		// collect the pages with changed content
+		int[] changedPages = new int[this.pageCount];
+		int changedCount = 0;
+		for (int page = 0; page < this.pageCount; page++) {
+			if (this.recordFlags[page] == PrincOpsDefs.MAPFLAGS_CLEAR) { continue; }
+			int offset = page * wpp;
+			boolean differs = false;
+			for (int i = offset; i < offset + wpp; i++) {
+				if (this.shadow[i] != this.recordWords[i]) {
+					differs = true;
+					break;
+				}
+			}
+			if (differs) {
+				System.arraycopy(this.recordWords, offset, this.shadow, offset, wpp);
+				changedPages[changedCount++] = page;
+			}
+		}
+		boolean colorsChanged = this.recordColors != null && !Arrays.equals(this.recordColors, this.shadowColors);
+		if (colorsChanged) {
+			this.shadowColors = this.recordColors;
+		}
+		boolean keyframe = (this.recordTime - this.lastKeyframe) >= KEYFRAME_INTERVAL;
+		if (changedCount == 0 && !colorsChanged && !keyframe) {
+			return;
+		}
+
+		try {
+			this.out.writeByte(keyframe ? FRAME_KEY : FRAME_DELTA);
+			this.out.writeInt((int)(this.recordTime - this.startMillis));
+
+			// keyframes always have the color table, delta frames only if it changed
+			int[] colors = (keyframe || colorsChanged) ? this.shadowColors : null;
+			if (colors != null) {
+				this.out.writeShort(colors.length);
+				for (int color : colors) { this.out.writeInt(color); }
+			} else {
+				this.out.writeShort(0);
+			}
+
+			this.deflater.reset();
+			this.frameBuffer.reset();
+			byte[] pageBytes = new byte[wpp * 2];
+			if (keyframe) {
+				this.out.writeShort(this.pageCount);
+				for (int page = 0; page < this.pageCount; page++) {
+					this.deflatePage(page, pageBytes);
+				}
+				this.lastKeyframe = this.recordTime;
+			} else {
+				this.out.writeShort(changedCount);
+				for (int i = 0; i < changedCount; i++) {
+					this.out.writeShort(changedPages[i]);
+				}
+				for (int i = 0; i < changedCount; i++) {
+					this.deflatePage(changedPages[i], pageBytes);
+				}
+			}
+			this.deflater.finish();
+			while (!this.deflater.finished()) {
+				int len = this.deflater.deflate(this.deflateChunk);
+				this.frameBuffer.write(this.deflateChunk, 0, len);
+			}
+			this.out.writeInt(this.frameBuffer.size());
+			this.frameBuffer.writeTo(this.out);
+			this.out.flush();
+
+			this.frameCount++;
+			this.byteCount = this.out.size();
+		} catch (IOException e) {
+			System.out.printf("Warning: session recording stopped, error writing recording file: %s\n", e.getMessage());
+			this.failed = true;
+		}
+	}
+
+	// add the words of a shadow page to the deflater
+	private void deflatePage(int page, byte[] pageBytes) {
+		int offset = page * PrincOpsDefs.WORDS_PER_PAGE;
+		for (int i = 0; i < PrincOpsDefs.WORDS_PER_PAGE; i++) {
+			short w = this.shadow[offset + i];
+			pageBytes[i * 2] = (byte)(w >>> 8);
+			pageBytes[i * 2 + 1] = (byte)w;
+		}
+		this.deflater.setInput(pageBytes);
+		while (!this.deflater.needsInput()) {
+			int len = this.deflater.deflate(this.deflateChunk);
+			this.frameBuffer.write(this.deflateChunk, 0, len);
+		}
+	}
+
+	/*
+	 * player: export a recording to a PNG image sequence
+	 */
+
+	/**
+	 * Export the frames of a recording file as PNG images into a directory. The durations
+	 * of the frames are written into the file {@code frames.txt} in the concat format of
+	 * {@code ffmpeg}, so the image sequence can be converted to a video file with
+	 * {@code ffmpeg -f concat -i frames.txt ...}.
+	 *
+	 * @param fileName the recording file.
+	 * @param outDir the directory for the PNG files.
+	 * @param ps the stream for progress messages.
+	 * @throws IOException
+	 */
+	public static void export(String fileName, File outDir, PrintStream ps) throws IOException {
+		if (!outDir.isDirectory() && !outDir.mkdirs()) {
+			throw new IOException("unable to create output directory: " + outDir.getPath());
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName), 65536));
+			 PrintStream frameList = new PrintStream(new File(outDir, "frames.txt"))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("not a Dwarf session recording: " + fileName);
+			}
+			int version = in.readInt();
+			if (version != VERSION) {
+				throw new IOException("unsupported recording version: " + version);
+			}
+			int width = in.readInt();
+			int height = in.readInt();
+			int bitsPerPixel = in.readInt();
+			int wordsPerLine = in.readInt();
+			int pageCount = in.readInt();
+			long startMillis = in.readLong();
+			ps.printf("Recording: %d x %d pixels, %d bit(s) per pixel, started %tc\n", width, height, bitsPerPixel, startMillis);
+
+			byte[] display = new byte[pageCount * PrincOpsDefs.WORDS_PER_PAGE * 2];
+			int[] colors = { 0x00FFFFFF, 0x00000000 };
+			Inflater inflater = new Inflater();
+
+			int frame = 0;
+			int lastTime = -1;
+			String lastName = null;
+			while(true) {
+				// read the next frame (if complete)
+				int[] newColors = null;
+				int[] pages;
+				byte[] compressed;
+				int time;
+				try {
+					byte kind = in.readByte();
+					time = in.readInt();
+					int colorCount = in.readUnsignedShort();
+					if (colorCount > 0) {
+						newColors = new int[colorCount];
+						for (int i = 0; i < colorCount; i++) { newColors[i] = in.readInt(); }
+					}
+					int count = in.readUnsignedShort();
+					pages = new int[count];
+					for (int i = 0; i < count; i++) {
+						pages[i] = (kind == FRAME_KEY) ? i : in.readUnsignedShort();
+					}
+					compressed = new byte[in.readInt()];
+					in.readFully(compressed);
+				} catch (EOFException e) {
+					break;
+				}
+
+				// apply the frame to the display
+				if (newColors != null) { colors = newColors; }
+				inflater.reset();
+				inflater.setInput(compressed);
+				byte[] pageBytes = new byte[PrincOpsDefs.WORDS_PER_PAGE * 2];
+				try {
+					for (int page : pages) {
+						int len = 0;
+						while (len < pageBytes.length) {
+							int got = inflater.inflate(pageBytes, len, pageBytes.length - len);
+							if (got == 0 && (inflater.finished() || inflater.needsInput())) {
+								throw new IOException("truncated frame data in frame " + frame);
+							}
+							len += got;
+						}
+						System.arraycopy(pageBytes, 0, display, page * pageBytes.length, pageBytes.length);
+					}
+				} catch (DataFormatException e) {
+					throw new IOException("invalid frame data in frame " + frame, e);
+				}
+
+				// write the frame image and the duration of the previous frame
+				if (lastName != null) {
+					frameList.printf("file '%s'\nduration %.3f\n", lastName, (time - lastTime) / 1000.0);
+				}
+				lastName = String.format("frame_%06d.png", frame);
+				lastTime = time;
+				ImageIO.write(createImage(display, colors, width, height, bitsPerPixel, wordsPerLine), "png", new File(outDir, lastName));
+				frame++;
+			}
+			if (lastName != null) {
+				frameList.printf("file '%s'\nduration %.3f\n", lastName, 0.040);
+				frameList.printf("file '%s'\n", lastName); // ffmpeg ignores the duration of the last entry
+			}
+			inflater.end();
+			ps.printf("Exported %d frames to: %s\n", frame, outDir.getPath());
+		}
+	}
+
+	// create an indexed image from the display memory bytes
+	private static BufferedImage createImage(byte[] display, int[] colors, int width, int height, int bitsPerPixel, int wordsPerLine) {
+		int lineBytes = wordsPerLine * 2;
+		BufferedImage img;
+		if (bitsPerPixel == 1) {
+			// white for 0-bits, black for 1-bits, scanlines are byte-aligned as the width is a multiple of 16
+			IndexColorModel cm = new IndexColorModel(1, 2, new byte[] { -1, 0 }, new byte[] { -1, 0 }, new byte[] { -1, 0 });
+			img = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY, cm);
+		} else {
+			int entries = Math.min(256, colors.length);
+			byte[] r = new byte[entries];
+			byte[] g = new byte[entries];
+			byte[] b = new byte[entries];
+			for (int i = 0; i < entries; i++) {
+				r[i] = (byte)(colors[i] >>> 16);
+				g[i] = (byte)(colors[i] >>> 8);
+				b[i] = (byte)colors[i];
+			}
+			IndexColorModel cm = new IndexColorModel(8, entries, r, g, b);
+			img = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED, cm);
+		}
+		byte[] pixels = ((DataBufferByte)img.getRaster().getDataBuffer()).getData();
+		int imgLineBytes = pixels.length / height;
+		for (int y = 0; y < height; y++) {
+			System.arraycopy(display, y * lineBytes, pixels, y * imgLineBytes, Math.min(imgLineBytes, lineBytes));
+		}
+		return img;
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.out.println("Usage: SessionRecorder <recording-file> <png-output-directory>");
+			return;
+		}
+		export(args[0], new File(args[1]), System.out);
+	}
+
+}
@@ -112,6 +112,11 @@ public class TestUiDataConsumer implements iUiDataConsumer, Runnable {
 		}
 	}
 	
+	@Override
+	public int getColorTableGeneration() {
+		return 0;
+	}
+	
 	private final short[] DisplayFillTemplate = {
 		(short)0b1000000000000001,
 		(short)0b0100000000000010,
@@ -30,7 +30,11 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.function.Supplier;
 
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
 import dev.hawala.dmachine.Duchess;
+import dev.hawala.dmachine.engine.PrincOpsDefs;
 import dev.hawala.dmachine.engine.iMesaMachineDataAccessor;
 import dev.hawala.dmachine.engine.iUiDataConsumer;
 import dev.hawala.dmachine.engine.iUiDataConsumer.PointerBitmapAcceptor;
@@ -46,13 +50,16 @@ import dev.hawala.dmachine.engine.iUiDataConsumer.PointerBitmapAcceptor;
  * registers itself on construction with the mesa engine through the
  * {@code iUiDataConsumer} provided by the mesa engine.
  * <br>
- * The different data provided by the mesa engine are buffered here or in the
- * backing store of the display.
+ * The different data provided by the mesa engine are buffered here, the
+ * display content is handed over to a {@link DisplayRenderer} which updates
+ * the backing store of the display and repaints it outside the mesa engine thread.
  * </p>
  * <p>
  * On the other side, the {@code DwarfUiRefresher} is registered with the
  * Java Swing machinery (more precisely a Swing timer) for regular refresh of
- * the Swing components presenting the data buffered from the mesa engine.   
+ * the Swing components presenting the data buffered from the mesa engine.
+ * The timer runs at its initial rate while new data arrives and backs off
+ * when nothing changes, being woken up again by a new mouse shape or MP code.
  * </p>
  * 
  * @author Dr. Hans-Walter Latz / Berlin (2017)
@@ -67,7 +74,14 @@ public class UiRefresher implements ActionListener, iMesaMachineDataAccessor, Po
 	private long startMillis = 0;
 	
 	// is regular refreshing the (Java) useful (e.g. not if the Dwarf application is iconized)? 
-	private boolean doRefreshUi = true;
+	private volatile boolean doRefreshUi = true;
+	
+	// the Swing timer invoking the refresher, its delay while ui data arrives and
+	// the indicator if the timer currently backed off for lack of new data 
+	private static final int IDLE_TIMER_DELAY = 250; // milliseconds
+	private Timer uiTimer = null;
+	private int activeTimerDelay = 0;
+	private volatile boolean timerIdle = false;
 	
 	// the pending next mouse shape to use (these will be reset if the new mouse shape was set in Java)
 	private short[] newCursorBitmap = null;
@@ -77,8 +91,14 @@ public class UiRefresher implements ActionListener, iMesaMachineDataAccessor, Po
 	// the pending next status line to set on the Java ui (reset to null when set in the ui) 
 	private String newStatusLine = null;
 	
-	// was the display content modified in the backing store and must therefore painted to the Java window?  
-	private boolean doRepaint = false;
+	// the render pipeline for the display content
+	private final DisplayRenderer displayRenderer;
+	
+	// the optional session recorder, getting the display content also while the ui is not refreshed
+	// (the renderer then gets the complete display content when refreshing resumes)
+	private volatile SessionRecorder sessionRecorder = null;
+	private boolean rendererMissedPages = false;
+	private short[] allDirtyFlags = new short[0];
 	
 	// handling for the stop message of the mesa engine, which will alternate with the last statistics line  
 	private String engineEndedMessage = null; // will be set when the mesa engine stopped running
@@ -108,6 +128,7 @@ public class UiRefresher implements ActionListener, iMesaMachineDataAccessor, Po
 		// set finals
 		this.mainWindow = window;
 		this.mesaEngine = consumer;
+		this.displayRenderer = new DisplayRenderer(window.getDisplayPane());
 		
 		// register with the mesa engine
 		this.mesaEngine.registerPointerBitmapAcceptor(this);
@@ -131,11 +152,51 @@ public class UiRefresher implements ActionListener, iMesaMachineDataAccessor, Po
 	 *   is not necessary.
 	 */
 	public void setDoRefreshUi(boolean doRefreshing) {
-		synchronized(this) {
-			this.doRefreshUi = doRefreshing;
+		if (this.doRefreshUi == doRefreshing) { return; }
+		this.doRefreshUi = doRefreshing;
+		if (this.uiTimer == null) { return; }
+		if (doRefreshing) {
+			this.timerIdle = false;
+			this.uiTimer.setDelay(this.activeTimerDelay);
+			this.uiTimer.restart();
+		} else {
+			this.uiTimer.stop();
 		}
 	}
 	
+	/**
+	 * Set the Swing timer invoking this refresher, allowing to adapt the
+	 * timer pace to the ui data arriving from the mesa engine.
+	 * 
+	 * @param timer the timer invoking this refresher, its initial delay being
+	 *   used while new ui data arrives.
+	 */
+	public void setTimer(Timer timer) {
+		this.uiTimer = timer;
+		this.activeTimerDelay = timer.getDelay();
+	}
+	
+	// wake up the backed-off Swing timer when new ui data arrived (invoked in the mesa engine thread)
+	private void wakeUpTimer() {
+		if (!this.timerIdle || !this.doRefreshUi) { return; }
+		this.timerIdle = false;
+		SwingUtilities.invokeLater(() -> {
+			if (this.uiTimer == null || !this.doRefreshUi) { return; }
+			this.uiTimer.setDelay(this.activeTimerDelay);
+			this.uiTimer.restart();
+		});
+	}
+	
+	/**
+	 * Set the recorder getting the display changes at each ui refresh point.
+	 * 
+	 * @param recorder the session recorder or {@code null} to stop passing
+	 *   display changes to the current recorder.
+	 */
+	public void setSessionRecorder(SessionRecorder recorder) {
+		this.sessionRecorder = recorder;
+	}
+	
 	/**
 	 * Start the millisecond counter for the uptime in the status line.
 	 */
@@ -151,16 +212,13 @@ public class UiRefresher implements ActionListener, iMesaMachineDataAccessor, Po
 	@Override
 	public void actionPerformed(ActionEvent arg) {		
 		synchronized(this) {
-			// repaint the screen if necessary
-			if (this.doRepaint && this.doRefreshUi) {
-				this.mainWindow.getDisplayPane().repaint();
-				this.doRepaint = false;
-			}
+			boolean changed = false;
 			
 			// set the new cursor if a new one was given
 			if (this.newCursorBitmap != null) {
 				this.mainWindow.getDisplayPane().setCursor(this.newCursorBitmap, this.newCursorHotspotX, this.newCursorHotspotY);
 				this.newCursorBitmap = null;
+				changed = true;
 			}
 			
 			// update the status line if there is a new one
@@ -168,6 +226,7 @@ public class UiRefresher implements ActionListener, iMesaMachineDataAccessor, Po
 				this.mainWindow.setStatusLine(this.newStatusLine);
 				this.lastStatusLine = this.newStatusLine;
 				this.newStatusLine = null;
+				changed = true;
 			}
 			
 			// if there is a stop message from the mesa engine: let it alternate with the last status line
@@ -183,21 +242,53 @@ public class UiRefresher implements ActionListener, iMesaMachineDataAccessor, Po
 					this.lastStatusLineSwitch = now;
 				}
 			}
+			
+			// adapt the timer pace: back off while nothing changes
+			if (this.uiTimer != null) {
+				int delay = changed
+						? this.activeTimerDelay
+						: Math.min(IDLE_TIMER_DELAY, this.uiTimer.getDelay() * 2);
+				this.uiTimer.setDelay(delay);
+				this.timerIdle = (delay > this.activeTimerDelay);
+			}
 		}
 	}
 
 	// invoked by the mesa engine when it is opportune to transfer the display memory content to Java space
 	@Override
 	public void accessRealMemory(short[] realMemory, int memOffset, int memWords, short[] pageFlags, int firstPage) {
-		synchronized(this) {
-			if (!this.doRefreshUi) { return; }
-			this.doRepaint = this.mainWindow.getDisplayPane().copyDisplayContent(
+		int[] colorTable = this.colorTableSupplier.get();
+		int colorGeneration = this.mesaEngine.getColorTableGeneration();
+		
+		SessionRecorder recorder = this.sessionRecorder;
+		if (recorder != null) {
+			recorder.record(realMemory, memOffset, memWords, pageFlags, firstPage, colorTable, colorGeneration);
+		}
+		
+		if (!this.doRefreshUi) {
+			this.rendererMissedPages = true;
+		} else if (this.rendererMissedPages) {
+			int pageCount = (memWords + PrincOpsDefs.WORDS_PER_PAGE - 1) / PrincOpsDefs.WORDS_PER_PAGE;
+			if (this.allDirtyFlags.length != pageCount) {
+				this.allDirtyFlags = new short[pageCount];
+				for (int i = 0; i < pageCount; i++) { this.allDirtyFlags[i] = PrincOpsDefs.MAPFLAGS_DIRTY; }
+			}
+			this.displayRenderer.handOver(realMemory, memOffset, memWords, this.allDirtyFlags, 0, colorTable, colorGeneration);
+			this.rendererMissedPages = false;
+		} else {
+			this.displayRenderer.handOver(
 					realMemory,	memOffset, memWords,
 					pageFlags,	firstPage,
-					this.colorTableSupplier.get());
+					colorTable,	colorGeneration);
 		}
 	}
 
+	// invoked by the mesa engine to check if the display content is to be transferred
+	@Override
+	public boolean isDisplayPresented() {
+		return this.doRefreshUi || this.sessionRecorder != null;
+	}
+
 	// invoked by the mesa engine when the MP code changes
 	@Override
 	public void acceptMP(int mp) {
@@ -208,6 +299,7 @@ public class UiRefresher implements ActionListener, iMesaMachineDataAccessor, Po
 			// TO DO: This should be conditionalized on a program parameter
 			System.out.printf("\nMPCODE:%s\n", this.statusMpPart);
 		}	
+		this.wakeUpTimer();
 	}
 
 	// invoked by the mesa engine at more or less regular intervals
@@ -262,6 +354,7 @@ public class UiRefresher implements ActionListener, iMesaMachineDataAccessor, Po
 			this.newCursorHotspotX = hotspotX;
 			this.newCursorHotspotY = hotspotY;
 		}
+		this.wakeUpTimer();
 	}
 	
 	/**
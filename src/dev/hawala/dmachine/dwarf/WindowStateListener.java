@@ -26,6 +26,8 @@ ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package dev.hawala.dmachine.dwarf;
 
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
 import java.awt.event.WindowEvent;
 import java.awt.event.WindowListener;
 import java.util.function.BooleanSupplier;
@@ -46,18 +48,21 @@ import dev.hawala.dmachine.engine.Processes;
  * </p>
  * <p>
  * Additionally refreshing of the Java UI is paused if the application
- * is iconized.
+ * is iconized or the display pane is not showing. (AWT does not report
+ * if a window is occluded by other windows, so this case cannot be handled.)
  * </p>
  * 
  * @author Dr. Hans-Walter Latz / Berlin (2017)
  */
-public class WindowStateListener implements WindowListener {
+public class WindowStateListener implements WindowListener, HierarchyListener {
 	
 	private final MainUI mainWindow;
 	private final UiRefresher uiRefresher;
 	private final BooleanSupplier runningIndicator;
 	private final Runnable windowCloser;
 	
+	private boolean iconified = false;
+	
 	/**
 	 * Constructor.
 	 * 
@@ -71,6 +76,12 @@ public class WindowStateListener implements WindowListener {
 		this.uiRefresher = uiRefresher;
 		this.runningIndicator = runningIndicator;
 		this.windowCloser = windowCloser;
+		this.mainWindow.getDisplayPane().addHierarchyListener(this);
+	}
+	
+	// pause or resume ui refreshing depending on the visibility of the display
+	private void updateRefreshing() {
+		this.uiRefresher.setDoRefreshUi(!this.iconified && this.mainWindow.getDisplayPane().isShowing());
 	}
 
 	@Override
@@ -102,12 +113,14 @@ public class WindowStateListener implements WindowListener {
 
 	@Override
 	public void windowIconified(WindowEvent e) {
-		this.uiRefresher.setDoRefreshUi(false);
+		this.iconified = true;
+		this.updateRefreshing();
 	}
 
 	@Override
 	public void windowDeiconified(WindowEvent e) {
-		this.uiRefresher.setDoRefreshUi(true);
+		this.iconified = false;
+		this.updateRefreshing();
 	}
 
 	@Override
@@ -115,5 +128,12 @@ public class WindowStateListener implements WindowListener {
 
 	@Override
 	public void windowDeactivated(WindowEvent e) { }
+
+	@Override
+	public void hierarchyChanged(HierarchyEvent e) {
+		if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+			this.updateRefreshing();
+		}
+	}
 	
 }
\ No newline at end of file
@@ -27,8 +27,8 @@ ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package dev.hawala.dmachine.engine;
 
 /**
- * Configuration constants (with one exception) controlling the logging
- * and debugging behavior of the mesa engine,
+ * Configuration constants controlling the logging and debugging behavior
+ * of the mesa engine (the runtime switchable tracing is done with {@link Trace}),
  * 
  * @author Dr. Hans-Walter Latz / Berlin (2017/2020)
  */
@@ -44,65 +44,11 @@ public class Config {
 	 */
 	public static final boolean LOG_OPCODES = false;
 	
-	/**
-	 * log as flight recorder?
-	 * (i.e.: collect but do not write the data to stdout, speeding up
-	 * things, but having them at hand if needed, e.g. if a stack trap happens)
-	 * (slows down things, but not to the point as writing to stdout)
-	 */
-	public static final boolean LOG_OPCODES_AS_FLIGHTRECORDER = false;
-	
-	/**
-	 * prepend the stack data before the logged instruction in flight recorder mode?
-	 */
-	public static final boolean FLIGHTRECORDER_WITH_STACK = false;
-	
-	/**
-	 * log memory access locations and operations?
-	 */
-	public static final boolean LOG_MEM_ACCESS = false;
-	
 	/**
 	 * use interactive utility for debugging opcode execution?
 	 */
 	public static final boolean USE_DEBUG_INTERPRETER = false;
 	
-	/**
-	 * log BITBLT/BITBLTX/COLORBLT arguments and the like
-	 */
-	public static final boolean LOG_BITBLT_INSNS = false;
-	
-	/**
-	 * If LOG_BITBLT_INSNS is true, logging of BITBLT and friends will
-	 * only occur if they are executed while this flag is true.
-	 * <br>
-	 * At runtime, pressing a specific key (normally F1, see class
-	 * KeyboardMapper) will set this variable to true, allowing to
-	 * restrict logging to specific situations in the UI.
-	 */
-	public static volatile boolean dynLogBitblts = false;
-	
-	
-	/*
-	 * logging in io processors (agents / iop-handlers)
-	 */
-	
-	public static final boolean IO_LOG_DISPLAY = false;
-	
-	public static final boolean IO_LOG_MOUSE = false;
-	
-	public static final boolean IO_LOG_KEYBOARD = false;
-	
-	public static final boolean IO_LOG_DISK = false;
-	
-	public static final boolean IO_LOG_FLOPPY = false;
-	
-	public static final boolean IO_LOG_NETWORK = false;
-	
-	public static final boolean IO_LOG_PROCESSOR = false;
-	
-	public static final boolean IO_LOG_TTY = false;
-	
 	/*
 	 * IORegion logging (6085/daybreak only)
 	 */
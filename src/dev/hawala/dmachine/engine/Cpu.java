@@ -35,6 +35,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 import dev.hawala.dmachine.engine.Xfer.XferType;
 import dev.hawala.dmachine.engine.agents.Agents;
@@ -76,51 +77,13 @@ public class Cpu {
 		System.out.println("INF: -------------------------------------- " + msg);
 	}
 	
-	private static final int FLIGHTRECORDER_MAX = 0x1FFFF;
-	
-	private static final String[] oplog = new String[FLIGHTRECORDER_MAX + 1];
-	private static int currOplog = 0;
-	private static final StringBuilder oplogSb = new StringBuilder();
-	
 	private static void opcodesLogf(String format, Object... args) {
-		if (Config.LOG_OPCODES_AS_FLIGHTRECORDER) {
-			if (Config.FLIGHTRECORDER_WITH_STACK) {
-				oplogSb.setLength(0);
-				oplogSb.append(String.format("stack[%02d] ", SP));
-				for (int i = 0; i < SP; i++) {
-					oplogSb.append(String.format(" 0x%04X (", stack[i]));
-					char c = (char)((stack[i] >> 8) & 0xFF);
-					oplogSb.append((c >= ' ' && c < (char)0x7F) ? c : ' ');
-					c = (char)(stack[i] & 0xFF);
-					oplogSb.append((c >= ' ' && c < (char)0x7F) ? c : ' ');
-					oplogSb.append(")");
-				}
-				oplogSb.append("\n");
-				oplog[currOplog] = oplogSb.toString();
-				currOplog = (currOplog + 1) & FLIGHTRECORDER_MAX;
-			}
-			oplog[currOplog] = String.format(format,  args);
-			currOplog = (currOplog + 1) & FLIGHTRECORDER_MAX;
-		} else {
-			System.out.printf(format, args);
-		}
-	}
-	
-	public static void dumpOplog() {
-		int idx = currOplog;
-		while(true) {
-			String line = oplog[currOplog];
-			currOplog = (currOplog + 1) & FLIGHTRECORDER_MAX;
-			if (line != null) { System.out.print(line); }
-			if (idx == currOplog) { break; }
-		}
+		System.out.printf(format, args);
 	}
 	
 	public static void logf(String format, Object... args) {
 		if (Config.LOG_OPCODES && unsilenced) {
-			// opcodesLogf(format, args);
-			oplog[currOplog] = String.format(format,  args);
-			currOplog = (currOplog + 1) & FLIGHTRECORDER_MAX;
+			System.out.printf(format, args);
 		}
 	}
 	
@@ -268,7 +231,99 @@ public class Cpu {
 	private static long lastITpulse = 0;
 	private static int currIT = 0;
 	private static int extIToffset = 0;
+	
+	// virtual time mode (for headless/scripted runs):
+	// => IT advances with the number of executed instructions instead of the real time
+	// => one IT pulse each InstructionsPerVirtualPulse instructions, i.e. a nominal
+	//    speed of ~4 mips, giving a virtual tick (TimeOutInterval) all ~200k instructions
+	// => when no process is ready to run, time is fast-forwarded to the next process timeout
+	//    (see Processes.fastForwardToNextTimeout())
+	public static final int InstructionsPerVirtualPulse = 64;
+	private static boolean virtualTime = false;
+	private static long virtualSkippedPulses = 0;
+	
+	public static void setVirtualTime(boolean useVirtualTime) {
+		if (useVirtualTime) {
+			setITTicker(false); // the IT is not taken from the host clock in virtual time mode
+		}
+		int oldIT = IT();
+		virtualTime = useVirtualTime;
+		setIT(oldIT);
+	}
+	
+	public static boolean isVirtualTime() {
+		return virtualTime;
+	}
+	
+	// advance the virtual IT by the given number of pulses (no effect in real time mode)
+	public static void advanceVirtualIT(int pulses) {
+		if (virtualTime && pulses > 0) {
+			virtualSkippedPulses += pulses;
+		}
+	}
+	
+	// optional ticker thread (real time mode only):
+	// => a separate thread publishes the current IT pulse about each pulse,
+	//    so reading IT is only a (volatile) field load instead of a System.nanoTime() call
+	// => the thread also publishes the host clock used by the Dwarf specific part of the
+	//    timeout checks, allowing these to skip their work if the host clock did not advance
+	// => the timeout check throttling can then be shorter, as checks get cheaper
+	private static volatile int tickerIT = 0;
+	private static volatile long tickerMillis = 0;
+	private static volatile boolean useTicker = false;
+	private static Thread tickerThread = null;
+	
+	private static int nanoTimeToPulse(long nanoTime) {
+		return (int)((nanoTime >>> 14) & 0x00000000FFFFFFFFL);
+	}
+	
+	public static synchronized void setITTicker(boolean useITTicker) {
+		if (useITTicker && virtualTime) { return; } // virtual time mode takes precedence
+		if (useITTicker == useTicker) { return; }
+		int oldIT = IT();
+		if (useITTicker) {
+			tickerIT = nanoTimeToPulse(System.nanoTime());
+			tickerMillis = System.currentTimeMillis();
+			tickerThread = new Thread(() -> {
+				while(useTicker) {
+					tickerIT = nanoTimeToPulse(System.nanoTime());
+					tickerMillis = System.currentTimeMillis();
+					LockSupport.parkNanos(MicrosecondsPerPulse * 1000L);
+				}
+			});
+			tickerThread.setName("IT-ticker");
+			tickerThread.setDaemon(true);
+			useTicker = true;
+			tickerThread.start();
+		} else {
+			useTicker = false;
+			tickerThread = null;
+		}
+		setIT(oldIT);
+	}
+	
+	public static boolean isITTicker() {
+		return useTicker;
+	}
+	
+	/**
+	 * @return the current host time in milliseconds, as published by the
+	 *   IT ticker thread if active.
+	 */
+	public static long currentTimeMillis() {
+		if (useTicker) {
+			return tickerMillis;
+		}
+		return System.currentTimeMillis();
+	}
+	
 	private static int internalIT() {
+		if (virtualTime) {
+			return (int)(((insns / InstructionsPerVirtualPulse) + virtualSkippedPulses) & 0x00000000FFFFFFFFL);
+		}
+		if (useTicker) {
+			return tickerIT;
+		}
 		long newITpulse = System.nanoTime() & 0xFFFFFFFFFFFFC000L;
 		if (newITpulse != lastITpulse) {
 			lastITpulse = newITpulse;
@@ -854,7 +909,7 @@ public class Cpu {
 	
 	public static void stackError() {
 		logTrapOrFault(" ## stackError\n");
-		dumpOplog();
+		FlightRecorder.saveIfActive("stackError");
 		thrower.signalStackError();
 	}
 	
@@ -874,6 +929,7 @@ public class Cpu {
 		System.err.printf("\n**\n*** raising ERROR for reason: %s\n**\n", reason);
 		System.err.flush();
 		logTrapOrFault("** ** ** raising ERROR\n");
+		FlightRecorder.saveIfActive("ERROR: " + reason);
 		thrower.ERROR(reason);
 	}
 	
@@ -933,9 +989,15 @@ public class Cpu {
 	 *   => and checking time all ~ 1 ms should give an acceptable load by querying the time (even on faster machines)
 	 *   
 	 * corrected to 16k instructions, as real pilot based systems have at best 10 mips on same hardware
+	 * 
+	 * when the IT ticker thread is used, getting the time is cheap, so the timeout checks
+	 * can be done more often, giving a finer granularity for timeouts; the Dwarf specific
+	 * part of the checks (external data, ui refresh) still runs at most once per host
+	 * clock millisecond (see Processes.checkForTimeouts()).
 	 */
 	
 	private static final int TIMEOUT_THROTTLE_COUNT = 16 * 1024;
+	private static final int TICKER_TIMEOUT_THROTTLE_COUNT = 4 * 1024;
 	
 	/*
 	 * number of instructions executed so far for statistics
@@ -950,14 +1012,15 @@ public class Cpu {
 	public static String processor() {
 		try {
 			initialize();
-			int timeoutCountDown = TIMEOUT_THROTTLE_COUNT;
+			int timeoutThrottleCount = (useTicker) ? TICKER_TIMEOUT_THROTTLE_COUNT : TIMEOUT_THROTTLE_COUNT;
+			int timeoutCountDown = timeoutThrottleCount;
 			while(true) {
 				try {
 					boolean interrupt = Processes.checkforInterrupts();
 					boolean timeout = false;
 					if (timeoutCountDown < 1) {
 						timeout = Processes.checkForTimeouts();
-						timeoutCountDown = TIMEOUT_THROTTLE_COUNT; 
+						timeoutCountDown = timeoutThrottleCount; 
 					} else {
 						timeoutCountDown--;
 					}
@@ -972,10 +1035,16 @@ public class Cpu {
 						savedPC = PC;
 						savedSP = SP;
 						insns++;
-						Opcodes.dispatch(Mem.getNextCodeByte());
+						int opcode = Mem.getNextCodeByte();
+						if (FlightRecorder.active()) {
+							recordInstruction(opcode);
+						}
+						Opcodes.dispatch(opcode);
 					} else {
-						Processes.idle(); // wake up on interrupt but at latest after NOT_RUNNING_SLEEP_MSECS
-						timeoutCountDown = 0; // force timeout checks after sleeping 
+						if (!virtualTime || !Processes.fastForwardToNextTimeout()) {
+							Processes.idle(); // wake up on interrupt but at latest after NOT_RUNNING_SLEEP_MSECS
+						}
+						timeoutCountDown = 0; // force timeout checks after sleeping (resp. fast-forwarding)
 					}
 				} catch (MesaAbort ma) {
 					continue;
@@ -994,6 +1063,14 @@ public class Cpu {
 		// never reached ... return "Cpu.processor() ended normally(?)";
 	}
 	
+	private static void recordInstruction(int opcode) {
+		FlightRecorder.record(
+				insns, CB, savedPC, opcode, Mem.peekCodeOperandBytes(), SP,
+				(SP > 1) ? (stack[SP - 1] & 0xFFFF) | (stack[SP - 2] << 16) : (SP > 0) ? stack[SP - 1] & 0xFFFF : 0,
+				(SP > 3) ? (stack[SP - 3] & 0xFFFF) | (stack[SP - 4] << 16) : (SP > 2) ? stack[SP - 3] & 0xFFFF : 0,
+				LF, PSB);
+	}
+	
 	/*
 	 * low-level debugger
 	 */
@@ -0,0 +1,236 @@
+/*
+Copyright (c) 2026, the Dwarf contributors
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+    * Redistributions of source code must retain the above copyright
+      notice, this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * The name of the author may not be used to endorse or promote products
+      derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package dev.hawala.dmachine.engine;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.function.Supplier;
+
+import sun.misc.Unsafe;
+
+/**
+ * Export of the mesa display memory into a memory-mapped file, allowing
+ * external processes (recorders, test drivers etc.) to read the screen content
+ * by mapping the same file, without copying data through sockets or the Swing ui.
+ * <p>
+ * The export is updated by the mesa engine in the display refresh path
+ * (see {@link Processes#checkForTimeouts()}), copying only the display memory pages
+ * modified since the last update. The file has the following layout, with all
+ * values in big-endian byte order:
+ * </p>
+ * <pre>
+ *   offset  size  content
+ *   ------  ----  -------
+ *        0     4  magic 0x44574642 ('DWFB')
+ *        4     4  layout version (1)
+ *        8     4  display width in pixels
+ *       12     4  display height in scanlines
+ *       16     4  bits per pixel (1 = monochrome, 8 = byte color)
+ *       20     4  bytes per scanline in the bitmap
+ *       24     4  offset of the color table
+ *       28     4  number of color table entries (2 resp. 256)
+ *       32     4  offset of the bitmap
+ *       36     4  length of the bitmap in bytes
+ *       40     8  update generation, odd while an update is in progress
+ *       48     4  first scanline changed by the last update
+ *       52     4  last scanline changed by the last update
+ *       56     8  time of the last update (milliseconds since epoch)
+ *       64     ~  color table, each entry as 0x00rrggbb
+ *        ~     ~  bitmap, scanlines top to bottom
+ * </pre>
+ * <p>
+ * The bitmap is the mesa display memory: for monochrome displays a pixel is one
+ * bit with the leftmost pixel in the most significant bit of a byte and 1 being
+ * black; for byte color displays each pixel is a byte indexing the color table.
+ * </p>
+ * <p>
+ * A reader gets a consistent frame by reading the generation before and after
+ * copying the frame: the frame is valid if both values are equal and even, else the
+ * copy must be repeated. Polling the generation (or the dirty scanline range) allows
+ * to process only new frames resp. the changed parts of the display.
+ * The writes of the generation are separated from the writes of the frame by store
+ * fences, so the frame writes cannot be reordered across the generation writes;
+ * the reader must read the generation values and the frame in this order (e.g. by
+ * issuing load fences). If the store fence is not available in the Java runtime (a
+ * warning is issued in this case), the consistency check is only best-effort.
+ * </p>
+ *
+ * @author the Dwarf contributors (2026)
+ */
+public class DisplayExport {
+
+	private static final int MAGIC = 0x44574642;
+	private static final int VERSION = 1;
+
+	private static final int OFFSET_GENERATION = 40;
+	private static final int OFFSET_FIRST_LINE = 48;
+	private static final int OFFSET_LAST_LINE = 52;
+	private static final int OFFSET_TIMESTAMP = 56;
+	private static final int OFFSET_COLORTABLE = 64;
+
+	private final String fileName;
+	private final MappedByteBuffer buffer;
+	private final ShortBuffer bitmap;
+
+	private final Supplier<int[]> colorTableSupplier;
+	private final int colorTableEntries;
+	private final int wordsPerLine;
+	private final int bitmapWords;
+
+	private long generation = 0;
+
+	// the store fence for ordering the generation writes against the frame writes
+	// (Unsafe.storeFence() is the fence available with Java 8)
+	private static final Unsafe unsafe = getUnsafe();
+
+	private static Unsafe getUnsafe() {
+		try {
+			Field f = Unsafe.class.getDeclaredField("theUnsafe");
+			f.setAccessible(true);
+			return (Unsafe)f.get(null);
+		} catch (Exception | LinkageError e) {
+			System.out.printf("Warning: no store fence for the display export, consistency check is best-effort: %s\n", e.getMessage());
+			return null;
+		}
+	}
+
+	private static void storeFence() {
+		if (unsafe != null) {
+			unsafe.storeFence();
+		}
+	}
+
+	/**
+	 * Create the export file for the display configured in the mesa engine memory,
+	 * which must already be initialized.
+	 *
+	 * @param fileName the file to be mapped, preferably located on a memory file system
+	 * 		(like {@code /dev/shm} on Linux); an existing file is overwritten.
+	 * @param colorTableSupplier source for the current color table of a byte color
+	 * 		display, {@code null} for monochrome displays.
+	 * @throws IOException if the file cannot be created or mapped.
+	 */
+	public DisplayExport(String fileName, Supplier<int[]> colorTableSupplier) throws IOException {
+		boolean isColor = (Mem.getDisplayType() == PilotDefs.DisplayType.byteColor);
+		int width = Mem.getDisplayPixelWidth();
+		int height = Mem.getDisplayPixelHeight();
+
+		this.fileName = fileName;
+		this.colorTableSupplier = (isColor) ? colorTableSupplier : null;
+		this.colorTableEntries = (isColor) ? 256 : 2;
+		this.wordsPerLine = Mem.getDisplayWordsPerLine();
+		this.bitmapWords = this.wordsPerLine * height;
+
+		int bitmapOffset = ((OFFSET_COLORTABLE + (this.colorTableEntries * 4) + 63) / 64) * 64;
+		int bitmapBytes = this.bitmapWords * 2;
+
+		try (RandomAccessFile raf = new RandomAccessFile(fileName, "rw")) {
+			raf.setLength(0);
+			raf.setLength(bitmapOffset + bitmapBytes);
+			this.buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, bitmapOffset + bitmapBytes);
+		}
+		this.buffer.order(ByteOrder.BIG_ENDIAN);
+
+		this.buffer.putInt(0, MAGIC);
+		this.buffer.putInt(4, VERSION);
+		this.buffer.putInt(8, width);
+		this.buffer.putInt(12, height);
+		this.buffer.putInt(16, (isColor) ? 8 : 1);
+		this.buffer.putInt(20, this.wordsPerLine * 2);
+		this.buffer.putInt(24, OFFSET_COLORTABLE);
+		this.buffer.putInt(28, this.colorTableEntries);
+		this.buffer.putInt(32, bitmapOffset);
+		this.buffer.putInt(36, bitmapBytes);
+		this.buffer.putLong(OFFSET_GENERATION, this.generation);
+		this.buffer.putInt(OFFSET_FIRST_LINE, 0);
+		this.buffer.putInt(OFFSET_LAST_LINE, -1);
+		this.buffer.putLong(OFFSET_TIMESTAMP, 0);
+		if (!isColor) {
+			this.buffer.putInt(OFFSET_COLORTABLE, 0x00FFFFFF); // 0-bit: white
+			this.buffer.putInt(OFFSET_COLORTABLE + 4, 0x00000000); // 1-bit: black
+		}
+
+		this.buffer.position(bitmapOffset);
+		this.bitmap = this.buffer.slice().asShortBuffer(); // slice() is big-endian
+		this.buffer.position(0);
+	}
+
+	/**
+	 * @return the name of the export file.
+	 */
+	public String getFileName() {
+		return this.fileName;
+	}
+
+	/**
+	 * Copy the changed pages of the display memory to the export file, with the same
+	 * parameters as {@link iMesaMachineDataAccessor#accessRealMemory(short[], int, int, short[], int)}.
+	 */
+	public void update(short[] realMemory, int memOffset, int memWords, short[] pageFlags, int firstPage) {
+		this.buffer.putLong(OFFSET_GENERATION, ++this.generation); // odd: update in progress
+		storeFence();
+
+		int firstChanged = -1;
+		int lastChanged = -1;
+		int words = Math.min(memWords, this.bitmapWords);
+		int pageCount = (words + PrincOpsDefs.WORDS_PER_PAGE - 1) / PrincOpsDefs.WORDS_PER_PAGE;
+		for (int i = 0; i < pageCount; i++) {
+			if ((pageFlags[firstPage + i] & PrincOpsDefs.MAPFLAGS_DIRTY) == 0) { continue; }
+			int from = i * PrincOpsDefs.WORDS_PER_PAGE;
+			int count = Math.min(PrincOpsDefs.WORDS_PER_PAGE, words - from);
+			this.bitmap.position(from);
+			this.bitmap.put(realMemory, memOffset + from, count);
+			if (firstChanged < 0) { firstChanged = from; }
+			lastChanged = from + count - 1;
+		}
+
+		if (this.colorTableSupplier != null) {
+			int[] colorTable = this.colorTableSupplier.get();
+			int entries = Math.min(colorTable.length, this.colorTableEntries);
+			for (int i = 0; i < entries; i++) {
+				this.buffer.putInt(OFFSET_COLORTABLE + (i * 4), colorTable[i]);
+			}
+		}
+
+		if (firstChanged >= 0) {
+			this.buffer.putInt(OFFSET_FIRST_LINE, firstChanged / this.wordsPerLine);
+			this.buffer.putInt(OFFSET_LAST_LINE, lastChanged / this.wordsPerLine);
+		} else {
+			this.buffer.putInt(OFFSET_FIRST_LINE, 0);
+			this.buffer.putInt(OFFSET_LAST_LINE, -1);
+		}
+		this.buffer.putLong(OFFSET_TIMESTAMP, System.currentTimeMillis());
+		storeFence();
+		this.buffer.putLong(OFFSET_GENERATION, ++this.generation); // even: frame complete
+	}
+
+}
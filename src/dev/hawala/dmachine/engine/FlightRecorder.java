@@ -0,0 +1,283 @@
+/*
+Copyright (c) 2026, the Dwarf contributors
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+    * Redistributions of source code must retain the above copyright
+      notice, this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * The name of the author may not be used to endorse or promote products
+      derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package dev.hawala.dmachine.engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MutableCallSite;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Flight recorder for the instructions executed by the mesa engine.
+ * <p>
+ * Each instruction is recorded as a fixed-size binary record in a ring
+ * buffer with plain array stores (no formatting or allocation), so the
+ * recorder can stay switched on for normal operation. A record holds the
+ * instruction number, the code position (CB, PC), the opcode with the
+ * 3 following code bytes as operand bytes, the stack pointer and the
+ * top 4 stack words as well as the current local frame and process.
+ * </p>
+ * <p>
+ * The ring buffer is saved to a binary file when requested or when the
+ * mesa engine stops with a stack error or an {@code ERROR}; such a file
+ * is decoded offline with the {@code main()} method of this class, which
+ * renders the instructions using the opcode names and argument formats
+ * of the instruction implementations (see {@link Opcodes}).
+ * </p>
+ *
+ * @author the Dwarf contributors (2026)
+ */
+public class FlightRecorder {
+
+	/*
+	 * recording switch (see Trace for the MutableCallSite mechanics)
+	 */
+
+	private static final MutableCallSite activeSwitch = new MutableCallSite(MethodHandles.constant(boolean.class, false));
+	private static final MethodHandle activeProbe = activeSwitch.dynamicInvoker();
+	private static boolean isActive = false;
+
+	/**
+	 * @return {@code true} if instructions are to be recorded.
+	 */
+	public static boolean active() {
+		try {
+			return (boolean)activeProbe.invokeExact();
+		} catch (Throwable t) {
+			return false;
+		}
+	}
+
+	/**
+	 * Switch the recording of instructions.
+	 *
+	 * @param on the new recording state.
+	 */
+	public static synchronized void setActive(boolean on) {
+		if (isActive == on) { return; }
+		isActive = on;
+		activeSwitch.setTarget(MethodHandles.constant(boolean.class, on));
+		MutableCallSite.syncAll(new MutableCallSite[] { activeSwitch });
+	}
+
+	/*
+	 * ring buffer
+	 */
+
+	private static final int RECORD_COUNT = 0x20000; // must be a power of 2
+	private static final int RECORD_MASK = RECORD_COUNT - 1;
+	private static final int RECORD_INTS = 8;
+
+	// record layout (ints):
+	// [0] insn# (low 32 bits)
+	// [1] insn# (high 32 bits)
+	// [2] CB
+	// [3] PC (bits 0..15) , opcode (bits 16..23) , SP (bits 24..31)
+	// [4] the 3 code bytes following the opcode (first byte in bits 16..23)
+	// [5] stack[SP-1] (bits 0..15) , stack[SP-2] (bits 16..31)
+	// [6] stack[SP-3] (bits 0..15) , stack[SP-4] (bits 16..31)
+	// [7] LF (bits 0..15) , PSB (bits 16..31)
+	private static final int[] records = new int[RECORD_COUNT * RECORD_INTS];
+	private static long nextRecord = 0;
+
+	/**
+	 * Record an instruction (called by the mesa engine only).
+	 */
+	static void record(long insn, int cb, int pc, int opcode, int operandBytes, int sp, int tos01, int tos23, int lf, int psb) {
+		int r = (int)(nextRecord++ & RECORD_MASK) * RECORD_INTS;
+		records[r] = (int)insn;
+		records[r + 1] = (int)(insn >>> 32);
+		records[r + 2] = cb;
+		records[r + 3] = (pc & 0xFFFF) | (opcode << 16) | (sp << 24);
+		records[r + 4] = operandBytes;
+		records[r + 5] = tos01;
+		records[r + 6] = tos23;
+		records[r + 7] = (lf & 0xFFFF) | (psb << 16);
+	}
+
+	/*
+	 * saving the ring buffer
+	 */
+
+	private static final int FILE_MAGIC = 0x44774652; // "DwFR"
+	private static final int FILE_VERSION = 1;
+	private static final int FLAG_PRINCOPS_POST40 = 0x0001;
+
+	/**
+	 * Save the recorded instructions to a file named after the
+	 * current timestamp in the current directory (called in the
+	 * mesa engine thread).
+	 *
+	 * @param reason the cause for saving, written to the console.
+	 * @return the name of the file written or {@code null} if nothing
+	 *   was recorded or writing failed.
+	 */
+	public static String save(String reason) {
+		if (nextRecord == 0) { return null; }
+		String fn = "flightrecord_" + new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date()) + ".bin";
+		long last = nextRecord;
+		long first = Math.max(0, last - RECORD_COUNT);
+		try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fn)))) {
+			dos.writeInt(FILE_MAGIC);
+			dos.writeInt(FILE_VERSION);
+			dos.writeInt(Opcodes.isPrincOpsPost40() ? FLAG_PRINCOPS_POST40 : 0);
+			dos.writeInt((int)(last - first));
+			for (long rec = first; rec < last; rec++) {
+				int r = (int)(rec & RECORD_MASK) * RECORD_INTS;
+				for (int i = 0; i < RECORD_INTS; i++) {
+					dos.writeInt(records[r + i]);
+				}
+			}
+		} catch (IOException e) {
+			Cpu.logWarning(String.format("FlightRecorder: unable to write '%s': %s", fn, e.getMessage()));
+			return null;
+		}
+		Cpu.logInfo(String.format("FlightRecorder: saved %d instructions to '%s' (%s)", last - first, fn, reason));
+		return fn;
+	}
+
+	/**
+	 * Save the recorded instructions if the recorder is active (used when
+	 * the mesa engine encounters a fatal problem).
+	 *
+	 * @param reason the cause for saving, written to the console.
+	 */
+	public static void saveIfActive(String reason) {
+		if (isActive) {
+			save(reason);
+		}
+	}
+
+	/*
+	 * offline decoder
+	 */
+
+	private static String operands(String argFormat, int bytes) {
+		if (argFormat == null) { return ""; }
+		int b1 = (bytes >>> 16) & 0xFF;
+		int b2 = (bytes >>> 8) & 0xFF;
+		switch(argFormat) {
+		case "alpha": return String.format("(alpha=0x%02X)", b1);
+		case "salpha": return String.format("(alpha=%d)", (byte)b1);
+		case "pair": return String.format("(pair=0x%02X)", b1);
+		case "word": return String.format("(word=0x%04X)", (b1 << 8) | b2);
+		case "sword": return String.format("(word=%d)", (short)((b1 << 8) | b2));
+		case "alphabeta": return String.format("(alpha=0x%02X , beta=0x%02X)", b1, b2);
+		case "alphasbeta": return String.format("(alpha=0x%02X , sbeta=%d)", b1, (byte)b2);
+		default: return "";
+		}
+	}
+
+	/**
+	 * Decode a flight recorder file to readable text.
+	 *
+	 * @param fn the name of the flight recorder file.
+	 * @param withStack write the stack content before each instruction?
+	 * @param ps the stream to write the decoded instructions to.
+	 */
+	public static void decode(String fn, boolean withStack, PrintStream ps) throws IOException {
+		try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(fn)))) {
+			if (dis.readInt() != FILE_MAGIC || dis.readInt() != FILE_VERSION) {
+				throw new IOException("not a flight recorder file (or unsupported version)");
+			}
+			if ((dis.readInt() & FLAG_PRINCOPS_POST40) != 0) {
+				Opcodes.initializeInstructionsPrincOpsPost40();
+			} else {
+				Opcodes.initializeInstructionsPrincOps40();
+			}
+			int count = dis.readInt();
+			int[] rec = new int[RECORD_INTS];
+			for (int n = 0; n < count; n++) {
+				for (int i = 0; i < RECORD_INTS; i++) {
+					rec[i] = dis.readInt();
+				}
+				long insn = (rec[0] & 0xFFFFFFFFL) | ((long)rec[1] << 32);
+				int pc = rec[3] & 0xFFFF;
+				int opcode = (rec[3] >>> 16) & 0xFF;
+				int sp = (rec[3] >>> 24) & 0xFF;
+				int bytes = rec[4];
+
+				if (withStack) {
+					int[] tos = { rec[5] & 0xFFFF, rec[5] >>> 16, rec[6] & 0xFFFF, rec[6] >>> 16 };
+					ps.printf("stack[%02d] ", sp);
+					for (int i = Math.min(sp, tos.length) - 1; i >= 0; i--) {
+						ps.printf(" 0x%04X", tos[i]);
+					}
+					ps.printf("   (LF: 0x%04X , PSB: %d)\n", rec[7] & 0xFFFF, rec[7] >>> 16);
+				}
+
+				String name;
+				String args;
+				if (opcode == Opcodes.zESC || opcode == Opcodes.zESCL) {
+					int escCode = (bytes >>> 16) & 0xFF;
+					name = Opcodes.escNames[escCode];
+					args = operands(Opcodes.escArgFormats[escCode], bytes << 8);
+				} else {
+					name = Opcodes.opcNames[opcode];
+					args = operands(Opcodes.opcArgFormats[opcode], bytes);
+				}
+				ps.printf("%06d: 0x%08X+0x%04X %s%s\n", insn, rec[2], pc, name, args);
+			}
+		} catch (EOFException e) {
+			ps.println("** flight recorder file is truncated");
+		}
+	}
+
+	/**
+	 * Flight recorder file decoder.
+	 *
+	 * @param args the file name, optionally preceded by {@code -stack} for
+	 *   writing the stack content before each instruction.
+	 */
+	public static void main(String[] args) throws IOException {
+		boolean withStack = false;
+		String fn = null;
+		for (String arg : args) {
+			if ("-stack".equalsIgnoreCase(arg)) {
+				withStack = true;
+			} else {
+				fn = arg;
+			}
+		}
+		if (fn == null) {
+			System.out.println("Usage: FlightRecorder [-stack] <flightrecord-file>");
+			return;
+		}
+		decode(fn, withStack, System.out);
+	}
+
+}
@@ -52,6 +52,10 @@ public class Mem {
 	// (defined at package-level to allow class Processes to access it for handling UI screen refresh) 
 	static short[] pageFlags = null;
 	
+	// virtual memory part 3: virtual pages for which writes must be notified to caches
+	// holding data derived from memory content (see section "write watching" below)
+	private static byte[] writeWatched = null;
+	
 	// number of address-bits in virtual and real addresses (externally configured)
 	private static int addressBitsVirtual = 0;
 	private static int addressBitsReal = 0;
@@ -139,6 +143,8 @@ public class Mem {
 		mem = new short[wordCount + (displayPageSize * PrincOpsDefs.WORDS_PER_PAGE)];
 		pageMap = new int[virtualPageCount + displayPageSize];
 		pageFlags = new short[virtualPageCount + displayPageSize];
+		writeWatched = new byte[virtualPageCount + displayPageSize];
+		invalidateWriteWatchers(WATCH_ALL);
 		lastVirtualAddress = (PrincOpsDefs.WORDS_PER_PAGE * virtualPageCount) - 1;
 		lastVirtualPage = virtualPageCount - 1;
 		lastRealPage = realPageCount - 1;
@@ -296,6 +302,7 @@ public class Mem {
 			dBreak_displayType = 1;
 		}
 		displayPageSize = 256; // largescreen: 18 * 4 * 861 / 256 => 242.15625 pages
+		effectivePixelsPerLine = displayPixelWidth;
 		activeDisplayType = PilotDefs.DisplayType.monochrome;
 		
 		// allocate real memory and virtual memory map
@@ -305,6 +312,8 @@ public class Mem {
 		mem = new short[ realPageCount * PrincOpsDefs.WORDS_PER_PAGE ];
 		pageMap = new int[virtualPageCount];
 		pageFlags = new short[virtualPageCount];
+		writeWatched = new byte[virtualPageCount];
+		invalidateWriteWatchers(WATCH_ALL);
 		lastVirtualAddress = (PrincOpsDefs.WORDS_PER_PAGE * virtualPageCount) - 1;
 		lastVirtualPage = virtualPageCount - 1;
 		lastRealPage = realPageCount - 1;
@@ -479,6 +488,8 @@ public class Mem {
 		if (_lastMdsVpageRead == oldVirtualPageBase) { _lastMdsVpageRead = -1; }
 		if (_lastMdsVpageWritten == oldVirtualPageBase) { _lastMdsVpageWritten = -1; }
 		if (_lastCodeVpageRead == oldVirtualPageBase) { _lastCodeVpageRead = -1; }
+		writeWatched[virtualPageNo] = 0; // the caches watch the page again when reloading their entries
+		invalidateWriteWatchers(WATCH_ALL);
 		// end clear page caches
 		
 		if (isVacant(flags)) {
@@ -527,6 +538,7 @@ public class Mem {
 		short currFlags = pageFlags[virtualPageNo];
 		if (!isVacant(currFlags)) {
 			pageFlags[virtualPageNo] = newFlags;
+			invalidateWriteWatchers(WATCH_ALL);
 		}
 		return currFlags;
 	}
@@ -620,6 +632,10 @@ public class Mem {
 				Cpu.signalWriteProtectFault(longPointer);
 				return 0; // dummy, signalPageFault() does not return
 			}
+			int watchers = writeWatched[pageNo];
+			if (watchers != 0) {
+				invalidateWriteWatchers(watchers);
+			}
 			flags |= PrincOpsDefs.MAPFLAGS_REFERENCED | PrincOpsDefs.MAPFLAGS_DIRTY;
 		} else {
 			flags |= PrincOpsDefs.MAPFLAGS_REFERENCED;
@@ -635,6 +651,67 @@ public class Mem {
 		return realBasePointer + (longPointer & 0x000000FF);
 	}
 	
+	/*
+	 * write watching
+	 * 
+	 * Caches outside this class holding data derived from memory content (e.g. the
+	 * control link resolution in Xfer) register the virtual pages they depend on
+	 * as write-watched for their watch channel. Any write to a watched page increments
+	 * the write-watch generation of the channel(s) watching the page, and any change to
+	 * the virtual memory map increments the generations of all channels, so such a cache
+	 * entry is valid as long as the generation of its channel did not change since the
+	 * entry was loaded.
+	 * Remapping a virtual page ends watching it, as its new content is not known to be
+	 * still used by a cache: a cache reloading its entries after the generation change
+	 * registers the pages it depends on again.
+	 * Writes to watched pages are never served from the write page caches, so each
+	 * write to such a page will pass through getRealAddress().
+	 * (the PrincOps map flags cannot be used for this, as the dirty flags are owned
+	 * by the mesa program resp. Pilot)
+	 */
+	
+	public static final int WATCH_XFER_LINKS = 0; // watch channel for control link resolution
+	public static final int WATCH_FRAME_ALLOC = 1; // watch channel for local frame allocation
+	private static final int WATCH_CHANNELS = 2;
+	private static final int WATCH_ALL = (1 << WATCH_CHANNELS) - 1;
+	
+	private static final int[] writeWatchGenerations = { 1, 1 };
+	
+	private static void invalidateWriteWatchers(int watchers) {
+		for (int channel = 0; channel < WATCH_CHANNELS; channel++) {
+			if ((watchers & (1 << channel)) != 0) {
+				writeWatchGenerations[channel]++;
+			}
+		}
+	}
+	
+	public static int getWriteWatchGeneration(int channel) {
+		return writeWatchGenerations[channel];
+	}
+	
+	public static void watchWrites(int longPointer, int channel) {
+		int pageNo = longPointer >>> PrincOpsDefs.ADDRESSBITS_IN_PAGE;
+		int watcher = 1 << channel;
+		if (pageNo > lastVirtualPage || (writeWatched[pageNo] & watcher) != 0) { return; }
+		writeWatched[pageNo] |= watcher;
+		
+		// ensure the next write to this page is not served by a write cache
+		int vPage = longPointer & 0xFFFFFF00;
+		if (_lastLpVpageWritten == vPage) { _lastLpVpageWritten = -1; }
+		if (_lastMdsVpageWritten == vPage) { _lastMdsVpageWritten = -1; }
+	}
+	
+	public static void unwatchWrites(int longPointer, int channel) {
+		int pageNo = longPointer >>> PrincOpsDefs.ADDRESSBITS_IN_PAGE;
+		if (pageNo > lastVirtualPage) { return; }
+		writeWatched[pageNo] &= ~(1 << channel);
+	}
+	
+	// the write caches may only keep the page if it is not watched 
+	private static int cacheableWritePage(int vPage) {
+		return (writeWatched[vPage >>> PrincOpsDefs.ADDRESSBITS_IN_PAGE] != 0) ? -1 : vPage;
+	}
+	
 	/*
 	 * special read function for debugging, returning 0xFFFF when unmapped 
 	 */
@@ -659,8 +736,16 @@ public class Mem {
 	
 	public static boolean doLog = true;
 	
-	private static void memLogf(String format, Object... args) {
-		if (Config.LOG_MEM_ACCESS && doLog) { Cpu.logf(format, args); }
+	private static void memTrace(String format, int a0, int a1) {
+		if (doLog) { Trace.record(Trace.Category.mem, format, a0, a1); }
+	}
+	
+	private static void memTrace(String format, int a0, int a1, int a2) {
+		if (doLog) { Trace.record(Trace.Category.mem, format, a0, a1, a2); }
+	}
+	
+	private static void memTrace(String format, int a0, int a1, int a2, int a3) {
+		if (doLog) { Trace.record(Trace.Category.mem, format, a0, a1, a2, a3); }
 	}
 	
 	/*
@@ -720,7 +805,7 @@ public class Mem {
 		int vPage = ptr & 0xFFFFFF00;
 		if (vPage != _lastLpVpageWritten) {
 			_lastLpRpageWritten = getRealAddress(vPage, true);
-			_lastLpVpageWritten = vPage;
+			_lastLpVpageWritten = cacheableWritePage(vPage);
 		}
 		mem[_lastLpRpageWritten | (ptr & 0x000000FF)] = value;
 		
@@ -755,16 +840,16 @@ public class Mem {
 	
 	public static short readWord(int longPointer) {
 		short w = _readLpWord(longPointer);
-		if (Config.LOG_MEM_ACCESS) {
-			memLogf(".. readWord( lp = 0x%08X )  -> 0x%04X\n", longPointer, w & 0xFFFF);
+		if (Trace.mem()) {
+			memTrace(".. readWord( lp = 0x%08X )  -> 0x%04X\n", longPointer, w & 0xFFFF);
 		}
 		return w;
 	}
 	
 	public static void writeWord(int longPointer, short word) {
 		_writeLpWord(longPointer, word);
-		if (Config.LOG_MEM_ACCESS) {
-			memLogf(".. writeWord( lp = 0x%08X , 0x%04X )\n", longPointer, word & 0xFFFF);
+		if (Trace.mem()) {
+			memTrace(".. writeWord( lp = 0x%08X , 0x%04X )\n", longPointer, word & 0xFFFF);
 		}
 	}
 	
@@ -772,8 +857,8 @@ public class Mem {
 		short low = _readLpWord(longPointer);
 		short high = _readLpWord(longPointer + 1);
 		int dbl = (high << 16) | (low & 0x0000FFFF);
-		if (Config.LOG_MEM_ACCESS) {
-			memLogf(".. readDblWord( lp = 0x%08X )  -> 0x%08X\n", longPointer, dbl);
+		if (Trace.mem()) {
+			memTrace(".. readDblWord( lp = 0x%08X )  -> 0x%08X\n", longPointer, dbl);
 		}
 		return dbl;
 	}
@@ -781,8 +866,8 @@ public class Mem {
 	public static void writeDblWord(int longPointer, int dblword) {
 		_writeLpWord(longPointer, (short)(dblword & 0xFFFF));
 		_writeLpWord(longPointer + 1, (short)(dblword >>> 16));
-		if (Config.LOG_MEM_ACCESS) {
-			memLogf(".. writeDblWord( lp = 0x%08X , 0x%08X )\n", longPointer, dblword);
+		if (Trace.mem()) {
+			memTrace(".. writeDblWord( lp = 0x%08X , 0x%08X )\n", longPointer, dblword);
 		}
 	}
 	
@@ -838,7 +923,7 @@ public class Mem {
 		int vPage = ptr & 0xFFFFFF00;
 		if (vPage != _lastMdsVpageWritten) {
 			_lastMdsRpageWritten = getRealAddress(vPage, true);
-			_lastMdsVpageWritten = vPage;
+			_lastMdsVpageWritten = cacheableWritePage(vPage);
 		} 
 		mem[_lastMdsRpageWritten | (ptr & 0x000000FF)] = value;
 		
@@ -873,45 +958,45 @@ public class Mem {
 	
 	public static short readMDSWord(int pointer) {
 		short w = _readLengthenedMDSWord(Cpu.lengthenPointer(pointer));
-		if (Config.LOG_MEM_ACCESS) {
-			memLogf(".. readMDSWord( p = 0x%04X )  -> 0x%04X\n", pointer, w & 0xFFFF);
+		if (Trace.mem()) {
+			memTrace(".. readMDSWord( p = 0x%04X )  -> 0x%04X\n", pointer, w & 0xFFFF);
 		}
 		return w;
 	}
 	
 	public static short readMDSWord(int pointer, int offset) {
 		short w = _readLengthenedMDSWord(Cpu.lengthenPointer(pointer + offset));
-		if (Config.LOG_MEM_ACCESS) {
-			memLogf(".. readMDSWord( p = 0x%04X [0x%04X+0x%04X] )  -> 0x%04X\n", pointer+offset, pointer, offset, w & 0xFFFF);
+		if (Trace.mem()) {
+			memTrace(".. readMDSWord( p = 0x%04X [0x%04X+0x%04X] )  -> 0x%04X\n", pointer+offset, pointer, offset, w & 0xFFFF);
 		}
 		return w;
 	}
 	
 	public static void writeMDSWord(int pointer, short value) {
 		_writeLengthenedMDSWord(Cpu.lengthenPointer(pointer), value);
-		if (Config.LOG_MEM_ACCESS) {
-			memLogf(".. writeMDSWord( p = 0x%04X , 0x%04X )\n", pointer, value & 0xFFFF);
+		if (Trace.mem()) {
+			memTrace(".. writeMDSWord( p = 0x%04X , 0x%04X )\n", pointer, value & 0xFFFF);
 		}
 	}
 	
 	public static void writeMDSWord(int pointer, int offset, short value) {
 		_writeLengthenedMDSWord(Cpu.lengthenPointer(pointer + offset), value);
-		if (Config.LOG_MEM_ACCESS) {
-			memLogf(".. writeMDSWord( p = 0x%04X [0x%04X+0x%04X] , 0x%04X )\n", pointer+offset, pointer, offset, value & 0xFFFF);
+		if (Trace.mem()) {
+			memTrace(".. writeMDSWord( p = 0x%04X [0x%04X+0x%04X] , 0x%04X )\n", pointer+offset, pointer, offset, value & 0xFFFF);
 		}
 	}
 	
 	public static void writeMDSWord(int pointer, int value) {
 		_writeLengthenedMDSWord(Cpu.lengthenPointer(pointer), (short)(value & 0xFFFF));
-		if (Config.LOG_MEM_ACCESS) {
-			memLogf(".. writeMDSWord( p = 0x%04X , 0x%04X )\n", pointer, value & 0xFFFF);
+		if (Trace.mem()) {
+			memTrace(".. writeMDSWord( p = 0x%04X , 0x%04X )\n", pointer, value & 0xFFFF);
 		}
 	}
 	
 	public static void writeMDSWord(int pointer, int offset, int value) {
 		_writeLengthenedMDSWord(Cpu.lengthenPointer(pointer + offset), (short)(value & 0xFFFF));
-		if (Config.LOG_MEM_ACCESS) {
-			memLogf(".. writeMDSWord( p = 0x%04X [0x%04X+0x%04X] , 0x%04X )\n", pointer+offset, pointer, offset, value & 0xFFFF);
+		if (Trace.mem()) {
+			memTrace(".. writeMDSWord( p = 0x%04X [0x%04X+0x%04X] , 0x%04X )\n", pointer+offset, pointer, offset, value & 0xFFFF);
 		}
 	}
 	
@@ -920,8 +1005,8 @@ public class Mem {
 		short low = _readLengthenedMDSWord(ptr);
 		short high = _readLengthenedMDSWord(ptr + 1);
 		int dbl = (high << 16) | (low & 0x0000FFFF);
-		if (Config.LOG_MEM_ACCESS) {
-			memLogf(".. readMDSDblWord( p = 0x%04X )  -> 0x%08X\n", pointer, dbl);
+		if (Trace.mem()) {
+			memTrace(".. readMDSDblWord( p = 0x%04X )  -> 0x%08X\n", pointer, dbl);
 		}
 		return dbl;
 	}
@@ -931,8 +1016,8 @@ public class Mem {
 		short low = _readLengthenedMDSWord(ptr);
 		short high = _readLengthenedMDSWord(ptr + 1);
 		int dbl = (high << 16) | (low & 0x0000FFFF);
-		if (Config.LOG_MEM_ACCESS) {
-			memLogf(".. readMDSDblWord( p = 0x%04X [0x%04X+0x%04X] )  -> 0x%08X\n", pointer+offset, pointer, offset, dbl);
+		if (Trace.mem()) {
+			memTrace(".. readMDSDblWord( p = 0x%04X [0x%04X+0x%04X] )  -> 0x%08X\n", pointer+offset, pointer, offset, dbl);
 		}
 		return dbl;
 	}
@@ -941,8 +1026,8 @@ public class Mem {
 		int ptr = Cpu.lengthenPointer(pointer);
 		_writeLengthenedMDSWord(ptr, (short)(value & 0xFFFF));
 		_writeLengthenedMDSWord(ptr + 1, (short)(value >>> 16));
-		if (Config.LOG_MEM_ACCESS) {
-			memLogf(".. writeMDSDblWord( p = 0x%04X , 0x%08X )\n", pointer, value);
+		if (Trace.mem()) {
+			memTrace(".. writeMDSDblWord( p = 0x%04X , 0x%08X )\n", pointer, value);
 		}
 	}
 	
@@ -950,8 +1035,8 @@ public class Mem {
 		int ptr = Cpu.lengthenPointer(pointer + offset);
 		_writeLengthenedMDSWord(ptr, (short)(value & 0xFFFF));
 		_writeLengthenedMDSWord(ptr + 1, (short)(value >>> 16));
-		if (Config.LOG_MEM_ACCESS) {
-			memLogf(".. writeMDSDblWord( p = 0x%04X [0x%04X+0x%04X] , 0x%08X )\n", pointer+offset, pointer, offset, value);
+		if (Trace.mem()) {
+			memTrace(".. writeMDSDblWord( p = 0x%04X [0x%04X+0x%04X] , 0x%08X )\n", pointer+offset, pointer, offset, value);
 		}
 	}	
 	
@@ -987,6 +1072,7 @@ public class Mem {
 			codeWord = (codeWord & 0xFF00) | codeByte;
 		}
 		mem[rPtr] = (short)codeWord;
+		invalidateWriteWatchers(WATCH_ALL);
 	}
 	
 	private static int _lastCodeVpageRead = 0;
@@ -1032,6 +1118,20 @@ public class Mem {
 		return value;
 	}
 	
+	// for the flight recorder: the 3 code bytes following the current PC, read without
+	// faulting or changing the page flags (unmapped code bytes are returned as 0xFF)
+	public static int peekCodeOperandBytes() {
+		int ptr = Cpu.CB + (Cpu.PC >> 1);
+		int code;
+		if ((ptr & 0xFFFFFF00) == _lastCodeVpageRead && (ptr & 0x000000FF) != 0x000000FF) {
+			int rPtr = _lastCodeRpageRead | (ptr & 0x000000FF);
+			code = (mem[rPtr] << 16) | (mem[rPtr + 1] & 0xFFFF);
+		} else {
+			code = (rawRead(ptr) << 16) | (rawRead(ptr + 1) & 0xFFFF);
+		}
+		return ((Cpu.PC & 0x0001) == 0) ? code >>> 8 : code & 0x00FFFFFF;
+	}
+	
 	public static short readCode(short offset) {
 		return _readLengthenedCodeWord(Cpu.CB + (offset & 0xFFFF)); // make offset unsigned
 	}
@@ -1107,6 +1207,295 @@ public class Mem {
 		return (short)((sourceWord & (~mask)) | data);
 	}
 	
+	/*
+	 * block transfers
+	 * 
+	 * The block transfer instructions copy words in spans limited by the page boundaries
+	 * of source and destination, so each page is translated only once and the words of a
+	 * span are moved with System.arraycopy(). A span copy has the same effect as moving
+	 * the words one by one in the instruction's direction, including the "ripple" effect
+	 * when the destination overlaps the source (used by mesa programs to fill memory),
+	 * and a page fault can only occur before the first word of the span is copied.
+	 */
+	
+	/**
+	 * Copy the first words of a block in ascending address order, up to the next
+	 * page boundary of source or destination.
+	 * 
+	 * @param srcLp long pointer to the first source word
+	 * @param dstLp long pointer to the first destination word
+	 * @param count the number of words remaining to be copied
+	 * @return the number of words copied
+	 */
+	public static int copyWordSpan(int srcLp, int dstLp, int count) {
+		int n = Math.min(count, Math.min(
+				PrincOpsDefs.WORDS_PER_PAGE - (srcLp & 0x000000FF),
+				PrincOpsDefs.WORDS_PER_PAGE - (dstLp & 0x000000FF)));
+		if (n <= 0) { return 0; }
+		
+		int rSrc = getRealAddress(srcLp, false);
+		int rDst = getRealAddress(dstLp, true);
+		if (rDst > rSrc && rDst < (rSrc + n)) {
+			for (int i = 0; i < n; i++) {
+				mem[rDst + i] = mem[rSrc + i];
+			}
+		} else {
+			System.arraycopy(mem, rSrc, mem, rDst, n);
+		}
+		
+		if (Trace.mem()) {
+			memTrace(".. copyWordSpan( src = 0x%08X , dst = 0x%08X , count = %d ) -> %d words\n", srcLp, dstLp, count, n);
+		}
+		return n;
+	}
+	
+	/**
+	 * Copy the last words of a block in descending address order, down to the previous
+	 * page boundary of source or destination.
+	 * 
+	 * @param srcLp long pointer to the first source word of the block
+	 * @param dstLp long pointer to the first destination word of the block
+	 * @param count the number of words remaining to be copied
+	 * @return the number of words copied from the end of the block
+	 */
+	public static int copyWordSpanReversed(int srcLp, int dstLp, int count) {
+		if (count <= 0) { return 0; }
+		int srcLast = srcLp + count - 1;
+		int dstLast = dstLp + count - 1;
+		int n = Math.min(count, Math.min((srcLast & 0x000000FF) + 1, (dstLast & 0x000000FF) + 1));
+		
+		int rSrc = getRealAddress(srcLast, false) - n + 1;
+		int rDst = getRealAddress(dstLast, true) - n + 1;
+		if (rSrc > rDst && rSrc < (rDst + n)) {
+			for (int i = n - 1; i >= 0; i--) {
+				mem[rDst + i] = mem[rSrc + i];
+			}
+		} else {
+			System.arraycopy(mem, rSrc, mem, rDst, n);
+		}
+		
+		if (Trace.mem()) {
+			memTrace(".. copyWordSpanReversed( src = 0x%08X , dst = 0x%08X , count = %d ) -> %d words\n", srcLp, dstLp, count, n);
+		}
+		return n;
+	}
+	
+	/**
+	 * Copy the first bytes of a byte block in ascending byte order, up to the next
+	 * page boundary of source or destination.
+	 * 
+	 * @param srcLp long pointer to the source base word
+	 * @param srcOffset byte offset of the first source byte relative to {@code srcLp}
+	 * @param dstLp long pointer to the destination base word
+	 * @param dstOffset byte offset of the first destination byte relative to {@code dstLp}
+	 * @param count the number of bytes remaining to be copied
+	 * @return the number of bytes copied
+	 */
+	public static int copyByteSpan(int srcLp, int srcOffset, int dstLp, int dstOffset, int count) {
+		int srcWordLp = srcLp + (srcOffset >>> 1);
+		int dstWordLp = dstLp + (dstOffset >>> 1);
+		int n = Math.min(count, Math.min(
+				(wordsToPageEnd(srcWordLp) * 2) - (srcOffset & 1),
+				(wordsToPageEnd(dstWordLp) * 2) - (dstOffset & 1)));
+		if (n <= 0) { return 0; }
+		
+		moveByteSpan(srcWordLp, srcOffset & 1, dstWordLp, dstOffset & 1, n, false);
+		return n;
+	}
+	
+	/**
+	 * Copy the last bytes of a byte block in descending byte order, down to the previous
+	 * page boundary of source or destination.
+	 * 
+	 * @param srcLp long pointer to the source base word
+	 * @param srcOffset byte offset of the first source byte relative to {@code srcLp}
+	 * @param dstLp long pointer to the destination base word
+	 * @param dstOffset byte offset of the first destination byte relative to {@code dstLp}
+	 * @param count the number of bytes remaining to be copied
+	 * @return the number of bytes copied from the end of the block
+	 */
+	public static int copyByteSpanReversed(int srcLp, int srcOffset, int dstLp, int dstOffset, int count) {
+		if (count <= 0) { return 0; }
+		int srcLast = srcOffset + count - 1;
+		int dstLast = dstOffset + count - 1;
+		int n = Math.min(count, Math.min(
+				(((srcLp + (srcLast >>> 1)) & 0x000000FF) * 2) + (srcLast & 1) + 1,
+				(((dstLp + (dstLast >>> 1)) & 0x000000FF) * 2) + (dstLast & 1) + 1));
+		
+		int srcFirst = srcLast - n + 1;
+		int dstFirst = dstLast - n + 1;
+		moveByteSpan(srcLp + (srcFirst >>> 1), srcFirst & 1, dstLp + (dstFirst >>> 1), dstFirst & 1, n, true);
+		return n;
+	}
+	
+	private static int getRealByte(int realByteAddr) {
+		int w = mem[realByteAddr >>> 1];
+		return ((realByteAddr & 1) == 0) ? (w >> 8) & 0x00FF : w & 0x00FF;
+	}
+	
+	private static void putRealByte(int realByteAddr, int b) {
+		int rPtr = realByteAddr >>> 1;
+		if ((realByteAddr & 1) == 0) {
+			mem[rPtr] = (short)((b << 8) | (mem[rPtr] & 0x00FF));
+		} else {
+			mem[rPtr] = (short)((mem[rPtr] & 0xFF00) | b);
+		}
+	}
+	
+	private static void moveByteSpan(int srcWordLp, int srcOdd, int dstWordLp, int dstOdd, int n, boolean reversed) {
+		int sb = (getRealAddress(srcWordLp, false) << 1) | srcOdd;
+		int db = (getRealAddress(dstWordLp, true) << 1) | dstOdd;
+		
+		if (db < (sb + n) && sb < (db + n)) {
+			// overlapping: move byte by byte in the instruction's direction
+			if (reversed) {
+				for (int i = n - 1; i >= 0; i--) {
+					putRealByte(db + i, getRealByte(sb + i));
+				}
+			} else {
+				for (int i = 0; i < n; i++) {
+					putRealByte(db + i, getRealByte(sb + i));
+				}
+			}
+			return;
+		}
+		
+		int i = 0;
+		if (srcOdd == dstOdd) {
+			// aligned: copy the words between the leading and trailing odd bytes
+			if (srcOdd != 0) {
+				putRealByte(db, getRealByte(sb));
+				i = 1;
+			}
+			int words = (n - i) >>> 1;
+			System.arraycopy(mem, (sb + i) >>> 1, mem, (db + i) >>> 1, words);
+			i += words * 2;
+		} else {
+			// shifted: after aligning the destination, each destination word
+			// is merged from the low byte resp. high byte of 2 source words
+			if (dstOdd != 0) {
+				putRealByte(db, getRealByte(sb));
+				i = 1;
+			}
+			int s = (sb + i) >>> 1;
+			int d = (db + i) >>> 1;
+			for (; (i + 2) <= n; i += 2) {
+				mem[d++] = (short)((mem[s] << 8) | ((mem[s + 1] >> 8) & 0x00FF));
+				s++;
+			}
+		}
+		if (i < n) {
+			putRealByte(db + i, getRealByte(sb + i));
+		}
+	}
+	
+	/**
+	 * Compare the first words of two blocks, up to the next page boundary of
+	 * either block.
+	 * 
+	 * @param lp1 long pointer to the first word of the first block
+	 * @param lp2 long pointer to the first word of the second block
+	 * @param count the number of words remaining to be compared
+	 * @return the number of words found equal or -1 if the span has a difference
+	 */
+	public static int compareWordSpan(int lp1, int lp2, int count) {
+		int n = Math.min(count, Math.min(
+				PrincOpsDefs.WORDS_PER_PAGE - (lp1 & 0x000000FF),
+				PrincOpsDefs.WORDS_PER_PAGE - (lp2 & 0x000000FF)));
+		if (n <= 0) { return 0; }
+		
+		int r1 = getRealAddress(lp1, false);
+		int r2 = getRealAddress(lp2, false);
+		for (int i = 0; i < n; i++) {
+			if (mem[r1 + i] != mem[r2 + i]) {
+				return -1;
+			}
+		}
+		return n;
+	}
+	
+	/**
+	 * Get the number of words from a long pointer up to the end of its page.
+	 */
+	public static int wordsToPageEnd(int lp) {
+		return PrincOpsDefs.WORDS_PER_PAGE - (lp & 0x000000FF);
+	}
+	
+	/**
+	 * Continue a PrincOps (CKSUM) checksum over words in a single page.
+	 * <p>
+	 * Each checksum step is a ones-complement add followed by a left rotate, which
+	 * both are arithmetic modulo 0xFFFF (with 0xFFFF representing a non-initial zero),
+	 * so the loop can combine 4 words in one step and fold the carries only
+	 * once per step.
+	 * </p>
+	 * 
+	 * @param cksum the checksum so far
+	 * @param lp long pointer to the first word to add to the checksum
+	 * @param count the number of words to add, which must not cross a page boundary
+	 * @return the new checksum
+	 */
+	public static int checksumWords(int cksum, int lp, int count) {
+		if (count <= 0) { return cksum; }
+		if (count > wordsToPageEnd(lp)) {
+			Cpu.ERROR("checksumWords :: span crosses page boundary");
+		}
+		
+		int rPtr = getRealAddress(lp, false);
+		int end = rPtr + count;
+		int acc = cksum & 0xFFFF;
+		int any = acc;
+		int i = rPtr;
+		for (; i + 4 <= end; i += 4) {
+			int d0 = mem[i] & 0xFFFF;
+			int d1 = mem[i + 1] & 0xFFFF;
+			int d2 = mem[i + 2] & 0xFFFF;
+			int d3 = mem[i + 3] & 0xFFFF;
+			any |= d0 | d1 | d2 | d3;
+			acc = (acc << 4) + (d0 << 4) + (d1 << 3) + (d2 << 2) + (d3 << 1);
+			acc = (acc & 0xFFFF) + (acc >>> 16);
+		}
+		for (; i < end; i++) {
+			int d = mem[i] & 0xFFFF;
+			any |= d;
+			acc = (acc + d) << 1;
+			acc = (acc & 0xFFFF) + (acc >>> 16);
+		}
+		
+		// the checksum stays 0 only as long as all values added were 0
+		if (any == 0) { return 0; }
+		acc %= 0xFFFF;
+		return (acc == 0) ? 0xFFFF : acc;
+	}
+	
+	/*
+	 * prevalidated access
+	 * 
+	 * A memory range can be checked in advance by touchWords() on the CPU thread, with
+	 * the same effects on the map flags and on write watching as real accesses (possibly
+	 * raising a page or write protect fault), allowing to access the range afterwards with
+	 * the prevalidated read/write functions from other threads, while the CPU thread waits
+	 * for these threads to complete (so the virtual memory map cannot change meanwhile).
+	 * These functions do not use the page caches, as these are not thread-safe. 
+	 */
+	
+	public static void touchWords(int longPointer, int count, boolean forWrite) {
+		if (count <= 0) { return; }
+		int last = longPointer + count - 1;
+		getRealAddress(longPointer, forWrite);
+		for (int page = (longPointer & 0xFFFFFF00) + PrincOpsDefs.WORDS_PER_PAGE; page <= last; page += PrincOpsDefs.WORDS_PER_PAGE) {
+			getRealAddress(page, forWrite);
+		}
+	}
+	
+	public static short readWordPrevalidated(int longPointer) {
+		return mem[pageMap[longPointer >>> PrincOpsDefs.ADDRESSBITS_IN_PAGE] + (longPointer & 0x000000FF)];
+	}
+	
+	public static void writeWordPrevalidated(int longPointer, short word) {
+		mem[pageMap[longPointer >>> PrincOpsDefs.ADDRESSBITS_IN_PAGE] + (longPointer & 0x000000FF)] = word;
+	}
+	
 	/*
 	 * display mapping and access
 	 */
@@ -1184,6 +1573,10 @@ public class Mem {
 		return displayPixelHeight;
 	}
 	
+	public static int getDisplayWordsPerLine() {
+		return (effectivePixelsPerLine * activeDisplayType.getBitDepth()) / PrincOpsDefs.WORD_BITS;
+	}
+	
 	public static void setDisplayMemoryDirty() {
 		if (displayFirstMappedVirtualPage == 0) { return; } // display memory yet not mapped
 		for (int i = 0; i < displayPageSize; i++) {
@@ -1204,6 +1597,17 @@ public class Mem {
 		}
 	}
 	
+	// check if a virtual display memory page was written since the last resetDisplayPagesFlags() 
+	static boolean isDisplayDirty() {
+		int end = displayFirstMappedVirtualPage + displayPageSize;
+		for (int page = displayFirstMappedVirtualPage; page < end; page++) {
+			if ((pageFlags[page] & PrincOpsDefs.MAPFLAGS_DIRTY) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
 	public static boolean locateRealDisplayMemoryInVMMap() {
 		int displayMemBaseAddress = displayFirstRealPage * PrincOpsDefs.WORDS_PER_PAGE;
 		displayFirstMappedVirtualPage = 0;
@@ -99,7 +99,7 @@ import dev.hawala.dmachine.engine.opcodes.ChXX_Undocumented;
  * <p>
  * If specified, <i>arglogspec</i> defines if and which/how arguments of the
  * instruction are issued when the instruction is logged during execution (see
- * {@code Config.LOG_OPCODES}). <i>arglogspec</i> can be one of:
+ * {@code Config.LOG_OPCODES}) or decoded from the {@link FlightRecorder}. <i>arglogspec</i> can be one of:
  * </p>
  * <ul>
  * <li><b>alpha</b> - the argument is an unsigned byte</li>
@@ -170,6 +170,22 @@ public class Opcodes {
 	public static final String[] opcNames = new String[256];
 	public static final String[] escNames = new String[256];
 	
+	// the arglogspec of the instructions for decoding the instruction arguments
+	// (see FlightRecorder), null if the instruction has no arglogspec
+	public static final String[] opcArgFormats = new String[256];
+	public static final String[] escArgFormats = new String[256];
+	
+	// the instruction set currently installed
+	private static boolean princOpsPost40 = false;
+	
+	/**
+	 * @return {@code true} if the instructions for a "new-style" mesa engine
+	 *   (PrincOps post version 4.0) are installed.
+	 */
+	public static boolean isPrincOpsPost40() {
+		return princOpsPost40;
+	}
+	
 	// the regular codes for the ESC(L) sub-dispatchers
 	public static final int zESC = 0xF8;
 	public static final int zESCL = 0xF9;
@@ -197,6 +213,8 @@ public class Opcodes {
 			escTable[code] = () -> Cpu.escOpcodeTrap(code);
 			opcNames[code] = codeName;
 			escNames[code] = "ESC." + codeName;
+			opcArgFormats[code] = null;
+			escArgFormats[code] = null;
 		}
 	}
 	
@@ -213,6 +231,7 @@ public class Opcodes {
 	 * mesa engine (PrincOps up to version 4.0),
 	 */
 	public static void initializeInstructionsPrincOps40() {
+		princOpsPost40 = false;
 		prepareOpcodeTables();
 		initializeInstructions("OPC");
 		initializeInstructions("ESC");
@@ -221,7 +240,7 @@ public class Opcodes {
 		postpareOpcodeTables();
 	}
 	
-	private static void innerImplant(int opcode, String opname, OpImpl impl, OpImpl[] tblOps, String[] tblNames)  {
+	private static void innerImplant(int opcode, String opname, OpImpl impl, OpImpl[] tblOps, String[] tblNames, String[] tblArgFormats)  {
 		if (opcode < 0 || opcode > 255) {
 			System.out.printf("** attempt to implant invalid opcode 0x%04X - %s\n", opcode, opname);
 			return;
@@ -230,6 +249,7 @@ public class Opcodes {
 			? () -> { Cpu.logOpcode(opname); impl.execute(); }
 			: impl;
 		tblNames[opcode] = opname;
+		tblArgFormats[opcode] = null;
 	}
 	
 	/**
@@ -240,7 +260,7 @@ public class Opcodes {
 	 * @param impl implementation of the opcode
 	 */
 	public static void implantOverride(int opcode, String opname, OpImpl impl) {
-		innerImplant(opcode, opname, impl, opcTable, opcNames);
+		innerImplant(opcode, opname, impl, opcTable, opcNames, opcArgFormats);
 	}
 	
 	/**
@@ -251,7 +271,7 @@ public class Opcodes {
 	 * @param impl implementation of the opcode
 	 */
 	public static void implantEscOverride(int opcode, String opname, OpImpl impl) {
-		innerImplant(opcode, "ESC." + opname, impl, escTable, escNames);
+		innerImplant(opcode, "ESC." + opname, impl, escTable, escNames, escArgFormats);
 	}
 	
 	/**
@@ -259,6 +279,7 @@ public class Opcodes {
 	 * mesa engine (PrincOps post version 4.0),
 	 */
 	public static void initializeInstructionsPrincOpsPost40() {
+		princOpsPost40 = true;
 		prepareOpcodeTables();
 		initializeInstructions("OPC");
 		initializeInstructions("ESC");
@@ -341,6 +362,7 @@ public class Opcodes {
 								opcTable[opcode] = opImpl;
 							}
 							opcNames[opcode] = parts[2];
+							opcArgFormats[opcode] = (parts.length > 3) ? parts[3] : null;
 						} else {
 							if (Config.LOG_OPCODE_INSTALLATION) {
 								System.out.printf("** ESC Opcode %03o (0x%02X) %s\n", opcode, opcode, fieldName);
@@ -369,6 +391,7 @@ public class Opcodes {
 								escTable[opcode] = opImpl;
 							}
 							escNames[opcode] = "ESC." + parts[2];
+							escArgFormats[opcode] = (parts.length > 3) ? parts[3] : null;
 						}
 					} catch (IllegalArgumentException|IllegalAccessException exc) {
 						// ignored
@@ -29,6 +29,8 @@ package dev.hawala.dmachine.engine;
 import static dev.hawala.dmachine.engine.Mem.readField;
 import static dev.hawala.dmachine.engine.Mem.writeField;
 
+import java.util.Arrays;
+
 import dev.hawala.dmachine.engine.Cpu.MesaAbort;
 import dev.hawala.dmachine.engine.Xfer.XferType;
 import dev.hawala.dmachine.engine.agents.Agents;
@@ -330,6 +332,7 @@ public class Processes {
 	
 	public static void storePSB_timeout(int index, short value) {
 		writePSBword(index, ProcessStateBlock_timeout, value);
+		indexTimeout(index & 0x0000FFFF, value & 0xFFFF);
 	}
 	
 	public static short fetchPSB_mds(int index) {
@@ -708,6 +711,7 @@ public class Processes {
 	// special interrupts for starting / stopping flight recorder on the fly :-)
 	private static final int FLIGHTRECORDER_START = 0x08000000;
 	private static final int FLIGHTRECORDER_STOP_AND_DUMP = 0x04000000;
+	private static final int FLIGHTRECORDER_SAVE = 0x02000000;
 	public static void requestFlightRecorderStart() {
 		System.out.println("requestFlightRecorderStart()");
 		System.out.flush();
@@ -718,6 +722,15 @@ public class Processes {
 		System.out.flush();
 		innerRequestInterrupt(FLIGHTRECORDER_STOP_AND_DUMP);
 	}
+	public static void requestFlightRecorderSave() {
+		innerRequestInterrupt(FLIGHTRECORDER_SAVE);
+	}
+	
+	// special interrupt for dumping the trace buffer on the mesa engine thread
+	private static final int TRACE_DUMP = 0x01000000;
+	public static void requestTraceDump() {
+		innerRequestInterrupt(TRACE_DUMP);
+	}
 	
 	// special interrupt for agents requesting to access the mesa virtual memory
 	private static final int DATA_REFRESH_INTERRUPT = 0x40000000;
@@ -775,14 +788,22 @@ public class Processes {
 		short wakeups = (short)(pendingWakeups & 0xFFFF);
 		
 		// flight-recorder requests
-		if (Config.LOG_OPCODES && Config.LOG_OPCODES_AS_FLIGHTRECORDER) {
-			if ((pendingWakeups & FLIGHTRECORDER_START) != 0) {
-				Cpu.armDebugInterpreter();
-			}
-			if ((pendingWakeups & FLIGHTRECORDER_STOP_AND_DUMP) != 0) {
-				Cpu.dumpOplog();
-				Cpu.disarmDebugInterpreter();
-			}
+		if ((pendingWakeups & FLIGHTRECORDER_START) != 0) {
+			FlightRecorder.setActive(true);
+			if (Config.LOG_OPCODES) { Cpu.armDebugInterpreter(); }
+		}
+		if ((pendingWakeups & FLIGHTRECORDER_SAVE) != 0) {
+			FlightRecorder.save("requested");
+		}
+		if ((pendingWakeups & FLIGHTRECORDER_STOP_AND_DUMP) != 0) {
+			FlightRecorder.save("stopped");
+			FlightRecorder.setActive(false);
+			if (Config.LOG_OPCODES) { Cpu.disarmDebugInterpreter(); }
+		}
+		
+		// trace dump request
+		if ((pendingWakeups & TRACE_DUMP) != 0) {
+			Trace.dump(System.out);
 		}
 		
 		// is a "stop the engine" request pending?
@@ -864,18 +885,100 @@ public class Processes {
 	public static void resetPTC(int to) {
 		Cpu.PTC = to;
 		time = Cpu.IT();
+		resetTimeoutIndex();
+	}
+	
+	/*
+	 * Extension to PrincOps: shadow index for the PSB timeouts.
+	 * 
+	 * Instead of reading the timeout of each PSB in the PDA at each tick, the timeouts
+	 * written through storePSB_timeout() are registered in a timer wheel keyed by the
+	 * low-order bits of the timeout value, so a tick only needs to look at the PSBs
+	 * in the bucket for the new PTC value. Candidates found this way are validated
+	 * against the PSB in memory before expiring the timeout.
+	 * As the PDA is in normal mesa memory, timeouts could also be changed by plain
+	 * memory writes bypassing the index, so a full scan of all PSBs (re-synchronizing
+	 * the index) is still done at longer intervals.
+	 */
+	
+	private static final int TIMEOUT_BUCKETS = 256; // must be a power of 2
+	private static final int TIMEOUT_BUCKET_MASK = TIMEOUT_BUCKETS - 1;
+	private static final int TIMEOUT_RESYNC_TICKS = 256; // ~ 12 seconds
+	
+	private static final int[] indexedTimeout = new int[PsbIndex_Max]; // timeout as registered in the index, 0 = not registered
+	private static final int[] indexedSlot = new int[PsbIndex_Max]; // position of the PSB in its bucket
+	private static final int[][] timeoutBuckets = new int[TIMEOUT_BUCKETS][8];
+	private static final int[] timeoutBucketSizes = new int[TIMEOUT_BUCKETS];
+	private static final int[] expiringPsbs = new int[PsbIndex_Max];
+	private static int ticksToResync = 0;
+	
+	private static void resetTimeoutIndex() {
+		Arrays.fill(indexedTimeout, 0);
+		Arrays.fill(timeoutBucketSizes, 0);
+		ticksToResync = 0; // force a full scan at the next tick
+	}
+	
+	private static void indexTimeout(int psb, int timeout) {
+		if (psb >= PsbIndex_Max) { return; }
+		
+		int oldTimeout = indexedTimeout[psb];
+		if (oldTimeout == timeout) { return; }
+		
+		if (oldTimeout != 0) {
+			// remove from old bucket by moving the last bucket entry to the freed slot 
+			int bucket = oldTimeout & TIMEOUT_BUCKET_MASK;
+			int[] entries = timeoutBuckets[bucket];
+			int last = --timeoutBucketSizes[bucket];
+			int slot = indexedSlot[psb];
+			if (slot != last) {
+				int movedPsb = entries[last];
+				entries[slot] = movedPsb;
+				indexedSlot[movedPsb] = slot;
+			}
+		}
+		
+		if (timeout != 0) {
+			int bucket = timeout & TIMEOUT_BUCKET_MASK;
+			int[] entries = timeoutBuckets[bucket];
+			int slot = timeoutBucketSizes[bucket]++;
+			if (slot >= entries.length) {
+				entries = Arrays.copyOf(entries, entries.length * 2);
+				timeoutBuckets[bucket] = entries;
+			}
+			entries[slot] = psb;
+			indexedSlot[psb] = slot;
+		}
+		
+		indexedTimeout[psb] = timeout;
 	}
 	
-	// UI refreshing:
-	// -> 25 screen refreshs per second means one refresh each 40 ms
-	// -> 5 statistics refreshs per second means ~ 1 refresh after 5 screen refreshs 
-	private static final long UI_REFRESH_INTERVAL = 37; // milliseconds
-	private static final int STATS_REFRESH_INTERVAL = 5;
-	private static long nextUiRefresh = 0;
+	// UI refreshing (adaptive):
+	// -> while the display is modified, changes are transferred at most each UI_REFRESH_MIN_INTERVAL
+	//    (i.e. at most 100 screen refreshs per second) for a low latency
+	// -> while the display is static, the interval for checking for display changes backs off
+	//    up to UI_REFRESH_MAX_INTERVAL and drops back to the minimum on user input
+	// -> while the display memory is not mapped (changes cannot be detected), the complete
+	//    display is transferred each UI_REFRESH_UNMAPPED_INTERVAL
+	// -> changes to the color table are transferred like display changes, even if
+	//    the display memory itself was not modified
+	// -> the display export file (if any) is updated along with the ui, also if the ui does
+	//    not present the display (the ui then gets the complete display when presenting resumes)
+	// -> MP and statistics are notified at a fixed pace (5 statistics refreshs per second)
+	private static final long UI_REFRESH_MIN_INTERVAL = 10; // milliseconds
+	private static final long UI_REFRESH_MAX_INTERVAL = 80; // milliseconds
+	private static final long UI_REFRESH_UNMAPPED_INTERVAL = 40; // milliseconds
+	private static final long STATS_REFRESH_INTERVAL = 200; // milliseconds
+	private static long lastUiRefresh = 0;
+	private static long lastDwarfCheck = -1;
+	private static long uiRefreshInterval = UI_REFRESH_MIN_INTERVAL;
+	private static long nextStatsRefresh = 0;
 	private static int lastMpNotified = -1;
-	private static int statisticsThrottle = STATS_REFRESH_INTERVAL;  
+	private static volatile boolean uiInputSeen = false;
+	private static boolean displayPaletteChanged = false;
 	
 	private static volatile iMesaMachineDataAccessor displayRefresher = null;
+	private static volatile DisplayExport displayExport = null;
+	private static boolean displayMissedByUi = false;
 	
 	private static short[] dummyPageFlags = null;
 	
@@ -883,66 +986,138 @@ public class Processes {
 		displayRefresher = refresher;
 	}
 	
+	public static void registerDisplayExport(DisplayExport export) {
+		displayExport = export;
+	}
+	
+	/**
+	 * Inform that the user interacted with the UI (keyboard or mouse), so
+	 * display changes are to be expected and should be transferred without delay.
+	 */
+	public static void noteUiInput() {
+		uiInputSeen = true;
+	}
+	
+	/**
+	 * Inform that the color table of the display was modified, so the display
+	 * is to be transferred at the next ui refresh even if the display memory
+	 * was not modified (invoked in the mesa engine thread).
+	 */
+	public static void noteDisplayPaletteChanged() {
+		displayPaletteChanged = true;
+	}
+	
+	// transfer the display memory to the ui and/or the export file (each optional), handling the case
+	// when the display memory is not mapped into virtual memory
+	private static void transferDisplay(iMesaMachineDataAccessor refresher, DisplayExport export) {
+		displayPaletteChanged = false;
+		if (refresher != null && displayMissedByUi) {
+			// changes were reset for the export while the ui did not present the display
+			Mem.setDisplayMemoryDirty();
+			displayMissedByUi = false;
+		}
+		short[] vPageFlags = Mem.pageFlags;
+		if (Mem.displayFirstMappedVirtualPage == 0) {
+			if (dummyPageFlags == null) {
+				dummyPageFlags = new short[Mem.getDisplayPageSize()];
+				for (int i = 0; i < dummyPageFlags.length; i++) {
+					dummyPageFlags[i] = PrincOpsDefs.MAPFLAGS_REFERENCED | PrincOpsDefs.MAPFLAGS_DIRTY;
+				}
+			}
+			vPageFlags = dummyPageFlags;
+		} else {
+			dummyPageFlags = null;
+		}
+		if (export != null) {
+			export.update(
+				Mem.getDisplayRealMemory(),
+				Mem.getDisplayRealPage() * PrincOpsDefs.WORDS_PER_PAGE, 
+				Mem.getDisplayPageSize() * PrincOpsDefs.WORDS_PER_PAGE,
+				vPageFlags,
+				Mem.displayFirstMappedVirtualPage
+				);
+		}
+		if (refresher != null) {
+			refresher.accessRealMemory(
+				Mem.getDisplayRealMemory(),
+				Mem.getDisplayRealPage() * PrincOpsDefs.WORDS_PER_PAGE, 
+				Mem.getDisplayPageSize() * PrincOpsDefs.WORDS_PER_PAGE,
+				vPageFlags,
+				Mem.displayFirstMappedVirtualPage
+				);
+		} else {
+			displayMissedByUi = true;
+		}
+		Mem.resetDisplayPagesFlags();
+	}
+	
 	// the invoker must throttle usage of this method, for optimizing to avoid checking too often
 	// as System.nenoTime() / System.currentTimeMillis() effectively slow  down things in Java...
 	public static boolean checkForTimeouts() {
 		// Dwarf implementation specific part: refresh UI at (more or less) regular intervals
 		
-		// ensure that the mesa memory has all ingone external data
-		if (mesaMemoryUpdater != null) {
-			mesaMemoryUpdater.update();
-		}
-		
-		// cyclically refresh the ui
-		long now = System.currentTimeMillis();
-		if (now > nextUiRefresh) {
-			// set next refresh wakeup timestamp
-			nextUiRefresh = now + UI_REFRESH_INTERVAL;
+		// with the IT ticker, timeouts are checked more often than the host clock advances,
+		// so the Dwarf specific work is done only once per clock tick
+		long now = Cpu.currentTimeMillis();
+		if (!Cpu.isITTicker() || now != lastDwarfCheck) {
+			lastDwarfCheck = now;
+				
+			// ensure that the mesa memory has all ingone external data
+			if (mesaMemoryUpdater != null) {
+				mesaMemoryUpdater.update();
+			}
 			
-			// refresh if we have a connected UI
-			iMesaMachineDataAccessor refresher = displayRefresher;
-			if (refresher != null) {
-				// notify MP if changed
-				int currMP = Cpu.getMP();
-				if (currMP != lastMpNotified) {
-					refresher.acceptMP(currMP);
-					lastMpNotified = currMP;
+			// refresh the ui, adapting the pace to the display activity
+			if ((now - lastUiRefresh) >= UI_REFRESH_MIN_INTERVAL) {
+				// refresh if we have a connected UI
+				iMesaMachineDataAccessor refresher = displayRefresher;
+				if (refresher != null) {
+					// notify MP and statistics at a fixed pace
+					if (now >= nextStatsRefresh) {
+						nextStatsRefresh = now + STATS_REFRESH_INTERVAL;
+						
+						// notify MP if changed
+						int currMP = Cpu.getMP();
+						if (currMP != lastMpNotified) {
+							refresher.acceptMP(currMP);
+							lastMpNotified = currMP;
+						}
+						
+						// notify statistics
+						refresher.acceptStatistics(
+								Cpu.insns,
+								statisticsProvider.getDiskReads(),
+								statisticsProvider.getDiskWrites(),
+								statisticsProvider.getFloppyReads(),
+								statisticsProvider.getFloppyWrites(),
+								statisticsProvider.getNetworkpacketsReceived(),
+								statisticsProvider.getNetworkpacketsSent());
+					}
 				}
 				
-				// notify statistics at a lower pace
-				if (--statisticsThrottle <= 0) {
-					refresher.acceptStatistics(
-							Cpu.insns,
-							statisticsProvider.getDiskReads(),
-							statisticsProvider.getDiskWrites(),
-							statisticsProvider.getFloppyReads(),
-							statisticsProvider.getFloppyWrites(),
-							statisticsProvider.getNetworkpacketsReceived(),
-							statisticsProvider.getNetworkpacketsSent());
-					statisticsThrottle = STATS_REFRESH_INTERVAL;
+				// user input resets the back-off for checking the display
+				if (uiInputSeen) {
+					uiInputSeen = false;
+					uiRefreshInterval = UI_REFRESH_MIN_INTERVAL;
 				}
 				
-				// refresh screen, handling the case when the display memory is not mapped into virtual memory
-				short[] vPageFlags = Mem.pageFlags;
-				if (Mem.displayFirstMappedVirtualPage == 0) {
-					if (dummyPageFlags == null) {
-						dummyPageFlags = new short[Mem.getDisplayPageSize()];
-						for (int i = 0; i < dummyPageFlags.length; i++) {
-							dummyPageFlags[i] = PrincOpsDefs.MAPFLAGS_REFERENCED | PrincOpsDefs.MAPFLAGS_DIRTY;
-						}
+				// transfer display changes if the display is presented or exported at all
+				// (if not, the dirty flags of the display pages are left as is
+				// and the changed pages are transferred when presenting resumes)
+				iMesaMachineDataAccessor presenter = (refresher != null && refresher.isDisplayPresented()) ? refresher : null;
+				DisplayExport export = displayExport;
+				if ((now - lastUiRefresh) >= uiRefreshInterval && (presenter != null || export != null)) {
+					lastUiRefresh = now;
+					if (Mem.displayFirstMappedVirtualPage == 0) {
+						uiRefreshInterval = UI_REFRESH_UNMAPPED_INTERVAL;
+						transferDisplay(presenter, export);
+					} else if (displayPaletteChanged || Mem.isDisplayDirty()) {
+						uiRefreshInterval = UI_REFRESH_MIN_INTERVAL;
+						transferDisplay(presenter, export);
+					} else {
+						uiRefreshInterval = Math.min(UI_REFRESH_MAX_INTERVAL, uiRefreshInterval * 2);
 					}
-					vPageFlags = dummyPageFlags;
-				} else {
-					dummyPageFlags = null;
 				}
-				refresher.accessRealMemory(
-					Mem.getDisplayRealMemory(),
-					Mem.getDisplayRealPage() * PrincOpsDefs.WORDS_PER_PAGE, 
-					Mem.getDisplayPageSize() * PrincOpsDefs.WORDS_PER_PAGE,
-					vPageFlags,
-					Mem.displayFirstMappedVirtualPage
-					);
-				Mem.resetDisplayPagesFlags();
 			}
 		}
 		
@@ -959,22 +1134,126 @@ public class Processes {
 	}
 	
 	private static boolean timeoutScan() {
+		if (--ticksToResync <= 0) {
+			ticksToResync = TIMEOUT_RESYNC_TICKS;
+			return fullTimeoutScan();
+		}
+		
+		// collect the candidates in the bucket for the current PTC
+		int bucket = Cpu.PTC & TIMEOUT_BUCKET_MASK;
+		int[] entries = timeoutBuckets[bucket];
+		int size = timeoutBucketSizes[bucket];
+		int expiring = 0;
+		for (int i = 0; i < size; i++) {
+			int psb = entries[i];
+			if (indexedTimeout[psb] == Cpu.PTC) {
+				expiringPsbs[expiring++] = psb;
+			}
+		}
+		if (expiring == 0) {
+			return false;
+		}
+		
+		// expire the candidates in the same order as the full scan would do
+		if (expiring > 1) {
+			Arrays.sort(expiringPsbs, 0, expiring);
+		}
+		boolean requeue = false;
+		int psbLimit = PsbStart + (Mem.readWord(PDA_LP_header_count) & 0xFFFF);
+		for (int i = 0; i < expiring; i++) {
+			int psb = expiringPsbs[i];
+			if (psb < PsbStart || psb >= psbLimit) { continue; }
+			int timeout = fetchPSB_timeout(psb) & 0xFFFF;
+			if (timeout == Cpu.PTC) {
+				requeue |= expireTimeout((short)psb);
+			} else {
+				indexTimeout(psb, timeout); // stale index entry
+			}
+		}
+		return requeue;
+	}
+	
+	private static boolean fullTimeoutScan() {
 		boolean requeue = false;
 		int count = Mem.readWord(PDA_LP_header_count) & 0xFFFF;
 		for (short psb = PsbStart; psb < (PsbStart + count); psb++) {
 			int timeout = fetchPSB_timeout(psb) & 0xFFFF;
 			if (timeout != 0 && timeout == Cpu.PTC) {
-				short flags = fetchPSB_flags(psb);
-				flags = unsetPsbFlagsWaiting(flags);
-				storePSB_flags(psb, flags);
-				storePSB_timeout(psb, (short)0);
-				requeue(0, PDA_LP_header_ready, psb);
-				requeue = true;
+				requeue |= expireTimeout(psb);
+			} else {
+				indexTimeout(psb, timeout);
 			}
 		}
 		return requeue;
 	}
 	
+	private static boolean expireTimeout(short psb) {
+		short flags = fetchPSB_flags(psb);
+		flags = unsetPsbFlagsWaiting(flags);
+		storePSB_flags(psb, flags);
+		storePSB_timeout(psb, (short)0);
+		requeue(0, PDA_LP_header_ready, psb);
+		return true;
+	}
+	
+	/*
+	 * Extension to PrincOps for the virtual time mode (see Cpu.setVirtualTime()):
+	 * if no process is ready to run, there is no need to wait in real time for
+	 * the next process timeout to expire, so the time is advanced directly to
+	 * the tick where the nearest timeout of a waiting process expires.
+	 * This is done by skipping all intermediate ticks and advancing the virtual
+	 * IT so that the next timeout check produces the tick with the expiration.
+	 * No fast-forward occurs if interrupts are disabled or pending or if no
+	 * process has a timeout, so the engine will idle in real time for external
+	 * (device/ui) events in this case.
+	 */
+	
+	/**
+	 * Advance the virtual time to the next expiring process timeout.
+	 * 
+	 * @return {@code true} if the time was fast-forwarded, {@code false} if
+	 *   the engine must wait in real time for the next event. 
+	 */
+	public static boolean fastForwardToNextTimeout() {
+		if (!Cpu.isVirtualTime() || !interruptsEnabled() || Cpu.WP.get() != 0) {
+			return false;
+		}
+		
+		int ticks = ticksToNextTimeout();
+		if (ticks < 1) {
+			return false;
+		}
+		
+		// skip the ticks before the expiring one (PTC runs 1..0xFFFF, skipping 0)
+		int skippedTicks = ticks - 1;
+		Cpu.PTC = (((Cpu.PTC - 1) + skippedTicks) % 0xFFFF) + 1;
+		int skippedPulses = skippedTicks * Cpu.TimeOutInterval;
+		Cpu.advanceVirtualIT(skippedPulses);
+		time += skippedPulses;
+		
+		// let the next timeout check produce the tick where the timeout expires
+		Cpu.advanceVirtualIT(Cpu.TimeOutInterval + 1 - (Cpu.IT() - time));
+		return true;
+	}
+	
+	// get the number of PTC increments until the first PSB timeout expires (0 if no timeout is pending)
+	private static int ticksToNextTimeout() {
+		int minTicks = 0;
+		int ptc = Cpu.PTC - 1;
+		int count = Mem.readWord(PDA_LP_header_count) & 0xFFFF;
+		for (short psb = PsbStart; psb < (PsbStart + count); psb++) {
+			int timeout = fetchPSB_timeout(psb) & 0xFFFF;
+			if (timeout != 0) {
+				int ticks = ((timeout - 1) - ptc + 0xFFFF) % 0xFFFF;
+				if (ticks == 0) { ticks = 0xFFFF; }
+				if (minTicks == 0 || ticks < minTicks) {
+					minTicks = ticks;
+				}
+			}
+		}
+		return minTicks;
+	}
+	
 	/*
 	 * dump utilities for Cpu-debugger
 	 */
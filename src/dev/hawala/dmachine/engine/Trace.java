@@ -0,0 +1,302 @@
+/*
+Copyright (c) 2026, the Dwarf contributors
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+    * Redistributions of source code must retain the above copyright
+      notice, this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright
+      notice, this list of conditions and the following disclaimer in the
+      documentation and/or other materials provided with the distribution.
+    * The name of the author may not be used to endorse or promote products
+      derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDER "AS IS" AND ANY EXPRESS
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES
+OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED.
+IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO,
+PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+*/
+
+package dev.hawala.dmachine.engine;
+
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MutableCallSite;
+import java.util.IllegalFormatException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracing of engine and device activities, switchable per category at runtime,
+ * with the trace events being recorded in a ring buffer that can be dumped
+ * when needed.
+ * <p>
+ * The probes for the categories checked in the hot paths of the engine
+ * ({@link #mem()}, {@link #bitblt()}) invoke a method handle bound to
+ * a {@code MutableCallSite} returning a constant, so the JIT compiles a
+ * disabled probe and the code it guards to nothing; switching the category
+ * changes the call site target and recompiles the dependent code.
+ * </p>
+ * <p>
+ * Recording an event with {@code record()} does not allocate: the (constant)
+ * format string and up to 6 int arguments are stored in preallocated arrays,
+ * the text being produced when the ring buffer is dumped. Device logging
+ * uses {@link #logf(Category, String, Object...)}, which formats the message
+ * when recording.
+ * </p>
+ *
+ * @author the Dwarf contributors (2026)
+ */
+public class Trace {
+
+	/**
+	 * The trace categories, named as given on the command line.
+	 */
+	public enum Category {
+		mem,       // memory word accesses
+		bitblt,    // BITBLT and COLORBLT arguments
+		display,   // display (and beep) device
+		mouse,     // mouse device
+		keyboard,  // keyboard device (and mouse for 6085)
+		disk,      // harddisk device and disk files
+		floppy,    // floppy device and floppy files
+		network,   // network device
+		processor, // processor device
+		tty        // tty device
+	}
+
+	/*
+	 * category switches
+	 */
+
+	private static final boolean[] enabled = new boolean[Category.values().length];
+
+	private static final MutableCallSite[] switches = createSwitches();
+
+	private static MutableCallSite[] createSwitches() {
+		MutableCallSite[] sites = new MutableCallSite[Category.values().length];
+		for (int i = 0; i < sites.length; i++) {
+			sites[i] = new MutableCallSite(MethodHandles.constant(boolean.class, false));
+		}
+		return sites;
+	}
+
+	private static final MethodHandle memProbe = switches[Category.mem.ordinal()].dynamicInvoker();
+	private static final MethodHandle bitbltProbe = switches[Category.bitblt.ordinal()].dynamicInvoker();
+
+	private static boolean probe(MethodHandle probe) {
+		try {
+			return (boolean)probe.invokeExact();
+		} catch (Throwable t) {
+			return false;
+		}
+	}
+
+	/**
+	 * @return {@code true} if memory accesses are to be traced.
+	 */
+	public static boolean mem() {
+		return probe(memProbe);
+	}
+
+	/**
+	 * @return {@code true} if BITBLT-type instructions are to be traced.
+	 */
+	public static boolean bitblt() {
+		return probe(bitbltProbe);
+	}
+
+	/**
+	 * Check if a category is currently traced (for checks outside the hot paths).
+	 *
+	 * @param category the category to check, possibly {@code null}
+	 * @return {@code true} if {@code category} is traced.
+	 */
+	public static boolean isEnabled(Category category) {
+		return category != null && enabled[category.ordinal()];
+	}
+
+	/**
+	 * Switch tracing for a category.
+	 *
+	 * @param category the category to switch.
+	 * @param on the new state for the category.
+	 */
+	public static synchronized void setEnabled(Category category, boolean on) {
+		if (enabled[category.ordinal()] == on) { return; }
+		enabled[category.ordinal()] = on;
+		MutableCallSite site = switches[category.ordinal()];
+		site.setTarget(MethodHandles.constant(boolean.class, on));
+		MutableCallSite.syncAll(new MutableCallSite[] { site });
+	}
+
+	/**
+	 * Switch tracing for the categories in a comma separated list of category names,
+	 * a name prefixed with a minus sign disabling the category and {@code all}
+	 * standing for all categories.
+	 *
+	 * @param spec the list of category names.
+	 * @return {@code false} if the list contained an unknown category name.
+	 */
+	public static boolean configure(String spec) {
+		boolean ok = true;
+		for (String item : spec.split(",")) {
+			String name = item.trim().toLowerCase();
+			boolean on = !name.startsWith("-");
+			if (!on) { name = name.substring(1); }
+			if (name.isEmpty()) { continue; }
+			if ("all".equals(name)) {
+				for (Category c : Category.values()) { setEnabled(c, on); }
+				continue;
+			}
+			try {
+				setEnabled(Category.valueOf(name), on);
+			} catch (IllegalArgumentException e) {
+				ok = false;
+			}
+		}
+		return ok;
+	}
+
+	/**
+	 * @return the comma separated list of the categories currently traced.
+	 */
+	public static String getEnabled() {
+		StringBuilder sb = new StringBuilder();
+		for (Category c : Category.values()) {
+			if (enabled[c.ordinal()]) {
+				if (sb.length() > 0) { sb.append(","); }
+				sb.append(c.name());
+			}
+		}
+		return sb.toString();
+	}
+
+	/*
+	 * ring buffer
+	 */
+
+	private static final int RING_SIZE = 0x10000; // events, must be a power of 2
+	private static final int RING_MASK = RING_SIZE - 1;
+	private static final int ARGS_PER_EVENT = 6;
+	private static final int TEXT_EVENT = -1; // argument count for events with a preformatted text
+
+	private static final AtomicLong nextEvent = new AtomicLong();
+	private static volatile long firstUndumped = 0; // events before were already dumped
+	private static final byte[] evCategory = new byte[RING_SIZE];
+	private static final long[] evInsn = new long[RING_SIZE];
+	private static final String[] evFormat = new String[RING_SIZE];
+	private static final byte[] evArgCount = new byte[RING_SIZE];
+	private static final int[] evArgs = new int[RING_SIZE * ARGS_PER_EVENT];
+
+	private static int put(Category category, String format, int argCount) {
+		int idx = (int)(nextEvent.getAndIncrement() & RING_MASK);
+		evCategory[idx] = (byte)category.ordinal();
+		evInsn[idx] = Cpu.insns;
+		evFormat[idx] = format;
+		evArgCount[idx] = (byte)argCount;
+		return idx * ARGS_PER_EVENT;
+	}
+
+	public static void record(Category category, String format) {
+		put(category, format, 0);
+	}
+
+	public static void record(Category category, String format, int a0) {
+		int a = put(category, format, 1);
+		evArgs[a] = a0;
+	}
+
+	public static void record(Category category, String format, int a0, int a1) {
+		int a = put(category, format, 2);
+		evArgs[a] = a0;
+		evArgs[a + 1] = a1;
+	}
+
+	public static void record(Category category, String format, int a0, int a1, int a2) {
+		int a = put(category, format, 3);
+		evArgs[a] = a0;
+		evArgs[a + 1] = a1;
+		evArgs[a + 2] = a2;
+	}
+
+	public static void record(Category category, String format, int a0, int a1, int a2, int a3) {
+		int a = put(category, format, 4);
+		evArgs[a] = a0;
+		evArgs[a + 1] = a1;
+		evArgs[a + 2] = a2;
+		evArgs[a + 3] = a3;
+	}
+
+	public static void record(Category category, String format, int a0, int a1, int a2, int a3, int a4, int a5) {
+		int a = put(category, format, 6);
+		evArgs[a] = a0;
+		evArgs[a + 1] = a1;
+		evArgs[a + 2] = a2;
+		evArgs[a + 3] = a3;
+		evArgs[a + 4] = a4;
+		evArgs[a + 5] = a5;
+	}
+
+	/**
+	 * Record a formatted message if the category is traced.
+	 *
+	 * @param category the category of the message
+	 * @param template {@code printf} template for the message.
+	 * @param args arguments for the template.
+	 */
+	public static void logf(Category category, String template, Object... args) {
+		if (!isEnabled(category)) { return; }
+		put(category, String.format(template, args), TEXT_EVENT);
+	}
+
+	/**
+	 * Write the events in the ring buffer to a stream, oldest first, and
+	 * clear the ring buffer.
+	 * <p>
+	 * This should be invoked on the thread running the mesa engine (see
+	 * {@link Processes#requestTraceDump()}), as the engine records its events
+	 * without synchronization; events recorded by other threads during the
+	 * dump are written as far as they are complete.
+	 * </p>
+	 *
+	 * @param ps the stream to write to.
+	 */
+	public static synchronized void dump(PrintStream ps) {
+		Category[] categories = Category.values();
+		long last = nextEvent.get();
+		long first = Math.max(firstUndumped, last - RING_SIZE);
+		ps.printf("## trace dump: %d events (tracing: %s)\n", last - first, getEnabled());
+		for (long ev = first; ev < last; ev++) {
+			int idx = (int)(ev & RING_MASK);
+			int argCount = evArgCount[idx];
+			String text = evFormat[idx];
+			if (text == null) { continue; } // not yet completely recorded
+			if (argCount > 0) {
+				Object[] args = new Object[argCount];
+				for (int i = 0; i < argCount; i++) {
+					args[i] = evArgs[(idx * ARGS_PER_EVENT) + i];
+				}
+				try {
+					text = String.format(text, args);
+				} catch (IllegalFormatException e) {
+					// event overwritten while dumping
+					text = "(incomplete) " + text;
+				}
+			}
+			ps.printf("%-9s %10d: %s", categories[evCategory[idx]].name(), evInsn[idx], text);
+			if (!text.endsWith("\n")) { ps.println(); }
+		}
+		ps.printf("## end of trace dump\n");
+		ps.flush();
+		firstUndumped = last;
+	}
+
+}
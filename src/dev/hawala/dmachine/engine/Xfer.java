@@ -26,6 +26,8 @@ ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package dev.hawala.dmachine.engine;
 
+import java.util.Arrays;
+
 /**
  * Implementation of common functionality for PrincOps chapter "9 Control Transfers",
  * this is allocation/freeing local frames as well as the XFER primitive and related
@@ -99,11 +101,58 @@ public class Xfer {
 		return (short)(avItem & 0xFFFC);
 	}
 	
+	/*
+	 * shadow of the allocation vector: the AV items are kept in Java arrays to avoid
+	 * the memory accesses (incl. the indirections) when allocating and freeing frames,
+	 * with all changes to the AV written through to mesa memory.
+	 * The AV page in the current MDS is write-watched by Mem, so the shadow is dropped
+	 * if the AV is modified by other code (e.g. the frame fault handler in Pilot replenishing
+	 * the frame heap), if the virtual memory map changes or if the MDS is switched.
+	 * The watch of the AV page ends when the page is remapped (see Mem.setMap()) or the
+	 * MDS is switched, so writes to a former AV page reused as data do not drop the shadow.
+	 * (the links in the free frames themselves are still read from memory, as free frames
+	 * are not protected by the write watch)
+	 */
+	
+	private static int avShadowMds = -1;
+	private static int avShadowGeneration = 0;
+	private static final boolean[] avShadowValid = new boolean[FSINDEX_LAST + 1];
+	private static final int[] avShadowItem = new int[FSINDEX_LAST + 1];
+	
+	private static void validateAvShadow() {
+		if (avShadowMds == Cpu.MDS && avShadowGeneration == Mem.getWriteWatchGeneration(Mem.WATCH_FRAME_ALLOC)) {
+			return;
+		}
+		Arrays.fill(avShadowValid, false);
+		if (avShadowMds != Cpu.MDS && avShadowMds != -1) {
+			Mem.unwatchWrites(avShadowMds + (AV & 0xFFFF), Mem.WATCH_FRAME_ALLOC);
+		}
+		Mem.watchWrites(Cpu.lengthenPointer(AV), Mem.WATCH_FRAME_ALLOC);
+		avShadowMds = Cpu.MDS;
+		avShadowGeneration = Mem.getWriteWatchGeneration(Mem.WATCH_FRAME_ALLOC);
+	}
+	
+	private static int /* AVItem */ readAvItem(int slot) {
+		if (!avShadowValid[slot]) {
+			avShadowItem[slot] = Mem.readMDSWord(AV, slot) & 0xFFFF;
+			avShadowValid[slot] = true;
+		}
+		return avShadowItem[slot];
+	}
+	
+	private static void writeAvItem(int slot, int item) {
+		Mem.writeMDSWord(AV, slot, item);
+		avShadowItem[slot] = item & 0xFFFF;
+		// this write to the watched AV page is our own, so the shadow remains valid
+		avShadowGeneration = Mem.getWriteWatchGeneration(Mem.WATCH_FRAME_ALLOC);
+	}
+	
 	public static int /* pointer = local-frame */ alloc(/* FSIndex */ int fsi) {
+		validateAvShadow();
 		int item;
 		int slot = fsi;
 		while(true) {
-			item = Mem.readMDSWord(AV, slot) & 0xFFFF;
+			item = readAvItem(slot);
 			if ((item & AVITEM_TAGMASK) != PrincOpsDefs.AVITEM_INDIRECT) {
 				break;
 			}
@@ -115,7 +164,7 @@ public class Xfer {
 			Cpu.signalFrameFault(fsi);
 		}
 		// read the next frame item from the new frame and store it in the AV[slot]
-		Mem.writeMDSWord(AV, slot, Mem.readMDSWord(AVLink(item)));
+		writeAvItem(slot, Mem.readMDSWord(AVLink(item)));
 		// return the new frame
 		return AVFrame(item);
 	}
@@ -126,11 +175,12 @@ public class Xfer {
 		int fsi = word & 0x00FF;
 		
 		// get the current value at AV[fsi]
-		int item = Mem.readMDSWord(AV, fsi);
+		validateAvShadow();
+		int item = readAvItem(fsi);
 		Mem.writeMDSWord(frame, item);
 		
 		// put the frame (implicitly a FRAME-AVItem)
-		Mem.writeMDSWord(AV, fsi, frame);
+		writeAvItem(fsi, frame);
 	}
 	
 	/*
@@ -418,14 +468,9 @@ public class Xfer {
 				if (gf == 0) { Cpu.unboundTrap(dst); }
 				Cpu.GFI = Mem.readMDSWord(gf, PrincOpsDefs.GlobalOverhead4x_word) & 0xFFFC;
 				if (Cpu.GFI == 0) { Cpu.unboundTrap(dst); }
-//				int gftItemPtr = Cpu.GFT + (Cpu.GFI * PrincOpsDefs.GFTItem_SIZE); -- does not work...
-				int gftItemPtr = Cpu.GFT + Cpu.GFI; // as GFI is already shifted left by 2 bits, GFI is the word offset of the gftItem in GFT
-				
-				// set global frame
-				Cpu.GF32 = Mem.readDblWord(gftItemPtr + PrincOpsDefs.GFTItem_globalFrame);
 				
-				// set code base
-				Cpu.CB = Mem.readDblWord(gftItemPtr + PrincOpsDefs.GFTItem_codebase);
+				// set global frame and code base
+				loadGftItem(Cpu.GFI);
 				if ((Cpu.CB & 0x00000001) != 0) { Cpu.codeTrap(Cpu.GFI); }
 				
 				// check new pc
@@ -433,8 +478,7 @@ public class Xfer {
 				if (nPC == 0) { Cpu.unboundTrap(dst); }
 				
 				// get the local frame index and allocate the new local frame
-				int word = Mem.readCode(nPC / 2) & 0xFFFF;
-				int nFsi = ((nPC & 0x0001) == 0) ? word >>> 8 : word & 0xFF;
+				int nFsi = fetchFsi(nPC);
 				nLF = alloc(nFsi);
 				nPC++;
 				
@@ -464,14 +508,9 @@ public class Xfer {
 					// get global frame index
 					Cpu.GFI = proc_taggedGF & 0xFFFC;
 					if (Cpu.GFI == 0) { Cpu.unboundTrap(dst); }
-//					int gftItemPtr = Cpu.GFT + (Cpu.GFI * PrincOpsDefs.GFTItem_SIZE); -- does not work...
-					int gftItemPtr = Cpu.GFT + Cpu.GFI; // as GFI is already shifted left by 2 bits, GFI is the word offset of the gftItem in GFT 
-					
-					// set global frame
-					Cpu.GF32 = Mem.readDblWord(gftItemPtr + PrincOpsDefs.GFTItem_globalFrame);
 					
-					//set code base
-					Cpu.CB = Mem.readDblWord(gftItemPtr + PrincOpsDefs.GFTItem_codebase);
+					// set global frame and code base
+					loadGftItem(Cpu.GFI);
 					if ((Cpu.CB & 0x00000001) != 0) { Cpu.codeTrap(Cpu.GFI); }
 					
 					// check new pc
@@ -479,8 +518,7 @@ public class Xfer {
 					if (nPC == 0) { Cpu.unboundTrap(dst); }
 					
 					// get the local frame index and allocate the new local frame
-					int word = Mem.readCode(nPC / 2);
-					int nFsi = ((nPC & 0x0001) == 0) ? word >>> 8 : word & 0xFF;
+					int nFsi = fetchFsi(nPC);
 					nLF = alloc(nFsi);
 					nPC++;
 					
@@ -508,12 +546,8 @@ public class Xfer {
 					
 					Cpu.GFI = Mem.readMDSWord(nLF, PrincOpsDefs.LocalOverhead_globallink);
 					if (Cpu.GFI == 0) { Cpu.unboundTrap(nDst); }
-//					int gftItemPtr = Cpu.GFT + (Cpu.GFI * PrincOpsDefs.GFTItem_SIZE); -- does not work...
-					int gftItemPtr = Cpu.GFT + Cpu.GFI; // as GFI is already shifted left by 2 bits, GFI is the word offset of the gftItem in GFT
 					
-					Cpu.GF32 = Mem.readDblWord(gftItemPtr + PrincOpsDefs.GFTItem_globalFrame);
-					
-					Cpu.CB = Mem.readDblWord(gftItemPtr + PrincOpsDefs.GFTItem_codebase);
+					loadGftItem(Cpu.GFI);
 					if ((Cpu.CB & 0x00000001) != 0) { Cpu.codeTrap(Cpu.GFI); }
 					
 					nPC = Mem.readMDSWord(nLF, PrincOpsDefs.LocalOverhead_pc) & 0xFFFF;
@@ -558,6 +592,86 @@ public class Xfer {
 			checkForXferTraps(dst, xferType);
 		}
 		
+		/*
+		 * Extension to PrincOps: caches for resolving procedure descriptors and frame links
+		 * 
+		 * Resolving a control link requires reading the GFT item for the global frame index
+		 * (global frame and code base) and, for procedure calls, the frame size index at the
+		 * start of the procedure code. As these are (more or less) constant while the program
+		 * runs, the resolved values are cached in direct mapped tables, with the pages they
+		 * were read from being write-watched by Mem: an entry is only valid if neither a
+		 * write to a watched page nor a change to the virtual memory map occurred since the
+		 * entry was loaded (see Mem.getWriteWatchGeneration(Mem.WATCH_XFER_LINKS)).
+		 * As the virtual memory map is changed when Pilot resets the referenced flags, pages
+		 * are re-read (and marked as referenced) after such a change as without the caches.
+		 * 
+		 * In PrincOps 4.x the starting PC of a procedure is part of the procedure descriptor
+		 * (there is no entry vector to index), so the PC is cached with the descriptor itself:
+		 * external links located in the code segment (code links) are cached per code base
+		 * and link index. Links in the global frame (frame links) are not cached, as the page
+		 * holding the global frame is written constantly. 
+		 */
+		
+		private static final int GFT_CACHE_SIZE = 0x4000; // one slot for each GFT item  
+		private static final int[] gftCacheGeneration = new int[GFT_CACHE_SIZE];
+		private static final int[] gftCacheGfi = new int[GFT_CACHE_SIZE];
+		private static final int[] gftCacheGF32 = new int[GFT_CACHE_SIZE];
+		private static final int[] gftCacheCB = new int[GFT_CACHE_SIZE];
+		
+		private static final int FSI_CACHE_SIZE = 4096; // must be a power of 2
+		private static final int FSI_CACHE_MASK = FSI_CACHE_SIZE - 1;
+		private static final int[] fsiCacheGeneration = new int[FSI_CACHE_SIZE];
+		private static final int[] fsiCacheCB = new int[FSI_CACHE_SIZE];
+		private static final int[] fsiCachePC = new int[FSI_CACHE_SIZE];
+		private static final int[] fsiCacheFsi = new int[FSI_CACHE_SIZE];
+		
+		private static final int LINK_CACHE_SIZE = 1024; // must be a power of 2
+		private static final int LINK_CACHE_MASK = LINK_CACHE_SIZE - 1;
+		private static final int[] linkCacheGeneration = new int[LINK_CACHE_SIZE];
+		private static final int[] linkCacheCB = new int[LINK_CACHE_SIZE];
+		private static final int[] linkCacheOffset = new int[LINK_CACHE_SIZE];
+		private static final int[] linkCacheLink = new int[LINK_CACHE_SIZE];
+		
+		// set Cpu.GF32 and Cpu.CB from the GFT item for gfi
+		private static void loadGftItem(int gfi) {
+			int slot = (gfi >>> 2) & (GFT_CACHE_SIZE - 1);
+			if (gftCacheGeneration[slot] == Mem.getWriteWatchGeneration(Mem.WATCH_XFER_LINKS) && gftCacheGfi[slot] == gfi) {
+				Cpu.GF32 = gftCacheGF32[slot];
+				Cpu.CB = gftCacheCB[slot];
+				return;
+			}
+			
+//			int gftItemPtr = Cpu.GFT + (gfi * PrincOpsDefs.GFTItem_SIZE); -- does not work...
+			int gftItemPtr = Cpu.GFT + gfi; // as GFI is already shifted left by 2 bits, GFI is the word offset of the gftItem in GFT
+			Cpu.GF32 = Mem.readDblWord(gftItemPtr + PrincOpsDefs.GFTItem_globalFrame);
+			Cpu.CB = Mem.readDblWord(gftItemPtr + PrincOpsDefs.GFTItem_codebase);
+			
+			Mem.watchWrites(gftItemPtr, Mem.WATCH_XFER_LINKS);
+			gftCacheGfi[slot] = gfi;
+			gftCacheGF32[slot] = Cpu.GF32;
+			gftCacheCB[slot] = Cpu.CB;
+			gftCacheGeneration[slot] = Mem.getWriteWatchGeneration(Mem.WATCH_XFER_LINKS);
+		}
+		
+		// get the frame size index at the start of the procedure at pc in the current code segment
+		private static int fetchFsi(int pc) {
+			int cb = Cpu.CB;
+			int slot = ((cb >>> 3) ^ pc) & FSI_CACHE_MASK;
+			if (fsiCacheGeneration[slot] == Mem.getWriteWatchGeneration(Mem.WATCH_XFER_LINKS) && fsiCacheCB[slot] == cb && fsiCachePC[slot] == pc) {
+				return fsiCacheFsi[slot];
+			}
+			
+			int word = Mem.readCode(pc / 2) & 0xFFFF;
+			int fsi = ((pc & 0x0001) == 0) ? word >>> 8 : word & 0xFF;
+			
+			Mem.watchWrites(cb + ((pc / 2) & 0xFFFF), Mem.WATCH_XFER_LINKS);
+			fsiCacheCB[slot] = cb;
+			fsiCachePC[slot] = pc;
+			fsiCacheFsi[slot] = fsi;
+			fsiCacheGeneration[slot] = Mem.getWriteWatchGeneration(Mem.WATCH_XFER_LINKS);
+			return fsi;
+		}
+		
 		/*
 		 * 9.4.2 External Function Calls
 		 */
@@ -566,12 +680,32 @@ public class Xfer {
 		public int fetchLink(int offset) {
 			int globalWord = Mem.readWord(Cpu.GF32 + PrincOpsDefs.GlobalOverhead4x_word);
 			if ((globalWord & PrincOpsDefs.GlobalLinkage_CodeLinks) == PrincOpsDefs.GlobalLinkage_CodeLinks) {
-				return Mem.readDblWord(Cpu.CB - (offset + 1) * 2);
+				return fetchCodeLink(offset);
 			} else {
 				return Mem.readDblWord(Cpu.GF32 - PrincOpsDefs.GLOBALOVERHEAD4x_SIZE - (offset + 1) * 2);
 			}
 		}
 		
+		// get the control link at offset in the code links of the current code segment
+		private static int fetchCodeLink(int offset) {
+			int cb = Cpu.CB;
+			int slot = ((cb >>> 3) ^ offset) & LINK_CACHE_MASK;
+			if (linkCacheGeneration[slot] == Mem.getWriteWatchGeneration(Mem.WATCH_XFER_LINKS) && linkCacheCB[slot] == cb && linkCacheOffset[slot] == offset) {
+				return linkCacheLink[slot];
+			}
+			
+			int linkPtr = cb - (offset + 1) * 2;
+			int link = Mem.readDblWord(linkPtr);
+			
+			Mem.watchWrites(linkPtr, Mem.WATCH_XFER_LINKS);
+			Mem.watchWrites(linkPtr + 1, Mem.WATCH_XFER_LINKS);
+			linkCacheCB[slot] = cb;
+			linkCacheOffset[slot] = offset;
+			linkCacheLink[slot] = link;
+			linkCacheGeneration[slot] = Mem.getWriteWatchGeneration(Mem.WATCH_XFER_LINKS);
+			return link;
+		}
+		
 		/*
 		 * 9.5.5 Xfer Traps
 		 */
@@ -28,6 +28,7 @@ package dev.hawala.dmachine.engine.agents;
 
 import dev.hawala.dmachine.engine.Cpu;
 import dev.hawala.dmachine.engine.Mem;
+import dev.hawala.dmachine.engine.Trace;
 
 /**
  * Abstract base class for all agents defining the common public interface
@@ -65,6 +66,9 @@ public abstract class Agent {
 	// should this agent log the own actions?
 	protected boolean logging = false;
 	
+	// the trace category for the own actions (if any)
+	protected Trace.Category traceCategory = null;
+	
 	/**
 	 * Enable or disable logging for this agent.
 	 * @param enabled the new logging flag.
@@ -73,6 +77,15 @@ public abstract class Agent {
 		this.logging = enabled;
 	}
 	
+	/**
+	 * Set the trace category for recording the actions of this agent
+	 * in the trace buffer when the category is traced.
+	 * @param category the trace category for this agent.
+	 */
+	protected void setTraceCategory(Trace.Category category) {
+		this.traceCategory = category;
+	}
+	
 	/**
 	 * Base constructor with minimal required parameters.
 	 * 
@@ -117,8 +130,12 @@ public abstract class Agent {
 	 * @param args arguments for the template.
 	 */
 	protected void logf(String template, Object... args) {
-		if (!this.logging) { return; }
-		System.out.printf("Agent " + agentType + ": " + template, args);
+		if (this.logging) {
+			System.out.printf("Agent " + agentType + ": " + template, args);
+		}
+		if (Trace.isEnabled(this.traceCategory)) {
+			Trace.logf(this.traceCategory, "Agent " + agentType + ": " + template, args);
+		}
 	}
 	
 	/**
@@ -128,8 +145,10 @@ public abstract class Agent {
 	 * @param args arguments for the template.
 	 */
 	protected void slogf(String template, Object... args) {
-		if (!this.logging) { return; }
-		System.out.printf(template, args);
+		if (this.logging) {
+			System.out.printf(template, args);
+		}
+		Trace.logf(this.traceCategory, template, args);
 	}
 	
 	/*
@@ -78,6 +78,7 @@ public class Agents {
 
 		@Override
 		public void acceptKeyboardKey(eLevelVKey key, boolean isPressed) {
+			Processes.noteUiInput();
 			if (keyboardAgent == null) { return; }
 			keyboardAgent.handleKeyUsage(key, isPressed);
 		}
@@ -90,6 +91,7 @@ public class Agents {
 
 		@Override
 		public void acceptMouseKey(int key, boolean isPressed) {
+			Processes.noteUiInput(); // also for clicks not mapped to a mesa key
 			if (key == 1) {
 				this.acceptKeyboardKey(eLevelVKey.Point, isPressed);
 			} else if (key == 2) {
@@ -101,6 +103,7 @@ public class Agents {
 
 		@Override
 		public void acceptMousePosition(int x, int y) {
+			Processes.noteUiInput();
 			if (mouseAgent == null) { return; }
 			mouseAgent.recordMouseMoved(x, y);
 		}
@@ -116,6 +119,11 @@ public class Agents {
 			Processes.registerUiRefreshCallback(refresher);
 			return () -> displayAgent.getColorTable();
 		}
+		
+		@Override
+		public int getColorTableGeneration() {
+			return displayAgent.getColorTableGeneration();
+		}
 	}
 	
 	/**
@@ -47,12 +47,12 @@ import java.util.zip.InflaterInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
-import dev.hawala.dmachine.engine.Config;
 import dev.hawala.dmachine.engine.Cpu;
 import dev.hawala.dmachine.engine.Mem;
 import dev.hawala.dmachine.engine.PilotDefs;
 import dev.hawala.dmachine.engine.PrincOpsDefs;
 import dev.hawala.dmachine.engine.Processes;
+import dev.hawala.dmachine.engine.Trace;
 
 /**
  * Agent for the harddisk of a Dwarf machine,
@@ -144,8 +144,8 @@ public class DiskAgent extends Agent {
 		
 		// local logging function
 		private void logf(String template, Object... args) {
-			if (Config.IO_LOG_DISK) {
-				System.out.printf("DiskFile[" + f.getName() + "]: " + template, args);
+			if (Trace.isEnabled(Trace.Category.disk)) {
+				Trace.logf(Trace.Category.disk, "DiskFile[" + f.getName() + "]: " + template, args);
 			}
 		}
 		
@@ -675,9 +675,7 @@ public class DiskAgent extends Agent {
 		
 		// create DiskFile and append to files
 		try {
-			if (Config.IO_LOG_DISK) {
-				Cpu.logInfo("DiskAgent.addFile :: adding file '" + filePath + "'");
-			}
+			Trace.logf(Trace.Category.disk, "DiskAgent.addFile :: adding file '%s'\n", filePath);
 			DiskFile diskfile = new DiskFile(f, readonly, deltasToKeep);
 			diskFiles.add(diskfile);
 			return (!readonly && diskfile.readonly) ? DiskState.ReadOnly : DiskState.OK;
@@ -786,7 +784,7 @@ public class DiskAgent extends Agent {
 	 */
 	public DiskAgent(int fcbAddress) {
 		super(AgentDevice.diskAgent, fcbAddress, FCB_with_DCB_SIZE);
-		this.enableLogging(Config.IO_LOG_DISK);
+		this.setTraceCategory(Trace.Category.disk);
 	}
 	
 	@Override
@@ -26,10 +26,11 @@ ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package dev.hawala.dmachine.engine.agents;
 
-import dev.hawala.dmachine.engine.Config;
 import dev.hawala.dmachine.engine.Mem;
 import dev.hawala.dmachine.engine.PilotDefs;
 import dev.hawala.dmachine.engine.PrincOpsDefs;
+import dev.hawala.dmachine.engine.Processes;
+import dev.hawala.dmachine.engine.Trace;
 
 /**
  * Agent for the display of a Dwarf machine.
@@ -102,6 +103,7 @@ public class DisplayAgent extends Agent {
 	
 	private final boolean isColorDisplay;
 	private final int[] colorTable;
+	private int colorTableGeneration = 0;
 	
 	public DisplayAgent(int fcbAddress, MouseAgent mouseAgent) {
 		super(AgentDevice.displayAgent, fcbAddress, FCB_SIZE);
@@ -124,12 +126,16 @@ public class DisplayAgent extends Agent {
 			throw new IllegalArgumentException("Unsupported 'displayType' = " + displayType);
 		}
 		
-		this.enableLogging(Config.IO_LOG_DISPLAY);
+		this.setTraceCategory(Trace.Category.display);
 	}
 	
 	public int[] getColorTable() {
 		return this.colorTable;
 	}
+	
+	public int getColorTableGeneration() {
+		return this.colorTableGeneration;
+	}
 
 	@Override
 	public void call() {
@@ -193,7 +199,11 @@ public class DisplayAgent extends Agent {
 		int blue = colorU1 & 0x00FF;
 		
 		int tableValue = (red << 16) | (green << 8) | blue;
-		this.colorTable[colorIndex] = tableValue;
+		if (this.colorTable[colorIndex] != tableValue) {
+			this.colorTable[colorIndex] = tableValue;
+			this.colorTableGeneration++;
+			Processes.noteDisplayPaletteChanged();
+		}
 		this.setFcbWord(fcb_w_status, Status_success);
 
 		logf("call() - setCLTEntry , colorIndex = %d , (r,g,b) = 0x ( %02X , %02X , %02X ) => status = Status_success\n",
@@ -35,11 +35,11 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
-import dev.hawala.dmachine.engine.Config;
 import dev.hawala.dmachine.engine.Mem;
 import dev.hawala.dmachine.engine.PilotDefs;
 import dev.hawala.dmachine.engine.PrincOpsDefs;
 import dev.hawala.dmachine.engine.Processes;
+import dev.hawala.dmachine.engine.Trace;
 
 /**
  * Agent for a floppy disk drive of a Dwarf machine,
@@ -188,8 +188,8 @@ public class FloppyAgent extends Agent {
 		private boolean changed = false;
 		
 		private void logf(String template, Object... args) {
-			if (Config.IO_LOG_FLOPPY) {
-				System.out.printf("FloppyFile[" + f.getName() + "]: " + template, args);
+			if (Trace.isEnabled(Trace.Category.floppy)) {
+				Trace.logf(Trace.Category.floppy, "FloppyFile[" + f.getName() + "]: " + template, args);
 			}
 		}
 		
@@ -471,9 +471,7 @@ public class FloppyAgent extends Agent {
 		protected int dataWordsPerSector;
 		
 		protected void logf(String template, Object... args) {
-			if (Config.IO_LOG_FLOPPY) {
-				System.out.printf(template, args);
-			}
+			Trace.logf(Trace.Category.floppy, template, args);
 		}
 		
 		private int tmplMaxTocEntries;
@@ -1196,7 +1194,7 @@ public class FloppyAgent extends Agent {
 	
 	public FloppyAgent(int fcbAddress) {
 		super(AgentDevice.floppyAgent, fcbAddress, FCB_SIZE);
-		this.enableLogging(Config.IO_LOG_FLOPPY);
+		this.setTraceCategory(Trace.Category.floppy);
 	}
 	
 	@Override
@@ -26,8 +26,8 @@ ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package dev.hawala.dmachine.engine.agents;
 
-import dev.hawala.dmachine.engine.Config;
 import dev.hawala.dmachine.engine.Processes;
+import dev.hawala.dmachine.engine.Trace;
 import dev.hawala.dmachine.engine.eLevelVKey;
 
 /**
@@ -59,7 +59,7 @@ public class KeyboardAgent extends Agent {
 	public KeyboardAgent(int fcbAddress) {
 		super(AgentDevice.keyboardAgent, fcbAddress, FCB_SIZE);
 		
-		this.enableLogging(Config.IO_LOG_KEYBOARD);
+		this.setTraceCategory(Trace.Category.keyboard);
 		
 		for (int i = 0; i < FCB_SIZE; i++) {
 			this.uiKeys[i] = ALL_KEYS_UP;
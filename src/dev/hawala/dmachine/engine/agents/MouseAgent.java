@@ -26,9 +26,9 @@ ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package dev.hawala.dmachine.engine.agents;
 
-import dev.hawala.dmachine.engine.Config;
 import dev.hawala.dmachine.engine.Mem;
 import dev.hawala.dmachine.engine.Processes;
+import dev.hawala.dmachine.engine.Trace;
 import dev.hawala.dmachine.engine.iUiDataConsumer;
 
 /**
@@ -97,7 +97,7 @@ public class MouseAgent extends Agent {
 	public MouseAgent(int fcbAddress) {
 		super(AgentDevice.mouseAgent, fcbAddress, FCB_SIZE);
 		
-		this.enableLogging(Config.IO_LOG_MOUSE);
+		this.setTraceCategory(Trace.Category.mouse);
 		
 		this.uiCurrX = this.mesaCurrX + this.mouseHotspotX;
 		this.uiCurrY = this.mesaCurrY + this.mouseHotspotY;
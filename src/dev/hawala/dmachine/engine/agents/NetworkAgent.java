@@ -29,11 +29,11 @@ package dev.hawala.dmachine.engine.agents;
 import java.util.LinkedList;
 import java.util.Queue;
 
-import dev.hawala.dmachine.engine.Config;
 import dev.hawala.dmachine.engine.Cpu;
 import dev.hawala.dmachine.engine.Mem;
 import dev.hawala.dmachine.engine.PrincOpsDefs;
 import dev.hawala.dmachine.engine.Processes;
+import dev.hawala.dmachine.engine.Trace;
 
 /**
  * Agent for the network interface of a Dwarf machine,
@@ -209,7 +209,7 @@ public class NetworkAgent extends Agent {
 	
 	public NetworkAgent(int fcbAddress) {
 		super(AgentDevice.networkAgent, fcbAddress, FCB_SIZE);
-		this.enableLogging(Config.IO_LOG_NETWORK);
+		this.setTraceCategory(Trace.Category.network);
 		
 		if (hubHostname != null && !hubHostname.isEmpty()
 			&& hubPort > 0 && hubPort < 0xFFFF) {
@@ -56,6 +56,17 @@ public interface iMesaMachineDataAccessor {
 			short[] realMemory, int memOffset, int memWords,
 			short[] pageFlags, int firstPage);
 	
+	/**
+	 * Check if the display content is currently presented by the UI, i.e.
+	 * if {@code accessRealMemory()} is to be invoked at all. As long as the
+	 * display is not presented, the mesa engine keeps the dirty flags of the
+	 * display pages, so the pages modified in the meantime are transferred when
+	 * presenting the display resumes.
+	 * 
+	 * @return {@code true} if the display is presented.
+	 */
+	boolean isDisplayPresented();
+	
 	/**
 	 * Callback informing the UI of a value change on the Maintenance Panel.
 	 * 
@@ -110,4 +110,14 @@ public interface iUiDataConsumer {
 	 */
 	Supplier<int[]> registerUiDataRefresher(iMesaMachineDataAccessor refresher);
 	
+	/**
+	 * Get the generation of the color table returned by the callback of
+	 * {@code registerUiDataRefresher()}, allowing to detect changes to the
+	 * color table without comparing the table content.
+	 * 
+	 * @return the current generation of the color table, changing with each
+	 *   modification of the color table (constant for B/W displays).
+	 */
+	int getColorTableGeneration();
+	
 }
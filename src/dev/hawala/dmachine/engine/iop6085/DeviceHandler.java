@@ -26,6 +26,8 @@ ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package dev.hawala.dmachine.engine.iop6085;
 
+import dev.hawala.dmachine.engine.Trace;
+
 /**
  * Common interface and functionality of the Daybreak/6085 device handlers.
  * 
@@ -53,10 +55,13 @@ public abstract class DeviceHandler {
 	// should this agent log the own actions?
 	protected boolean logging = false;
 	
+	// the trace category for the own actions
+	private final Trace.Category traceCategory;
+	
 	// constructor
-	protected DeviceHandler(String handlerName, boolean loggingEnabled) {
+	protected DeviceHandler(String handlerName, Trace.Category traceCategory) {
 		this.handlerName = handlerName;
-		this.logging = loggingEnabled;
+		this.traceCategory = traceCategory;
 	}
 	
 	/**
@@ -74,8 +79,19 @@ public abstract class DeviceHandler {
 	 * @param args arguments for the template.
 	 */
 	protected void logf(String template, Object... args) {
-		if (!this.logging) { return; }
-		System.out.printf("DevHandler " + this.handlerName + ": " + template, args);
+		if (this.logging) {
+			System.out.printf("DevHandler " + this.handlerName + ": " + template, args);
+		}
+		if (Trace.isEnabled(this.traceCategory)) {
+			Trace.logf(this.traceCategory, "DevHandler " + this.handlerName + ": " + template, args);
+		}
+	}
+	
+	/**
+	 * @return {@code true} if this device-handler logs to the console or is traced.
+	 */
+	protected boolean isLogging() {
+		return this.logging || Trace.isEnabled(this.traceCategory);
 	}
 	
 	/**
@@ -85,8 +101,10 @@ public abstract class DeviceHandler {
 	 * @param args arguments for the template.
 	 */
 	protected void slogf(String template, Object... args) {
-		if (!this.logging) { return; }
-		System.out.printf(template, args);
+		if (this.logging) {
+			System.out.printf(template, args);
+		}
+		Trace.logf(this.traceCategory, template, args);
 	}
 	
 	/**
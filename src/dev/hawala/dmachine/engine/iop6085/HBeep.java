@@ -28,7 +28,7 @@ package dev.hawala.dmachine.engine.iop6085;
 
 import static dev.hawala.dmachine.engine.iop6085.IORegion.*;
 
-import dev.hawala.dmachine.engine.Config;
+import dev.hawala.dmachine.engine.Trace;
 import dev.hawala.dmachine.engine.iop6085.IOPTypes.IOPCondition;
 import dev.hawala.dmachine.engine.iop6085.IOPTypes.NotifyMask;
 import dev.hawala.dmachine.engine.iop6085.IOPTypes.TaskContextBlock;
@@ -82,7 +82,7 @@ public class HBeep extends DeviceHandler {
 	private final FCB fcb;
 	
 	public HBeep() {
-		super(BeepFCB, Config.IO_LOG_DISPLAY);
+		super(BeepFCB, Trace.Category.display);
 		this.fcb = new FCB();
 	}
 
@@ -54,11 +54,11 @@ import java.util.zip.InflaterInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
-import dev.hawala.dmachine.engine.Config;
 import dev.hawala.dmachine.engine.Cpu;
 import dev.hawala.dmachine.engine.Mem;
 import dev.hawala.dmachine.engine.PrincOpsDefs;
 import dev.hawala.dmachine.engine.Processes;
+import dev.hawala.dmachine.engine.Trace;
 import dev.hawala.dmachine.engine.iop6085.IOPTypes.ByteSwappedPointer;
 import dev.hawala.dmachine.engine.iop6085.IOPTypes.ClientCondition;
 import dev.hawala.dmachine.engine.iop6085.IOPTypes.IOPCondition;
@@ -810,7 +810,7 @@ public class HDisk extends DeviceHandler {
 	private final boolean logLabelProblems;
 	
 	public HDisk(VerifyLabelOp labelOpOnRead, VerifyLabelOp labelOpOnWrite, VerifyLabelOp labelOpOnVerify, boolean logLabelProblems) {
-		super(DiskFCB, Config.IO_LOG_DISK);
+		super(DiskFCB, Trace.Category.disk);
 		this.labelOpOnRead = labelOpOnRead;
 		this.labelOpOnWrite = labelOpOnWrite;
 		this.labelOpOnVerify = labelOpOnVerify;
@@ -1383,9 +1383,7 @@ public class HDisk extends DeviceHandler {
 		
 		// create DiskFile and append to files
 		try {
-			if (Config.IO_LOG_DISK) {
-				Cpu.logInfo("IOP::HDisk.addFile :: adding file '" + filePath + "'");
-			}
+			Trace.logf(Trace.Category.disk, "IOP::HDisk.addFile :: adding file '%s'\n", filePath);
 			DiskFile diskfile = new DiskFile(f, readonly, deltasToKeep);
 			diskFiles.add(diskfile);
 			return true;
@@ -1508,8 +1506,8 @@ public class HDisk extends DeviceHandler {
 		
 		// local logging function
 		private void logf(String template, Object... args) {
-			if (Config.IO_LOG_DISK) {
-				System.out.printf("DiskFile[" + f.getName() + "]: " + template, args);
+			if (Trace.isEnabled(Trace.Category.disk)) {
+				Trace.logf(Trace.Category.disk, "DiskFile[" + f.getName() + "]: " + template, args);
 			}
 		}
 		private void logf(StringBuilder sb, String template, Object... args) {
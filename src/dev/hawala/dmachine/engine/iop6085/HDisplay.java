@@ -34,6 +34,7 @@ import static dev.hawala.dmachine.engine.iop6085.IORegion.mkWord;
 import dev.hawala.dmachine.engine.Config;
 import dev.hawala.dmachine.engine.Mem;
 import dev.hawala.dmachine.engine.Processes;
+import dev.hawala.dmachine.engine.Trace;
 import dev.hawala.dmachine.engine.iUiDataConsumer;
 import dev.hawala.dmachine.engine.iop6085.IOPTypes.ClientCondition;
 import dev.hawala.dmachine.engine.iop6085.IOPTypes.TaskContextBlock;
@@ -206,7 +207,7 @@ public class HDisplay extends DeviceHandler {
 	private final FCB fcb;
 	
 	public HDisplay(HKeyboardMouse keyMoHandler) {
-		super(DisplayFCB, Config.IO_LOG_DISPLAY);
+		super(DisplayFCB, Trace.Category.display);
 		this.keyMoHandler = keyMoHandler;
 		
 		// allocate FCB data
@@ -35,10 +35,10 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
 
-import dev.hawala.dmachine.engine.Config;
 import dev.hawala.dmachine.engine.Cpu;
 import dev.hawala.dmachine.engine.Mem;
 import dev.hawala.dmachine.engine.Processes;
+import dev.hawala.dmachine.engine.Trace;
 import dev.hawala.dmachine.engine.agents.NetworkHubInterface;
 import dev.hawala.dmachine.engine.agents.NetworkInternalTimeService;
 import dev.hawala.dmachine.engine.agents.iNetDeviceInterface;
@@ -367,7 +367,7 @@ public class HEthernet extends DeviceHandler {
 	private final byte[] packetBuffer = new byte[2048];
 	
 	public HEthernet() {
-		super(NetworkFCB, Config.IO_LOG_NETWORK);
+		super(NetworkFCB, Trace.Category.network);
 		this.fcb = new FCB();
 		
 		if (hubHostname != null && !hubHostname.isEmpty()
@@ -39,9 +39,9 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-import dev.hawala.dmachine.engine.Config;
 import dev.hawala.dmachine.engine.Mem;
 import dev.hawala.dmachine.engine.Processes;
+import dev.hawala.dmachine.engine.Trace;
 import dev.hawala.dmachine.engine.iop6085.IOPTypes.ClientCondition;
 import dev.hawala.dmachine.engine.iop6085.IOPTypes.IOPCondition;
 import dev.hawala.dmachine.engine.iop6085.IOPTypes.NotifyMask;
@@ -819,7 +819,7 @@ public class HFloppy extends DeviceHandler {
 	private final IOCB workIocb = new IOCB(0); // will be rebased for each access IOCB enqueue by head
 	
 	public HFloppy() {
-		super(FloppyFCB, Config.IO_LOG_FLOPPY);
+		super(FloppyFCB, Trace.Category.floppy);
 		this.fcb = new FCB();
 		
 		// initialize FCB: we have 1x Shugart SA-455 as drive 0 and no more drives
@@ -1036,7 +1036,7 @@ public class HFloppy extends DeviceHandler {
 	}
 	
 	private void dumpWorkIocb(String intro) {
-		if (!this.logging) { return; }
+		if (!this.isLogging()) { return; }
 		this.logf(intro + "\n");
 		this.slogf("    - operation: %s\n", this.workIocb.operation.toString());
 		this.slogf("    - generalizedFDCOperation........: %s\n", getExtendedFDCcommandTypeName(this.workIocb.generalizedFDCOperation.get()));
@@ -1263,9 +1263,7 @@ public class HFloppy extends DeviceHandler {
 		public abstract boolean save(StringBuilder errors);
 		
 		protected void logf(String template, Object... args) {
-			if (Config.IO_LOG_FLOPPY) {
-				//System.out.printf(template, args);
-			}
+			Trace.logf(Trace.Category.floppy, template, args);
 		}
 
 		public int getCyl0Sectors() {
@@ -28,8 +28,8 @@ package dev.hawala.dmachine.engine.iop6085;
 
 import static dev.hawala.dmachine.engine.iop6085.IORegion.*;
 
-import dev.hawala.dmachine.engine.Config;
 import dev.hawala.dmachine.engine.Processes;
+import dev.hawala.dmachine.engine.Trace;
 import dev.hawala.dmachine.engine.eLevelVKey;
 import dev.hawala.dmachine.engine.iop6085.IOPTypes.TaskContextBlock;
 import dev.hawala.dmachine.engine.iop6085.IORegion.IORAddress;
@@ -114,7 +114,7 @@ public class HKeyboardMouse extends DeviceHandler {
 	private final FCB fcb;
 	
 	public HKeyboardMouse() {
-		super(KeyMoFCB, Config.IO_LOG_KEYBOARD | Config.IO_LOG_MOUSE);
+		super(KeyMoFCB, Trace.Category.keyboard);
 		
 		this.fcb = new FCB();
 		
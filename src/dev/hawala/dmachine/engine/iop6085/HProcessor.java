@@ -36,9 +36,9 @@ import static dev.hawala.dmachine.engine.iop6085.IORegion.mkWord;
 import java.time.LocalDate;
 import java.util.Date;
 
-import dev.hawala.dmachine.engine.Config;
 import dev.hawala.dmachine.engine.Cpu;
 import dev.hawala.dmachine.engine.Mem;
+import dev.hawala.dmachine.engine.Trace;
 import dev.hawala.dmachine.engine.iop6085.IOPTypes.IOPCondition;
 import dev.hawala.dmachine.engine.iop6085.IOPTypes.NotifyMask;
 import dev.hawala.dmachine.engine.iop6085.IOPTypes.TaskContextBlock;
@@ -179,7 +179,7 @@ public class HProcessor extends DeviceHandler {
 	}
 	
 	public HProcessor() {
-		super("Processor", Config.IO_LOG_PROCESSOR);
+		super("Processor", Trace.Category.processor);
 		
 		this.fcb = new FCB();
 		
@@ -30,7 +30,7 @@ import static dev.hawala.dmachine.engine.iop6085.IORegion.mkByteSwappedWord;
 import static dev.hawala.dmachine.engine.iop6085.IORegion.mkIOPBoolean;
 import static dev.hawala.dmachine.engine.iop6085.IORegion.mkWord;
 
-import dev.hawala.dmachine.engine.Config;
+import dev.hawala.dmachine.engine.Trace;
 import dev.hawala.dmachine.engine.iop6085.IOPTypes.ClientCondition;
 import dev.hawala.dmachine.engine.iop6085.IOPTypes.IOPCondition;
 import dev.hawala.dmachine.engine.iop6085.IOPTypes.NotifyMask;
@@ -147,7 +147,7 @@ public class HTTY extends DeviceHandler {
 	private final FCB fcb;
 	
 	public HTTY() {
-		super(TTYFCB, Config.IO_LOG_TTY);
+		super(TTYFCB, Trace.Category.tty);
 		
 		this.fcb = new FCB();
 	}
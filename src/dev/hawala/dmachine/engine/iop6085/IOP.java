@@ -262,6 +262,7 @@ public class IOP extends Mem /* inherit from class Mem for directly accessing th
 
 		@Override
 		public void acceptKeyboardKey(eLevelVKey key, boolean isPressed) {
+			Processes.noteUiInput();
 			if (hKeyMo == null) { return; }
 			hKeyMo.handleKeyUsage(key, isPressed);
 		}
@@ -274,6 +275,7 @@ public class IOP extends Mem /* inherit from class Mem for directly accessing th
 
 		@Override
 		public void acceptMouseKey(int key, boolean isPressed) {
+			Processes.noteUiInput(); // also for clicks not mapped to a mesa key
 			if (key == 1) {
 				this.acceptKeyboardKey(eLevelVKey.Point, isPressed);
 			} else if (key == 2) {
@@ -285,6 +287,7 @@ public class IOP extends Mem /* inherit from class Mem for directly accessing th
 
 		@Override
 		public void acceptMousePosition(int x, int y) {
+			Processes.noteUiInput();
 			if (hDisplay == null) { return; }
 			hDisplay.recordMouseMoved(x, y);
 		}
@@ -301,6 +304,11 @@ public class IOP extends Mem /* inherit from class Mem for directly accessing th
 			return null;
 		}
 		
+		@Override
+		public int getColorTableGeneration() {
+			return 0; // no color table for the monochrome display
+		}
+		
 	}
 	
 	private static UiCallbacks uiCallbacks = null;
@@ -26,16 +26,20 @@ ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package dev.hawala.dmachine.engine.opcodes;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
-import dev.hawala.dmachine.engine.Config;
 import dev.hawala.dmachine.engine.Cpu;
 import dev.hawala.dmachine.engine.Mem;
 import dev.hawala.dmachine.engine.Opcodes.OpImpl;
 import dev.hawala.dmachine.engine.PilotDefs.DisplayType;
 import dev.hawala.dmachine.engine.PrincOpsDefs;
 import dev.hawala.dmachine.engine.Processes;
+import dev.hawala.dmachine.engine.Trace;
 
 /**
  * Implementation of instructions defined in PrincOps 4.0
@@ -72,12 +76,11 @@ public class Ch08_Block_Transfers {
 			int source = Cpu.pop() & 0xFFFF;
 			
 			try {
-				while(true) {
-					if (count == 0) { return; }
-					Mem.writeMDSWord(dest, Mem.readMDSWord(source)); // this may throw a MesaAbort on page fault
-					count--;
-					source++;
-					dest++;
+				while(count > 0) {
+					int n = Mem.copyWordSpan(Cpu.lengthenPointer(source), Cpu.lengthenPointer(dest), count); // this may throw a MesaAbort on page fault
+					count -= n;
+					source += n;
+					dest += n;
 					if (Processes.interruptPending() && count > 0) {
 						Cpu.push((short)source);
 						Cpu.push((short)count);
@@ -104,12 +107,11 @@ public class Ch08_Block_Transfers {
 			int source = Cpu.popLong();
 			
 			try {
-				while(true) {
-					if (count == 0) { return; }
-					Mem.writeWord(dest, Mem.readWord(source)); // this may throw a MesaAbort on page fault
-					count--;
-					source++;
-					dest++;
+				while(count > 0) {
+					int n = Mem.copyWordSpan(source, dest, count); // this may throw a MesaAbort on page fault
+					count -= n;
+					source += n;
+					dest += n;
 					if (Processes.interruptPending() && count > 0) {
 						Cpu.pushLong(source);
 						Cpu.push((short)count);
@@ -137,10 +139,8 @@ public class Ch08_Block_Transfers {
 			int source = Cpu.popLong();
 					
 			try {
-				while(true) {
-					if (count == 0) { return; }
-					Mem.writeWord(dest + count - 1, Mem.readWord(source + count - 1)); // this may throw a MesaAbort on page fault
-					count--;
+				while(count > 0) {
+					count -= Mem.copyWordSpanReversed(source, dest, count); // this may throw a MesaAbort on page fault
 					if (Processes.interruptPending() && count > 0) {
 						Cpu.pushLong(source);
 						Cpu.push((short)count);
@@ -167,12 +167,15 @@ public class Ch08_Block_Transfers {
 			int source = Cpu.pop() & 0xFFFF;
 			
 			try {
-				while(true) {
-					if (count == 0) { return; }
-					Mem.writeMDSWord(dest, Mem.readCode(source)); // this may throw a MesaAbort on page fault
-					count--;
-					source++;
-					dest++;
+				while(count > 0) {
+					// the code source offset wraps inside the 64K-block at CB
+					int n = Mem.copyWordSpan(
+							Cpu.CB + (source & 0xFFFF),
+							Cpu.lengthenPointer(dest),
+							Math.min(count, 0x10000 - (source & 0xFFFF))); // this may throw a MesaAbort on page fault
+					count -= n;
+					source += n;
+					dest += n;
 					if (Processes.interruptPending() && count > 0) {
 						Cpu.push((short)source);
 						Cpu.push((short)count);
@@ -199,12 +202,15 @@ public class Ch08_Block_Transfers {
 			int source = Cpu.pop() & 0xFFFF;
 			
 			try {
-				while(true) {
-					if (count == 0) { return; }
-					Mem.writeWord(dest, Mem.readCode(source)); // this may throw a MesaAbort on page fault
-					count--;
-					source++;
-					dest++;
+				while(count > 0) {
+					// the code source offset wraps inside the 64K-block at CB
+					int n = Mem.copyWordSpan(
+							Cpu.CB + (source & 0xFFFF),
+							dest,
+							Math.min(count, 0x10000 - (source & 0xFFFF))); // this may throw a MesaAbort on page fault
+					count -= n;
+					source += n;
+					dest += n;
 					if (Processes.interruptPending() && count > 0) {
 						Cpu.push((short)source);
 						Cpu.push((short)count);
@@ -230,11 +236,11 @@ public class Ch08_Block_Transfers {
 			int count = Cpu.pop() & 0xFFFF;
 			int cksum = Cpu.pop() & 0xFFFF;
 			try {
-				while(true) {
-					if (count == 0) { break; }
-					cksum = checksum(cksum, Mem.readWord(source)); // this may throw a MesaAbort on page fault
-					count--;
-					source++;
+				while(count > 0) {
+					int n = Math.min(count, Mem.wordsToPageEnd(source));
+					cksum = Mem.checksumWords(cksum, source, n); // this may throw a MesaAbort on page fault
+					count -= n;
+					source += n;
 					if (Processes.interruptPending() && count > 0) {
 						Cpu.push((short)cksum);
 						Cpu.push((short)count);
@@ -255,17 +261,6 @@ public class Ch08_Block_Transfers {
 		}
 	};
 	
-	private static int checksum(int cksum, short data) {
-		int temp = (cksum + (data & 0xFFFF)) & 0xFFFF;
-		if (cksum > temp) { temp = temp + 1; }
-		if (temp >= 0100000) {
-			temp = (temp * 2) + 1;
-		} else {
-			temp = temp * 2;
-		}
-		return temp & 0xFFFF;
-	}
-	
 	/*
 	 * 8.2 Block Comparisons
 	 */
@@ -282,13 +277,14 @@ public class Ch08_Block_Transfers {
 						Cpu.push((short)1); // true
 						return;
 					}
-					if (Mem.readWord(ptr1) != Mem.readWord(ptr2)) { // this may throw a MesaAbort on page fault
+					int n = Mem.compareWordSpan(ptr1, ptr2, count); // this may throw a MesaAbort on page fault
+					if (n < 0) {
 						Cpu.push(0); // false
 						return;
 					}
-					count--;
-					ptr1++;
-					ptr2++;
+					count -= n;
+					ptr1 += n;
+					ptr2 += n;
 					if (Processes.interruptPending()) {
 						if (count == 0) {
 							Cpu.push((short)1); // true
@@ -323,13 +319,18 @@ public class Ch08_Block_Transfers {
 						Cpu.push((short)1); // true
 						return;
 					}
-					if (Mem.readWord(ptr) != Mem.readCode(offset)) { // this may throw a MesaAbort on page fault
+					// the code offset wraps inside the 64K-block at CB
+					int n = Mem.compareWordSpan(
+							ptr,
+							Cpu.CB + (offset & 0xFFFF),
+							Math.min(count, 0x10000 - (offset & 0xFFFF))); // this may throw a MesaAbort on page fault
+					if (n < 0) {
 						Cpu.push(0); // false
 						return;
 					}
-					count--;
-					ptr++;
-					offset++;
+					count -= n;
+					ptr += n;
+					offset += n;
 					if (Processes.interruptPending()) {
 						if (count == 0) {
 							Cpu.push((short)1); // true
@@ -372,10 +373,10 @@ public class Ch08_Block_Transfers {
 			
 			try {
 				while(count != 0) {
-					Mem.storeByte(destBase, destOffset, Mem.fetchByte(sourceBase, sourceOffset));
-					count--;
-					sourceOffset++;
-					destOffset++;
+					int n = Mem.copyByteSpan(sourceBase, sourceOffset, destBase, destOffset, count); // this may throw a MesaAbort on page fault
+					count -= n;
+					sourceOffset += n;
+					destOffset += n;
 					if (Processes.interruptPending() && count > 0) {
 						Cpu.pushLong(destBase);
 						Cpu.push((short)(destOffset));
@@ -412,15 +413,9 @@ public class Ch08_Block_Transfers {
 			destBase += destOffset / 2;
 			destOffset = destOffset % 2;
 			
-			int srcPos = sourceOffset + count;
-			int dstPos = destOffset + count;
-			
 			try {
 				while(count != 0) {
-					srcPos--;
-					dstPos--;
-					Mem.storeByte(destBase, dstPos, Mem.fetchByte(sourceBase, srcPos));
-					count--;
+					count -= Mem.copyByteSpanReversed(sourceBase, sourceOffset, destBase, destOffset, count); // this may throw a MesaAbort on page fault
 					if (Processes.interruptPending() && count > 0) {
 						Cpu.pushLong(destBase);
 						Cpu.push((short)(destOffset));
@@ -495,6 +490,12 @@ public class Ch08_Block_Transfers {
 		 * Initial load the cache for the first line.
 		 */
 		void loadLineCache();
+		
+		/**
+		 * Position to the line {@code count} lines after the first line
+		 * before starting the transfer.
+		 */
+		void skipLines(int count);
 	}
 	
 	private interface PixelSink extends PixelSource {
@@ -518,7 +519,19 @@ public class Ch08_Block_Transfers {
 		int combine(int left, int right);
 	}
 		
+	// the combiners already created, indexed by srcFunc and dstFunc ordinals
+	private static final PixelCombiner[][] combiners = new PixelCombiner[SrcFunc.values().length][DstFunc.values().length];
+	
 	private static PixelCombiner getCombiner(SrcFunc srcFunc, DstFunc dstFunc) {
+		PixelCombiner combiner = combiners[srcFunc.ordinal()][dstFunc.ordinal()];
+		if (combiner == null) {
+			combiner = createCombiner(srcFunc, dstFunc);
+			combiners[srcFunc.ordinal()][dstFunc.ordinal()] = combiner;
+		}
+		return combiner;
+	}
+	
+	private static PixelCombiner createCombiner(SrcFunc srcFunc, DstFunc dstFunc) {
 		PixelCombiner dstOp;
 		
 		switch(dstFunc) {
@@ -575,20 +588,22 @@ public class Ch08_Block_Transfers {
 	 */
 	private static class PixmapForwardPixelSink implements PixelSink {
 		
-		private final int bitsPerPixel; // 1, 4, 8 ?
+		private int bitsPerPixel; // 1, 4, 8 ?
 		
-		private final int pixelMask; // mask to get a pixel out of a word after shifting to low bits
+		private int pixelMask; // mask to get a pixel out of a word after shifting to low bits
 		
-		private final int pixelsPerLine; // line length in pixels, as per initialization
-		private final int bitsPerLine;   // line length in bits (pixelsPerLine * bitsPerPixel)
+		private int pixelsPerLine; // line length in pixels, as per initialization
+		private int bitsPerLine;   // line length in bits (pixelsPerLine * bitsPerPixel)
 		
-		private final int pixelTransferWidth; // pixels to transfer per line
+		private int pixelTransferWidth; // pixels to transfer per line
 		
-		private final int wordsPerLine; // number of words to buffer for a single line
+		private int wordsPerLine; // number of words to buffer for a single line
 		
-		private final boolean isBackward; // is the next line to process before (above) or after (below) the current line?
+		private boolean isBackward; // is the next line to process before (above) or after (below) the current line?
 		
-		private final int[] lineCache;
+		private int[] lineCache = null; // kept when resetting if large enough
+		
+		private boolean prevalidated; // access memory with Mem.*Prevalidated() (for band workers)
 		
 		private int lpLineStart; // LongPointer to 1st word of current pixel line 
 		
@@ -610,6 +625,32 @@ public class Ch08_Block_Transfers {
 				int transferWidth,
 				int bitsPerPixel,
 				boolean backward) {
+			this(lpLineStart, pixelOffset, pixelsPerLine, transferWidth, bitsPerPixel, backward, false);
+		}
+		
+		public PixmapForwardPixelSink(
+				int lpLineStart,
+				int pixelOffset,
+				int pixelsPerLine,
+				int transferWidth,
+				int bitsPerPixel,
+				boolean backward,
+				boolean prevalidated) {
+			this.reset(lpLineStart, pixelOffset, pixelsPerLine, transferWidth, bitsPerPixel, backward, prevalidated);
+		}
+		
+		// create an instance to be initialized with reset()
+		public PixmapForwardPixelSink() { }
+		
+		// (re-)initialize this instance, reusing the line cache if it is large enough
+		public PixmapForwardPixelSink reset(
+				int lpLineStart,
+				int pixelOffset,
+				int pixelsPerLine,
+				int transferWidth,
+				int bitsPerPixel,
+				boolean backward,
+				boolean prevalidated) {
 			
 			if (bitsPerPixel != 1 && bitsPerPixel != 4 && bitsPerPixel != 8) {
 				throw new IllegalArgumentException("bitsPerPixel not one of 1,4,8");
@@ -642,8 +683,11 @@ public class Ch08_Block_Transfers {
 			this.wordsPerLine 
 				= (((Math.abs(pixelOffset) + Math.abs(transferWidth)) * bitsPerPixel) + PrincOpsDefs.WORD_BITS - 1) / PrincOpsDefs.WORD_BITS
 				+ (((Math.abs(transferWidth) % 16) != 0) ? 1 : 0);
-			this.lineCache = new int[this.wordsPerLine];
+			if (this.lineCache == null || this.lineCache.length < this.wordsPerLine) {
+				this.lineCache = new int[this.wordsPerLine];
+			}
 			this.isBackward = backward;
+			this.prevalidated = prevalidated;
 			
 			// setup other members
 			int bitsOffset = pixelOffset * this.bitsPerPixel;
@@ -664,7 +708,8 @@ public class Ch08_Block_Transfers {
 //				System.out.printf(" => x = %d , y = %d\n",
 //						Mem.getDisplayX(this.lpLineStart, this.pixelOffset), Mem.getDisplayY(this.lpLineStart, this.pixelOffset));
 //			}
-
+			
+			return this;
 		}
 
 		@Override
@@ -696,17 +741,63 @@ public class Ch08_Block_Transfers {
 //			}
 		}
 		
+		@Override
+		public void skipLines(int count) {
+			for (int i = 0; i < count; i++) {
+				this.moveToNextLine();
+			}
+		}
+		
+		public int getLineStart() {
+			return this.lpLineStart;
+		}
+		
+		// number of words holding the pixels to transfer on the current line
+		public int getLineWordCount() {
+			return (((this.pixelOffset + this.pixelTransferWidth) * this.bitsPerPixel) + PrincOpsDefs.WORD_BITS - 1) / PrincOpsDefs.WORD_BITS;
+		}
+		
+		// the cached words of the current line, for pixel kernels working on complete lines
+		public int[] getLineCache() {
+			return this.lineCache;
+		}
+		
+		// index of the 1st pixel to transfer in the cached words
+		public int getLinePixelIndex() {
+			return this.pixelOffset;
+		}
+		
+		// write back all cached words of the current line
+		public void flushLine() {
+			int wordCount = this.getLineWordCount();
+			if (this.prevalidated) {
+				for (int i = 0; i < wordCount; i++) {
+					Mem.writeWordPrevalidated(this.lpLineStart + i, (short)this.lineCache[i]);
+				}
+			} else {
+				for (int i = 0; i < wordCount; i++) {
+					Mem.writeWord(this.lpLineStart + i, (short)this.lineCache[i]);
+				}
+			}
+		}
+		
 		@Override
 		public void loadLineCache() {
-			int wordsToCache = (((this.pixelOffset + this.pixelTransferWidth) * this.bitsPerPixel) + PrincOpsDefs.WORD_BITS - 1) / PrincOpsDefs.WORD_BITS;
+			int wordsToCache = this.getLineWordCount();
 			if (wordsToCache > wordsPerLine) {
 				System.out.flush();
 				System.err.printf(
 						"## wordsToCache(%d) > wordsPerLine(%d) <<== pixelOffset(%d) , pixelsPerLine(%d)\n", 
 						wordsToCache, wordsPerLine, pixelOffset, pixelsPerLine);
 			}
-			for (int i = 0; i < wordsToCache /*this.wordsPerLine*/; i++) {
-				this.lineCache[i] = Mem.readWord(this.lpLineStart + i);
+			if (this.prevalidated) {
+				for (int i = 0; i < wordsToCache; i++) {
+					this.lineCache[i] = Mem.readWordPrevalidated(this.lpLineStart + i);
+				}
+			} else {
+				for (int i = 0; i < wordsToCache /*this.wordsPerLine*/; i++) {
+					this.lineCache[i] = Mem.readWord(this.lpLineStart + i);
+				}
 			}
 			this.pixWordOffs = 0;
 			this.currPixWordOffs = 0;
@@ -748,7 +839,11 @@ public class Ch08_Block_Transfers {
 		
 		@Override
 		public void flush() {
-			Mem.writeWord(this.lpLineStart + this.currPixWordOffs, (short)(this.pixWord & 0xFFFF));
+			if (this.prevalidated) {
+				Mem.writeWordPrevalidated(this.lpLineStart + this.currPixWordOffs, (short)(this.pixWord & 0xFFFF));
+			} else {
+				Mem.writeWord(this.lpLineStart + this.currPixWordOffs, (short)(this.pixWord & 0xFFFF));
+			}
 		}
 		
 	}
@@ -765,12 +860,19 @@ public class Ch08_Block_Transfers {
 					int pixelsPerLine,
 					int transferWidth,
 					int bitsPerPixel,
-					boolean backward) {
-			super(lpLineStart, pixelOffset, pixelsPerLine, transferWidth, bitsPerPixel, backward);
+					boolean backward,
+					boolean prevalidated) {
+			super(lpLineStart, pixelOffset, pixelsPerLine, transferWidth, bitsPerPixel, backward, prevalidated);
 		}
 		
+		// create an instance to be initialized with reset()
+		public PixmapForwardPixelSource() { }
+		
 		@Override
 		public void flush() { } // prevent writes for a pixel source
+		
+		@Override
+		public void flushLine() { } // prevent writes for a pixel source
 	}
 	
 	/**
@@ -779,17 +881,18 @@ public class Ch08_Block_Transfers {
 	 */
 	private static class MonochromePackedPatternPixelSource implements PixelSource {
 		
-		private final int wordsWidth; // pattern width in words = GrayParm.widthMinusOne + 1
+		private int wordsWidth; // pattern width in words = GrayParm.widthMinusOne + 1
 		
-		private final int pixelsHeight; // pattern height in lines = GrayParm.heightMinusOne + 1
+		private int pixelsHeight; // pattern height in lines = GrayParm.heightMinusOne + 1
 		
-		private final int xOffset; // 1st pixel-bit to start in each pattern line 
+		private int xOffset; // 1st pixel-bit to start in each pattern line 
 		
-		private final int lpPatternStart; // long pointer to the true 1st word of the pattern
+		private int lpPatternStart; // long pointer to the true 1st word of the pattern
 		
 		private int yOffset; // current pattern line: [0..pixelsHeight)
 		
-		private short[] patternWords = null; // loaded at first access => restartability
+		private short[] patternWords = null; // kept when resetting if large enough
+		private boolean patternLoaded = false; // loaded at first access => restartability
 		
 		private int currWordInLine; // relative position in wordsWidth
 		private int currWordOffset; // absolute offset in patternsWord
@@ -803,26 +906,47 @@ public class Ch08_Block_Transfers {
 				int widthMinusOne, // as of reinterpreted arg.srcBpl
 				int heightMinusOne // as of reinterpreted arg.srcBpl
 				) {
+			this.reset(argSrcWord, argSrcBit, yOffset, widthMinusOne, heightMinusOne);
+		}
+		
+		// create an instance to be initialized with reset()
+		public MonochromePackedPatternPixelSource() { }
+		
+		// (re-)initialize this instance, the pattern words being reloaded at first access
+		public MonochromePackedPatternPixelSource reset(int argSrcWord, int argSrcBit, int yOffset, int widthMinusOne, int heightMinusOne) {
 			this.wordsWidth = widthMinusOne + 1;
 			this.pixelsHeight = heightMinusOne + 1;
 			this.xOffset = argSrcBit;
 			this.lpPatternStart = argSrcWord - (yOffset * this.wordsWidth);
 			this.yOffset = yOffset;
+			this.patternLoaded = false;
+			return this;
 		}
 		
 		@Override
 		public void loadLineCache() {
-			if (patternWords == null) {
-				short[] words = new short[this.wordsWidth * this.pixelsHeight];
-				for (int i = 0; i < words.length; i++) {
-					words[i] = Mem.readWord(this.lpPatternStart + i);
+			if (!this.patternLoaded) {
+				int wordCount = this.wordsWidth * this.pixelsHeight;
+				if (this.patternWords == null || this.patternWords.length < wordCount) {
+					this.patternWords = new short[wordCount];
 				}
-				this.patternWords = words;
+				for (int i = 0; i < wordCount; i++) {
+					this.patternWords[i] = Mem.readWord(this.lpPatternStart + i);
+				}
+				this.patternLoaded = true;
 				this.yOffset--;
 				this.moveToNextLine();
 			}
 		}
 
+		@Override
+		public void skipLines(int count) {
+			this.loadLineCache();
+			for (int i = 0; i < count; i++) {
+				this.moveToNextLine();
+			}
+		}
+
 		@Override
 		public void moveToNextLine() {
 			this.yOffset++;
@@ -839,6 +963,21 @@ public class Ch08_Block_Transfers {
 		public int getCurrPixel() {
 			return ((this.currWord & this.currBitMask) == 0) ? 0 : 1;
 		}
+		
+		// can the pixels of a line be taken from a single pattern word?
+		public boolean isWordPattern() {
+			return this.wordsWidth == 1 && this.xOffset < PrincOpsDefs.WORD_BITS;
+		}
+		
+		// the pattern word for the current line
+		public int getLinePatternWord() {
+			return this.patternWords[this.currWordOffset] & 0xFFFF;
+		}
+		
+		// the bit in the pattern word for the first pixel of a line
+		public int getPatternBit() {
+			return this.xOffset;
+		}
 
 		@Override
 		public void moveToNextPixel() {
@@ -917,6 +1056,14 @@ public class Ch08_Block_Transfers {
 			}
 		}
 
+		@Override
+		public void skipLines(int count) {
+			this.loadLineCache();
+			for (int i = 0; i < count; i++) {
+				this.moveToNextLine();
+			}
+		}
+
 		@Override
 		public int getCurrPixel() {
 			return this.patternPixels[this.baseIdx + this.currX];
@@ -948,11 +1095,17 @@ public class Ch08_Block_Transfers {
 	 */
 	private static class UnipixelPatternSource implements PixelSource {
 		
-		private final int pixel;
+		private int pixel;
 		
 		public UnipixelPatternSource(int pixel) {
 			this.pixel = pixel;
 		}
+		
+		// (re-)initialize this instance
+		public UnipixelPatternSource reset(int pixel) {
+			this.pixel = pixel;
+			return this;
+		}
 
 		@Override
 		public int getCurrPixel() {
@@ -973,6 +1126,11 @@ public class Ch08_Block_Transfers {
 		public void loadLineCache() {
 			// irrelevant
 		}
+
+		@Override
+		public void skipLines(int count) {
+			// irrelevant
+		}
 	}
 	
 	/**
@@ -989,10 +1147,20 @@ public class Ch08_Block_Transfers {
 		 */
 		private static int lastPendingBitBltId = 0;
 		
-		private final int id;
+		private int id;
+		
+		private boolean pending = false; // is this operation entered in pendingBitBlts?
+		
+		private final BitBltArgsPool pool; // where to return this instance when the operation is done
+		
+		public BitBltArgs(BitBltArgsPool pool) {
+			this.pool = pool;
+			this.renewId();
+		}
 		
-		public BitBltArgs() {
-			this.id = ++lastPendingBitBltId;	
+		// give this instance a new identity for the next operation
+		private void renewId() {
+			this.id = ++lastPendingBitBltId;
 		}
 		
 		public int getId() {
@@ -1040,11 +1208,19 @@ public class Ch08_Block_Transfers {
 		// the working objects doing the real work
 		private PixelCombiner combiner = null;
 		private PixelSource pixelSource = null;
-		private PixelSink pixelSink = null;
+		private PixmapForwardPixelSink pixelSink = null;
 		private int remainingLines = 0;
+		private boolean bytePixelKernel = false; // transfer lines with transferBytePixels()?
+		private boolean patternWordKernel = false; // transfer lines with transferPatternWord()?
+		
+		// the objects reused as pixel source and sink of the main transfer when this instance is reused
+		private final PixmapForwardPixelSource reusablePixmapSource = new PixmapForwardPixelSource();
+		private final PixmapForwardPixelSink reusablePixmapSink = new PixmapForwardPixelSink();
+		private final MonochromePackedPatternPixelSource reusablePackedPattern = new MonochromePackedPatternPixelSource();
+		private final UnipixelPatternSource reusableUnipixel = new UnipixelPatternSource(0);
 		
 		// initialize for COLORBLT: load 13 words from *pointer
-		public BitBltArgs loadFromColorBltArgs(short pointer, String logMsg) {
+		public BitBltArgs loadFromColorBltArgs(short pointer) {
 			this.dstWord = Mem.readMDSDblWord(pointer);
 			this.dstPixel = Mem.readMDSWord(pointer, 2) & 0xFFFF;
 			
@@ -1075,40 +1251,8 @@ public class Ch08_Block_Transfers {
 			this.colorMapping[0] = Mem.readMDSWord(pointer, 11);
 			this.colorMapping[1] = Mem.readMDSWord(pointer, 12);
 
-			// logging if enabled and the special key is pressed (see KeyboardMapper.pressed(key) => F1) 
-			int dstX = Mem.getDisplayX(this.dstWord, this.dstPixel);
-			int dstY = Mem.getDisplayY(this.dstWord, this.dstPixel);
-			if (Config.LOG_BITBLT_INSNS && Config.dynLogBitblts) { // if (Config.LOG_BITBLT_INSNS && dstX >= 700 && dstY >= 0 && dstY < 32) {
-				if (logMsg != null) { System.out.println(logMsg); }
-				System.out.printf("\n++ loadFromColorBltArgs( 0x%04X )\n", pointer);
-				System.out.printf("++ dstWord: 0x%08X , dstPixel: 0x%04X, dstPpl: %d\n", this.dstWord, this.dstPixel, this.dstPpl);
-				System.out.printf("++ srcWord: 0x%08X , srcPixel: 0x%04X, srcPpl: %d\n", this.srcWord, this.srcPixel, this.srcPpl);
-				if (Mem.isInDisplayMemory(srcWord)) {
-					System.out.printf("++ src :: x: %d , y: %d , width: %d , height: %d \n", 
-							Mem.getDisplayX(this.srcWord, this.srcPixel), Mem.getDisplayY(this.srcWord, this.srcPixel),
-							this.width, this.height);
-				}
-				if (Mem.isInDisplayMemory(dstWord)) {
-					System.out.printf("++ dst :: x: %d , y: %d , width: %d , height: %d , tmp = 0x%04X\n", 
-							dstX, dstY,
-							this.width, this.height, tmp);
-				} else {
-					System.out.printf("++ width: %d , height: %d , tmp = 0x%04X\n", this.width, this.height, tmp);
-				}
-				System.out.println("++   direction = " + this.direction);
-				System.out.println("++     srcType = " + this.srcType);
-				System.out.println("++     dstType = " + this.dstType);
-				System.out.println("++     pattern = " + this.pattern);
-				System.out.println("++     srcFunc = " + this.srcFunc);
-				System.out.println("++     dstFunc = " + this.dstFunc);
-				if (this.pattern) {
-					System.out.println("++     patReserved       = " + this.patReserved);
-					System.out.println("++     patUnpacked       = " + this.patUnpacked);
-					System.out.println("++     patYOffset        = " + this.patYOffset);
-					System.out.println("++     patWidthMinusOne  = " + this.patWidthMinusOne);
-					System.out.println("++     patHeightMinusOne = " + this.patHeightMinusOne);
-				}
-				System.out.printf("++ colorMapping[0] = %d , colorMapping[1] = %d\n\n", this.colorMapping[0], this.colorMapping[1]);
+			if (Trace.bitblt()) {
+				this.traceArgs("COLORBLT dst: 0x%08X + %d , dstPpl: %d , src: 0x%08X + %d , srcPpl: %d\n", tmp);
 			}
 			
 			this.setupWorkers();
@@ -1154,19 +1298,8 @@ public class Ch08_Block_Transfers {
 			this.colorMapping[0] = 0;
 			this.colorMapping[1] = 1;
 			
-			if (Config.LOG_BITBLT_INSNS && Config.dynLogBitblts) {
-				Cpu.logf("##\n## ESC x2B .. BITBLT at 0x%08X+0x%04X [insn# %d]\n##\n", Cpu.CB, Cpu.savedPC, Cpu.insns);
-				Cpu.logf("\n++ loadFromBitBltArgs( 0x%04X )\n", pointer);
-				Cpu.logf("++ dstWord: 0x%08X , dstPixel: 0x%04X, dstPpl: %d\n", this.dstWord, this.dstPixel, this.dstPpl);
-				Cpu.logf("++ srcWord: 0x%08X , srcPixel: 0x%04X, srcPpl: %d\n", this.srcWord, this.srcPixel, this.srcPpl);
-				Cpu.logf("++ width: %d , height: %d , tmp = 0x%04X\n", this.width, this.height, tmp);
-				Cpu.logf("++   direction = " + this.direction);
-				Cpu.logf("++     srcType = " + this.srcType);
-				Cpu.logf("++     dstType = " + this.dstType);
-				Cpu.logf("++     pattern = " + this.pattern);
-				Cpu.logf("++     srcFunc = " + this.srcFunc);
-				Cpu.logf("++     dstFunc = " + this.dstFunc);
-				Cpu.logf("++ colorMapping[0] = %d , colorMapping[1] = %d\n\n", this.colorMapping[0], this.colorMapping[1]);
+			if (Trace.bitblt()) {
+				this.traceArgs("BITBLT dst: 0x%08X + %d , dstPpl: %d , src: 0x%08X + %d , srcPpl: %d\n", tmp);
 			}
 
 			// Bug in VP 2.x:
@@ -1212,6 +1345,9 @@ public class Ch08_Block_Transfers {
 			this.dstFunc = DSTFUNC_MAP_COLORBLT[((tmp & 0x0700) >>> 8)];
 			this.flgReserved = (short)(tmp & 0x00FF);
 			
+			this.colorMapping[0] = 0;
+			this.colorMapping[1] = 1;
+			
 			System.out.printf("\n++ loadFromBitBltXArgs()\n");
 			System.out.printf("++ dstWord: 0x%08X , dstPixel: 0x%04X, dstPpl: %d\n", this.dstWord, this.dstPixel, this.dstPpl);
 			System.out.printf("++ srcWord: 0x%08X , srcPixel: 0x%04X, srcPpl: %d\n", this.srcWord, this.srcPixel, this.srcPpl);
@@ -1223,27 +1359,44 @@ public class Ch08_Block_Transfers {
 			return this;
 		}
 		
+		// record the instruction parameters in the trace ring buffer
+		private void traceArgs(String insnFormat, short flags) {
+			Trace.record(Trace.Category.bitblt, insnFormat,
+					this.dstWord, this.dstPixel, this.dstPpl, this.srcWord, this.srcPixel, this.srcPpl);
+			Trace.record(Trace.Category.bitblt, "  at 0x%04X : width: %d , height: %d , flags: 0x%04X , colorMapping: [ %d , %d ]\n",
+					Cpu.savedPC, this.width, this.height, flags & 0xFFFF, this.colorMapping[0], this.colorMapping[1]);
+		}
+		
 		// create pixel source and sink as well as the pixel combiner based on the instruction parameters.
 		private void setupWorkers() {
-			boolean isBackward = (this.direction == Direction.backward);
+			this.pixelSource = this.createPixelSource(false, true);
+			this.pixelSink = this.createPixelSink(false, true);
+			
+			this.combiner = getCombiner(this.srcFunc, this.dstFunc);
 			
+			this.remainingLines = this.height;
+		}
+		
+		// create a pixel source positioned at the first line, possibly reinitializing
+		// the reusable objects of this instance instead of allocating new ones
+		private PixelSource createPixelSource(boolean prevalidated, boolean reuse) {
 			if (this.pattern) {
 				boolean onePixel = (this.patWidthMinusOne == 0 && this.patHeightMinusOne == 0);
 				short w = Mem.readWord(this.srcWord);
 				if (onePixel && this.patUnpacked) {
 					if (this.srcType == PixelType.bit || Mem.getDisplayType() == DisplayType.monochrome) {
 						// monochrome source pattern
-						this.pixelSource = new UnipixelPatternSource((w == 0) ? 0 : 1);
+						return this.unipixelSource((w == 0) ? 0 : 1, reuse);
 					} else {
 						// color source pattern
-						this.pixelSource = new UnipixelPatternSource(w);
+						return this.unipixelSource(w, reuse);
 					}
 				} else if (onePixel && !this.patUnpacked && w == 0) {
-					this.pixelSource = new UnipixelPatternSource(0);
+					return this.unipixelSource(0, reuse);
 				} else if (onePixel && !this.patUnpacked && w == (short)0xFFFF) {
-					this.pixelSource = new UnipixelPatternSource(1);
+					return this.unipixelSource(1, reuse);
 				} else if (this.patUnpacked) {
-					this.pixelSource = new UnpackedPatternPixelSource(
+					return new UnpackedPatternPixelSource(
 							this.srcWord,            // argSrcWord
 							this.srcPixel,           // argSrcBit
 							this.patYOffset,         // yOffset
@@ -1252,34 +1405,39 @@ public class Ch08_Block_Transfers {
 							this.srcType == PixelType.bit || Mem.getDisplayType() == DisplayType.monochrome // monochrome?
 							);
 				} else {
-					this.pixelSource = new MonochromePackedPatternPixelSource(
+					return (reuse ? this.reusablePackedPattern : new MonochromePackedPatternPixelSource()).reset(
 							this.srcWord,            // argSrcWord
 							this.srcPixel,           // argSrcBit
 							this.patYOffset,         // yOffset
 							this.patWidthMinusOne,   // widthMinusOne
 							this.patHeightMinusOne); // heightMinusOne
 				}
-			} else {
-				this.pixelSource = new PixmapForwardPixelSource(
-						this.srcWord,   // lpLineStart
-						this.srcPixel,  // pixelOffset,
-						this.srcPpl,    // pixelsPerLine
-						this.width,     // transferWidth
-						(this.srcType == PixelType.bit) ? 1 : Mem.getDisplayType().getBitDepth(), // bitsPerPixel
-						isBackward);    // backward
 			}
 			
-			this.pixelSink = new PixmapForwardPixelSink(
+			return (reuse ? this.reusablePixmapSource : new PixmapForwardPixelSource()).reset(
+					this.srcWord,   // lpLineStart
+					this.srcPixel,  // pixelOffset,
+					this.srcPpl,    // pixelsPerLine
+					this.width,     // transferWidth
+					(this.srcType == PixelType.bit) ? 1 : Mem.getDisplayType().getBitDepth(), // bitsPerPixel
+					this.direction == Direction.backward, // backward
+					prevalidated);
+		}
+		
+		private UnipixelPatternSource unipixelSource(int pixel, boolean reuse) {
+			return reuse ? this.reusableUnipixel.reset(pixel) : new UnipixelPatternSource(pixel);
+		}
+		
+		// create a pixel sink positioned at the first line, possibly reinitializing the reusable sink
+		private PixmapForwardPixelSink createPixelSink(boolean prevalidated, boolean reuse) {
+			return (reuse ? this.reusablePixmapSink : new PixmapForwardPixelSink()).reset(
 					this.dstWord,   // lpLineStart
 					this.dstPixel,  // pixelOffset,
 					this.dstPpl,    // pixelsPerLine
 					this.width,     // transferWidth
 					(this.dstType == PixelType.bit) ? 1 : Mem.getDisplayType().getBitDepth(), // bitsPerPixel
-					isBackward);    // backward
-			
-			this.combiner = getCombiner(this.srcFunc, this.dstFunc);
-			
-			this.remainingLines = this.height;
+					this.direction == Direction.backward, // backward
+					prevalidated);
 		}
 		
 		// check if this operation does effectively nothing.
@@ -1295,76 +1453,475 @@ public class Ch08_Block_Transfers {
 			boolean mapSrcPixel = Mem.getDisplayType() != DisplayType.monochrome && this.srcType == PixelType.bit && this.srcFunc == SrcFunc.fnull;
 			boolean mapDstPixel = Mem.getDisplayType() != DisplayType.monochrome && this.dstType == PixelType.bit;
 			
-			while(this.remainingLines > 0) {
-				// prepare processing of this line (this may cause memory faults)
-				this.pixelSource.loadLineCache();
-				this.pixelSink.loadLineCache();
+			// check if complete lines of 8-bit pixels can be transferred at once
+			this.bytePixelKernel
+					= Mem.getDisplayType() == DisplayType.byteColor
+					&& this.dstType == PixelType.display
+					&& this.srcFunc == SrcFunc.fnull
+					&& (this.dstFunc == DstFunc.src || this.dstFunc == DstFunc.srcIfNot0 || this.dstFunc == DstFunc.srcXorDst)
+					&& ((!this.pattern && this.srcType == PixelType.display) || this.pixelSource instanceof UnipixelPatternSource);
+			
+			// check if complete words of 1-bit pixels can be set from a pattern word
+			boolean dstIsBitmap = this.dstType == PixelType.bit || Mem.getDisplayType() == DisplayType.monochrome;
+			this.patternWordKernel
+					= dstIsBitmap
+					&& !mapSrcPixel
+					&& !mapDstPixel
+					&& (this.dstFunc == DstFunc.src || this.dstFunc == DstFunc.srcIfDstNot0 || this.dstFunc == DstFunc.srcIfDst0 || this.dstFunc == DstFunc.srcXorDst)
+					&& (this.pixelSource instanceof UnipixelPatternSource
+						|| (this.pixelSource instanceof MonochromePackedPatternPixelSource && ((MonochromePackedPatternPixelSource)this.pixelSource).isWordPattern()));
+			
+			try {
+				// large transfers are done in parallel bands if possible
+				// (touching the pages for the bands may cause memory faults)
+				if (this.remainingLines >= BAND_MIN_LINES
+						&& ((long)this.width * this.remainingLines) >= BAND_MIN_PIXELS
+						&& bandParallelism > 1
+						&& this.executeInBands(mapSrcPixel, mapDstPixel)) {
+					this.remainingLines = 0;
+				}
 				
-				// process pixels in the line
-				for (int i = 0; i < this.width; i++) {
-					
-					int srcPixel = (mapSrcPixel) 
-							? this.colorMapping[this.pixelSource.getCurrPixel()]
-							: this.pixelSource.getCurrPixel();
-					int oldDstPixel = (mapDstPixel) 
-							? this.colorMapping[this.pixelSink.getCurrPixel()]
-							: this.pixelSink.getCurrPixel();
+				while(this.remainingLines > 0) {
+					// prepare processing of this line (this may cause memory faults)
+					this.pixelSource.loadLineCache();
+					this.pixelSink.loadLineCache();
 					
-					int newDstPixel = this.combiner.combine(srcPixel, oldDstPixel);
-					this.pixelSink.setCurrPixel(newDstPixel);
+					// process pixels in the line
+					this.transferLine(this.pixelSource, this.pixelSink, mapSrcPixel, mapDstPixel);
 					
-					this.pixelSource.moveToNextPixel();
-					this.pixelSink.moveToNextPixel();
-				}
-				this.pixelSink.flush();
-				
-				// this line is done
-				if (this.remainingLines-- > 1) {
-					this.pixelSource.moveToNextLine();
-					this.pixelSink.moveToNextLine();
-					if (Processes.interruptPending()) {
-						// the restart state is already pushed on the stack
-						Cpu.PC = Cpu.savedPC;
-						return;
+					// this line is done
+					if (this.remainingLines-- > 1) {
+						this.pixelSource.moveToNextLine();
+						this.pixelSink.moveToNextLine();
+						if (Processes.interruptPending()) {
+							// the restart state is already pushed on the stack
+							addPendingBitBlt(this);
+							Cpu.PC = Cpu.savedPC;
+							return;
+						}
 					}
 				}
+			} catch (Cpu.MesaAbort ma) {
+				// page fault: the restart state is already pushed on the stack
+				addPendingBitBlt(this);
+				throw ma;
 			}
 			
 			// IMPORTANT: when done => clear stack to remove instruction restart info
 			Cpu.SP = 0;
 			Cpu.savedSP = 0;
 			
-			// IMPORTANT: when done => remove this from pendingBitBlts using key 'id'
-			pendingBitBlts.remove(this.id);
+			// IMPORTANT: when done => remove this from pendingBitBlts and make it available for the next operation
+			removePendingBitBlt(this);
+			this.pool.release(this);
 		}
 		
+		// transfer the pixels of the current line from source to sink and write back the line
+		private void transferLine(PixelSource source, PixmapForwardPixelSink sink, boolean mapSrcPixel, boolean mapDstPixel) {
+			if (this.bytePixelKernel) {
+				if (source instanceof PixmapForwardPixelSink) {
+					PixmapForwardPixelSink src = (PixmapForwardPixelSink)source;
+					transferBytePixels(
+							this.dstFunc,
+							src.getLineCache(), src.getLinePixelIndex(), 0,
+							sink.getLineCache(), sink.getLinePixelIndex(),
+							this.width);
+				} else {
+					int fill = (mapSrcPixel) ? this.colorMapping[source.getCurrPixel()] : source.getCurrPixel(); 
+					transferBytePixels(
+							this.dstFunc,
+							null, 0, fill & 0xFF,
+							sink.getLineCache(), sink.getLinePixelIndex(),
+							this.width);
+				}
+				sink.flushLine();
+				return;
+			}
+			
+			if (this.patternWordKernel) {
+				// the pattern word is rotated to the pixel position of the sink's first pixel
+				int patternWord;
+				if (source instanceof MonochromePackedPatternPixelSource) {
+					MonochromePackedPatternPixelSource pattern = (MonochromePackedPatternPixelSource)source;
+					patternWord = alignPatternWord(pattern.getLinePatternWord(), pattern.getPatternBit(), sink.getLinePixelIndex());
+				} else {
+					patternWord = (source.getCurrPixel() == 0) ? 0x0000 : 0xFFFF;
+				}
+				transferPatternWord(
+						this.dstFunc,
+						(this.srcFunc == SrcFunc.fcomplement) ? ~patternWord : patternWord,
+						sink.getLineCache(), sink.getLinePixelIndex(),
+						this.width);
+				sink.flushLine();
+				return;
+			}
+			
+			for (int i = 0; i < this.width; i++) {
+				
+				int srcPixel = (mapSrcPixel) 
+						? this.colorMapping[source.getCurrPixel()]
+						: source.getCurrPixel();
+				int oldDstPixel = (mapDstPixel) 
+						? this.colorMapping[sink.getCurrPixel()]
+						: sink.getCurrPixel();
+				
+				int newDstPixel = this.combiner.combine(srcPixel, oldDstPixel);
+				sink.setCurrPixel(newDstPixel);
+				
+				source.moveToNextPixel();
+				sink.moveToNextPixel();
+			}
+			sink.flush();
+		}
+		
+		// transfer all remaining lines in bands processed in parallel, provided the destination
+		// lines do not share words and the source does not overlap the destination; all
+		// pages involved are touched first on the CPU thread (this may cause memory faults),
+		// so the bands can access memory without faults while the CPU thread waits.
+		// Returns false (without having transferred pixels) if the lines are not independent.
+		private boolean executeInBands(boolean mapSrcPixel, boolean mapDstPixel) {
+			int firstLine = this.height - this.remainingLines;
+			int lineCount = this.remainingLines;
+			
+			PixmapForwardPixelSink dstLines = this.createPixelSink(false, false);
+			dstLines.skipLines(firstLine);
+			PixmapForwardPixelSink srcLines = this.pattern ? null : (PixmapForwardPixelSink)this.createPixelSource(false, false);
+			if (srcLines != null) {
+				srcLines.skipLines(firstLine);
+			}
+			
+			int dstMin = Integer.MAX_VALUE;
+			int dstMax = Integer.MIN_VALUE;
+			int srcMin = Integer.MAX_VALUE;
+			int srcMax = Integer.MIN_VALUE;
+			int prevStart = 0;
+			int prevEnd = -1;
+			for (int i = 0; i < lineCount; i++) {
+				int start = dstLines.getLineStart();
+				int count = dstLines.getLineWordCount();
+				int end = start + count - 1;
+				if (start <= prevEnd && end >= prevStart) {
+					return false; // adjacent lines share words
+				}
+				Mem.touchWords(start, count, true);
+				dstMin = Math.min(dstMin, start);
+				dstMax = Math.max(dstMax, end);
+				prevStart = start;
+				prevEnd = end;
+				dstLines.moveToNextLine();
+				
+				if (srcLines != null) {
+					start = srcLines.getLineStart();
+					count = srcLines.getLineWordCount();
+					Mem.touchWords(start, count, false);
+					srcMin = Math.min(srcMin, start);
+					srcMax = Math.max(srcMax, start + count - 1);
+					srcLines.moveToNextLine();
+				}
+			}
+			if (srcMin <= dstMax && dstMin <= srcMax) {
+				return false; // source and destination overlap
+			}
+			
+			int bandCount = Math.min(bandParallelism * 2, lineCount / BAND_MIN_LINES_PER_BAND);
+			List<Callable<Void>> bands = new ArrayList<>();
+			for (int band = 0; band < bandCount; band++) {
+				int bandStart = (int)(((long)lineCount * band) / bandCount);
+				int bandLines = (int)(((long)lineCount * (band + 1)) / bandCount) - bandStart;
+				PixelSource source = this.createPixelSource(true, false);
+				source.skipLines(firstLine + bandStart); // this loads patterns on the CPU thread
+				PixmapForwardPixelSink sink = this.createPixelSink(true, false);
+				sink.skipLines(firstLine + bandStart);
+				bands.add(() -> {
+					for (int line = 0; line < bandLines; line++) {
+						if (line > 0) {
+							source.moveToNextLine();
+							sink.moveToNextLine();
+						}
+						source.loadLineCache();
+						sink.loadLineCache();
+						this.transferLine(source, sink, mapSrcPixel, mapDstPixel);
+					}
+					return null;
+				});
+			}
+			
+			try {
+				for (Future<Void> result : getBandPool().invokeAll(bands)) {
+					result.get();
+				}
+			} catch (InterruptedException | ExecutionException e) {
+				Cpu.ERROR("BitBltArgs.executeInBands :: band failed: " + e.getMessage());
+			}
+			return true;
+		}
+		
+	}
+	
+	/*
+	 * line kernel for 8-bit pixels, combining the pixels of a complete line at once
+	 * (2 pixels per word as far as the pixel positions in source and destination allow)
+	 * for the combinations frequently used on a byte color display: copy or fill,
+	 * transparent copy (srcIfNot0) and xor.
+	 */
+	
+	private static int getBytePixel(int[] words, int idx) {
+		int w = words[idx >> 1];
+		return ((idx & 1) == 0) ? (w >> 8) & 0xFF : w & 0xFF;
+	}
+	
+	private static void setBytePixel(int[] words, int idx, int pixel) {
+		int w = words[idx >> 1];
+		words[idx >> 1] = ((idx & 1) == 0) ? (w & 0x00FF) | (pixel << 8) : (w & 0xFF00) | pixel;
+	}
+	
+	private static int combineBytePixel(DstFunc dstFunc, int s, int d) {
+		switch(dstFunc) {
+		case srcIfNot0: return (s == 0) ? d : s;
+		case srcXorDst: return s ^ d;
+		default: return s;
+		}
+	}
+	
+	private static int combineBytePixelPair(DstFunc dstFunc, int s, int d) {
+		switch(dstFunc) {
+		case srcIfNot0: return (((s & 0xFF00) == 0) ? d & 0xFF00 : s & 0xFF00) | (((s & 0x00FF) == 0) ? d & 0x00FF : s & 0x00FF);
+		case srcXorDst: return s ^ d;
+		default: return s;
+		}
+	}
+	
+	// combine 'count' source pixels at 'srcIdx' in 'src' (or the 'fill' pixel if 'src' is null)
+	// into the destination pixels at 'dstIdx' in 'dst' 
+	private static void transferBytePixels(DstFunc dstFunc, int[] src, int srcIdx, int fill, int[] dst, int dstIdx, int count) {
+		int i = 0;
+		
+		// align the destination to a word boundary
+		if ((dstIdx & 1) != 0 && count > 0) {
+			int s = (src == null) ? fill : getBytePixel(src, srcIdx);
+			setBytePixel(dst, dstIdx, combineBytePixel(dstFunc, s, getBytePixel(dst, dstIdx)));
+			i = 1;
+		}
+		
+		// process pixel pairs if source pixels are also word aligned
+		if (src == null || ((srcIdx + i) & 1) == 0) {
+			int fillPair = (fill << 8) | fill;
+			int dw = (dstIdx + i) >> 1;
+			int sw = (srcIdx + i) >> 1;
+			for (; (i + 2) <= count; i += 2) {
+				int s = (src == null) ? fillPair : src[sw++] & 0xFFFF;
+				dst[dw] = combineBytePixelPair(dstFunc, s, dst[dw] & 0xFFFF);
+				dw++;
+			}
+		}
+		
+		// remaining resp. unaligned pixels
+		for (; i < count; i++) {
+			int s = (src == null) ? fill : getBytePixel(src, srcIdx + i);
+			setBytePixel(dst, dstIdx + i, combineBytePixel(dstFunc, s, getBytePixel(dst, dstIdx + i)));
+		}
+	}
+	
+	/*
+	 * line kernel for 1-bit pixels from a pattern having a single word per line (gray) or
+	 * from a single pixel pattern, setting complete destination words per line (with masks
+	 * for the first and last word) for the BITBLT destination functions
+	 */
+	
+	// rotate the pattern word so the bit 'patternBit' is at the position of bit 'dstBit' in a destination word
+	private static int alignPatternWord(int word, int patternBit, int dstBit) {
+		int rotate = (patternBit - dstBit) & 0x0F;
+		word &= 0xFFFF;
+		return ((word << rotate) | (word >>> (PrincOpsDefs.WORD_BITS - rotate))) & 0xFFFF;
+	}
+	
+	// combine 'count' pixels of the 'pattern' (aligned to the destination words) into the
+	// destination pixels starting at bit 'dstBit' in 'dst'
+	private static void transferPatternWord(DstFunc dstFunc, int pattern, int[] dst, int dstBit, int count) {
+		if (count <= 0) { return; }
+		int s = pattern & 0xFFFF;
+		int lastBit = dstBit + count - 1;
+		int firstWord = dstBit >> 4;
+		int lastWord = lastBit >> 4;
+		int firstMask = 0xFFFF >>> (dstBit & 0x0F);
+		int lastMask = (0xFFFF << (15 - (lastBit & 0x0F))) & 0xFFFF;
+		for (int i = firstWord; i <= lastWord; i++) {
+			int mask = 0xFFFF;
+			if (i == firstWord) { mask &= firstMask; }
+			if (i == lastWord) { mask &= lastMask; }
+			int d = dst[i] & 0xFFFF;
+			int n;
+			switch(dstFunc) {
+			case srcIfDstNot0: n = s & d; break;
+			case srcIfDst0: n = s | d; break;
+			case srcXorDst: n = s ^ d; break;
+			default: n = s;
+			}
+			dst[i] = (d & ~mask) | (n & mask);
+		}
+	}
+	
+	/*
+	 * parallel execution of large transfers
+	 */
+	
+	private static int bandParallelism = Runtime.getRuntime().availableProcessors();
+	private static final int BAND_MIN_PIXELS = 256 * 1024; // minimal transfer size for using bands
+	private static final int BAND_MIN_LINES = 64;
+	private static final int BAND_MIN_LINES_PER_BAND = 16;
+	
+	private static ForkJoinPool bandPool = null;
+	
+	private static ForkJoinPool getBandPool() {
+		if (bandPool == null) {
+			bandPool = new ForkJoinPool(bandParallelism);
+		}
+		return bandPool;
 	}
 	
-	// the currently active but interrupted operations
+	/**
+	 * Set the number of threads for transferring large areas in parallel bands,
+	 * with 1 disabling the band execution (default: the number of processors).
+	 * 
+	 * @param parallelism the number of threads for processing bands.
+	 */
+	public static synchronized void setBandParallelism(int parallelism) {
+		if (bandPool != null) {
+			bandPool.shutdown();
+			bandPool = null;
+		}
+		bandParallelism = Math.max(1, parallelism);
+	}
+	
+	// the currently interrupted operations waiting for their instruction restart, in an
+	// open addressing hash table (linear probing) growing as needed, so a pending operation
+	// is never dropped, however many processes have an interrupted BITBLT
 	// -> key: the value pushed on the stack as restart info
 	// -> value: the instruction data waiting to proceed executing
-	private final static Map<Integer,BitBltArgs> pendingBitBlts = new HashMap<>();
+	// (operations running to completion without interruption are never entered)
+	private static BitBltArgs[] pendingBitBlts = new BitBltArgs[32]; // size must be a power of 2
+	private static int pendingBitBltCount = 0;
+	
+	private static void addPendingBitBlt(BitBltArgs bitBltOp) {
+		if (bitBltOp.pending) {
+			return; // interrupted again after a restart
+		}
+		if ((pendingBitBltCount + 1) * 2 > pendingBitBlts.length) {
+			BitBltArgs[] oldTable = pendingBitBlts;
+			pendingBitBlts = new BitBltArgs[oldTable.length * 2];
+			for (BitBltArgs op : oldTable) {
+				if (op != null) {
+					insertPendingBitBlt(op);
+				}
+			}
+		}
+		insertPendingBitBlt(bitBltOp);
+		bitBltOp.pending = true;
+		pendingBitBltCount++;
+	}
+	
+	private static void insertPendingBitBlt(BitBltArgs bitBltOp) {
+		int mask = pendingBitBlts.length - 1;
+		int slot = bitBltOp.getId() & mask;
+		while (pendingBitBlts[slot] != null) {
+			slot = (slot + 1) & mask;
+		}
+		pendingBitBlts[slot] = bitBltOp;
+	}
+	
+	private static BitBltArgs getPendingBitBlt(int id) {
+		int mask = pendingBitBlts.length - 1;
+		int slot = id & mask;
+		BitBltArgs bitBltOp;
+		while ((bitBltOp = pendingBitBlts[slot]) != null) {
+			if (bitBltOp.getId() == id) {
+				return bitBltOp;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return null;
+	}
+	
+	private static void removePendingBitBlt(BitBltArgs bitBltOp) {
+		if (!bitBltOp.pending) {
+			return;
+		}
+		int mask = pendingBitBlts.length - 1;
+		int slot = bitBltOp.getId() & mask;
+		while (pendingBitBlts[slot] != bitBltOp) {
+			slot = (slot + 1) & mask;
+		}
+		pendingBitBlts[slot] = null;
+		bitBltOp.pending = false;
+		pendingBitBltCount--;
+		
+		// move following entries of the probe sequence back into the freed slot if their home slot requires it 
+		int free = slot;
+		slot = (slot + 1) & mask;
+		BitBltArgs op;
+		while ((op = pendingBitBlts[slot]) != null) {
+			int home = op.getId() & mask;
+			boolean reachable = (free <= slot) ? (home <= free || home > slot) : (home <= free && home > slot);
+			if (reachable) {
+				pendingBitBlts[free] = op;
+				pendingBitBlts[slot] = null;
+				free = slot;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+	
+	/**
+	 * The idle BitBltArgs instances of an instruction type, kept for reuse
+	 * with their pixel sources and sinks (and line caches) after the operation
+	 * they were used for is done. 
+	 */
+	private static class BitBltArgsPool {
+		
+		private final BitBltArgs[] idle = new BitBltArgs[2];
+		private int idleCount = 0;
+		
+		public BitBltArgs acquire() {
+			if (this.idleCount == 0) {
+				return new BitBltArgs(this);
+			}
+			BitBltArgs bitBltOp = this.idle[--this.idleCount];
+			this.idle[this.idleCount] = null;
+			bitBltOp.renewId();
+			return bitBltOp;
+		}
+		
+		public void release(BitBltArgs bitBltOp) {
+			if (this.idleCount < this.idle.length) {
+				this.idle[this.idleCount++] = bitBltOp;
+			}
+		}
+	}
+	
+	private static final BitBltArgsPool bitBltPool = new BitBltArgsPool();
+	private static final BitBltArgsPool bitBltXPool = new BitBltArgsPool();
+	private static final BitBltArgsPool colorBltPool = new BitBltArgsPool();
 	
 	@FunctionalInterface
 	private interface BitBltArgsLoader {
-		BitBltArgs get();
+		BitBltArgs load(BitBltArgs bitBltOp);
 	}
 	
 	// common instruction implementation for loading the original or restart
 	// instruction parameters and (re-)start instruction execution
-	private static void executeBitBlt(int initialStackDepth, BitBltArgsLoader initializer) {
+	private static void executeBitBlt(int initialStackDepth, BitBltArgsPool pool, BitBltArgsLoader initializer) {
 		if (Cpu.SP == initialStackDepth) {
 			// initial instruction start: get opcode-specific bitblt parameters
-			BitBltArgs bitBltOp = initializer.get();
+			BitBltArgs bitBltOp = initializer.load(pool.acquire());
 			
 			// ignore non-sense calls
 			if (bitBltOp.isNoOp()) {
+				pool.release(bitBltOp);
 				return;
 			}
 			
 			// push the restart info for the case of an interruption
 			int id = bitBltOp.getId();
-			pendingBitBlts.put(id, bitBltOp);
 			Cpu.pushLong(id);
 			Cpu.savedSP = Cpu.SP;
 			
@@ -1372,13 +1929,13 @@ public class Ch08_Block_Transfers {
 			bitBltOp.execute();
 		} else if (Cpu.SP == 2) {
 			// restart: get id and restore stack for the case of another interruption
-//			if (Config.LOG_BITBLT_INSNS && Config.dynLogBitblts) {
-//				System.out.println("## restarted ...\n##");
-//			}
 			int id = Cpu.popLong();
 			Cpu.SP = 2;
+			if (Trace.bitblt()) {
+				Trace.record(Trace.Category.bitblt, "  restarted: id %d\n", id);
+			}
 			
-			BitBltArgs bitBltOp = pendingBitBlts.get(id);
+			BitBltArgs bitBltOp = getPendingBitBlt(id);
 			if (bitBltOp != null) {
 				// valid restart info: continue processing
 				bitBltOp.execute();
@@ -1395,21 +1952,18 @@ public class Ch08_Block_Transfers {
 	
 	// BITBLT - Bit Block Transfer
 	public static final OpImpl ESC_x2B_BITBLT = () -> {
-		executeBitBlt(1, () -> new BitBltArgs().loadFromBitBltArgs(Cpu.pop()));
+		executeBitBlt(1, bitBltPool, args -> args.loadFromBitBltArgs(Cpu.pop()));
 	};
 	
 	// BITBLTX - Bit Block Transfer X
 	public static final OpImpl ESC_xC2_BITBLTX = () -> {
 		System.out.printf("##\n## ESC xC2 .. BITBLTX at 0x%08X+0x%04X [insn# %d]\n##\n", Cpu.CB, Cpu.savedPC, Cpu.insns);
-		executeBitBlt(11, () -> new BitBltArgs().loadFromBitBltXArgs());
+		executeBitBlt(11, bitBltXPool, args -> args.loadFromBitBltXArgs());
 	};
 	
 	// COLORBLT - Color Block Transfer
 	public static final OpImpl ESC_xC0_COLORBLT = () -> {
-		String logMsg = Config.LOG_BITBLT_INSNS 
-				? String.format("##\n## ESC xC0 .. COLORBLT at 0x%08X+0x%04X [insn# %d]\n##\n", Cpu.CB, Cpu.savedPC, Cpu.insns)
-				: null;
-		executeBitBlt(1, () -> new BitBltArgs().loadFromColorBltArgs(Cpu.pop(), logMsg));
+		executeBitBlt(1, colorBltPool, args -> args.loadFromColorBltArgs(Cpu.pop()));
 	};
 	
 
@@ -1549,6 +2103,13 @@ public class Ch08_Block_Transfers {
 			this.pixShift = PrincOpsDefs.WORD_BITS - newBitsOffset - 1;
 		}
 		
+		@Override
+		public void skipLines(int count) {
+			for (int i = 0; i < count; i++) {
+				this.moveToNextLine();
+			}
+		}
+		
 		@Override
 		public void loadLineCache() {
 			int wordsToCache = ((this.pixelOffset + this.pixelTransferWidth) + PrincOpsDefs.WORD_BITS - 1) / PrincOpsDefs.WORD_BITS;
@@ -1684,6 +2245,113 @@ public class Ch08_Block_Transfers {
 //		logf("++  xMax       = %s\n", xMax.toString());
 //		logf("++  height     = %d\n", height);
 		
+		if (widthMinusOne == 0) {
+			trapezoidBltSpans(dstWordPtr, dstBpl, srcWordPtr, srcPixel, srcFunc, dstFunc, yOffset, heightMinusOne, xMin, xMax, height);
+		} else {
+			trapezoidBltPixels(dstWordPtr, dstBpl, srcWordPtr, srcPixel, srcFunc, dstFunc, yOffset, widthMinusOne, heightMinusOne, xMin, xMax, height);
+		}
+	};
+	
+	// rasterize the trapezoid for a gray pattern one word wide: each scanline is a span of
+	// destination words combined with the pattern word of the line
+	private static void trapezoidBltSpans(
+				int dstWordPtr,
+				int dstBpl,
+				int srcWordPtr,
+				int srcPixel,
+				SrcFunc srcFunc,
+				DstFunc dstFunc,
+				int yOffset,
+				int heightMinusOne,
+				Interpolator xMin,
+				Interpolator xMax,
+				int height) {
+		int wordsPerDstLine = dstBpl / 16;
+		
+		int gray_BASE = srcWordPtr - yOffset;
+		int gray_LENGTH = heightMinusOne + 1;
+		int[] grayWords = new int[gray_LENGTH];
+		for (int i = 0; i < gray_LENGTH; i++) {
+			grayWords[i] = Mem.readWord(gray_BASE + i) & 0xFFFF;
+		}
+		int complement = (srcFunc == SrcFunc.fcomplement) ? 0xFFFF : 0;
+		
+		int currXMin = xMin.get();
+		int currXMax = xMax.get();
+		int dstBitAdjust = srcPixel + 16 - (currXMin % 16);
+		
+		// the span position and the pattern row and bit for the first pixel are restarted when
+		// the edges move, else the span advances by one destination line
+		int width = Math.max(currXMax - currXMin, 1);
+		int lpSpan = dstWordPtr + (currXMin / 16);
+		int spanBit = currXMin % 16;
+		int grayRow = (yOffset < gray_LENGTH) ? yOffset : 0;
+		int grayBit = (spanBit + dstBitAdjust) % 16;
+		
+		int[] span = new int[wordsPerDstLine + 2];
+		for (int line = 0; line < height; line++) {
+			if (line > 0) {
+				dstWordPtr += wordsPerDstLine;
+				yOffset = (yOffset + 1) % gray_LENGTH;
+				
+				int newXMin = xMin.step();
+				int newXMax = xMax.step();
+				if (newXMin == currXMin && newXMax == currXMax) {
+					int nextBit = spanBit + dstBpl;
+					lpSpan += nextBit / 16;
+					spanBit = nextBit % 16;
+					grayRow = (grayRow + 1 >= gray_LENGTH) ? 0 : grayRow + 1;
+				} else {
+					currXMin = newXMin;
+					currXMax = newXMax;
+					width = Math.max(currXMax - currXMin, 1);
+					lpSpan = dstWordPtr + (currXMin / 16);
+					spanBit = currXMin % 16;
+					grayRow = yOffset;
+					grayBit = (spanBit + dstBitAdjust) % 16;
+				}
+			}
+			
+			if (spanBit < 0 || grayBit < 0) {
+				// negative xMin: leave the line to the pixel transfer (clipping the pixels left of the span)
+				runSubBITBLT(
+					new MonochromePackedPatternPixelSource(gray_BASE + grayRow, grayBit, grayRow, 0, heightMinusOne),
+					new BitmapForwardPixelSink(lpSpan, spanBit, dstBpl, width),
+					getCombiner(srcFunc, dstFunc),
+					width,
+					1);
+				continue;
+			}
+			
+			int spanWords = (spanBit + width + 15) / 16;
+			if (spanWords > span.length) {
+				span = new int[spanWords];
+			}
+			for (int i = 0; i < spanWords; i++) {
+				span[i] = Mem.readWord(lpSpan + i);
+			}
+			int grayWord = alignPatternWord(grayWords[grayRow], grayBit, spanBit);
+			transferPatternWord(dstFunc, grayWord ^ complement, span, spanBit, width);
+			for (int i = 0; i < spanWords; i++) {
+				Mem.writeWord(lpSpan + i, (short)span[i]);
+			}
+		}
+	}
+	
+	// rasterize the trapezoid pixel by pixel for gray patterns wider than one word
+	private static void trapezoidBltPixels(
+				int dstWordPtr,
+				int dstBpl,
+				int srcWordPtr,
+				int srcPixel,
+				SrcFunc srcFunc,
+				DstFunc dstFunc,
+				int yOffset,
+				int widthMinusOne,
+				int heightMinusOne,
+				Interpolator xMin,
+				Interpolator xMax,
+				int height) {
 		int wordsPerDstLine = dstBpl / 16;
 		
 		int currXMin = xMin.get();
@@ -1727,5 +2395,5 @@ public class Ch08_Block_Transfers {
 		    currHeight = 1;
 		}
 		runSubBITBLT(pixelSource, pixelSink, combiner, currWidth, currHeight);
-	};
+	}
 }
\ No newline at end of file
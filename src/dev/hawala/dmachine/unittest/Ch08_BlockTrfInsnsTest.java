@@ -27,6 +27,8 @@ ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package dev.hawala.dmachine.unittest;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
 
 import org.junit.Test;
 
@@ -244,6 +246,126 @@ public class Ch08_BlockTrfInsnsTest extends AbstractInstructionTest {
 		checkStack(22, 33);
 	}
 	
+	/*
+	 * BLT/BLTL/BLTLR with blocks spanning several pages: the blocks are copied in
+	 * page spans, giving the same result as the word by word transfer of PrincOps
+	 * (including the ripple effect when the destination overlaps the source)
+	 */
+	
+	// fill 'count' words at LONG POINTER 'at' with the values first, first+1, first+2, ...
+	private void fillWords(int at, int count, int first) {
+		for (int i = 0; i < count; i++) {
+			Mem.writeWord(at + i, (short)(first + i));
+		}
+	}
+	
+	// verify that 'count' words at LONG POINTER 'at' have the values first, first+increment, ...
+	private void checkWords(String intro, int at, int count, int first, int increment) {
+		for (int i = 0; i < count; i++) {
+			int actual = Mem.readWord(at + i) & 0xFFFF;
+			assertEquals(intro + " word # " + i, (first + (i * increment)) & 0xFFFF, actual);
+		}
+	}
+	
+	// fault handler behaving like the mesa engine for page faults: the instruction
+	// is aborted with the stack being reset to the state at instruction start
+	private class PageFaultAborter extends ChkThrower {
+		
+		public int faultingLongPointer = -1;
+		
+		public PageFaultAborter() {
+			this.expect_signalPageFault = true;
+		}
+		
+		@Override
+		public void signalPageFault(int faultingLongPointer) {
+			this.faultingLongPointer = faultingLongPointer;
+			Cpu.PC = Cpu.savedPC;
+			Cpu.SP = Cpu.savedSP;
+			throw new Cpu.MesaAbort();
+		}
+	}
+	
+	// dst = src + 1 => the first word ripples through the destination
+	@Test
+	public void test_BLT_overlap_forward_pages() {
+		int src = testShortMem + 250;
+		Mem.writeWord(Cpu.MDS + src, (short)0x1234);
+		mkStack(22, 33, src, 300, src + 1);
+		Ch08_Block_Transfers.OPC_xF3_BLT.execute();
+		checkStack(22, 33);
+		checkWords("rippled block", Cpu.MDS + src, 301, 0x1234, 0);
+		checkWords("before block", Cpu.MDS + src - 1, 1, 0x0000, 0);
+		checkWords("after block", Cpu.MDS + src + 301, 1, 0x0000, 0);
+	}
+	
+	// dst = src - 3 => the block is moved down
+	@Test
+	public void test_BLT_overlap_backward_pages() {
+		int src = testShortMem + 300;
+		fillWords(Cpu.MDS + src, 600, 0x1000);
+		mkStack(22, 33, src, 600, src - 3);
+		Ch08_Block_Transfers.OPC_xF3_BLT.execute();
+		checkStack(22, 33);
+		checkWords("moved block", Cpu.MDS + src - 3, 600, 0x1000, 1);
+		checkWords("unchanged block end", Cpu.MDS + src + 597, 3, 0x1000 + 597, 1);
+		checkWords("before block", Cpu.MDS + src - 4, 1, 0x0000, 0);
+	}
+	
+	// dst = src - 1 => the last word ripples through the destination
+	@Test
+	public void test_BLTLR_overlap_backward_pages() {
+		Mem.writeWord(testLongMem + 700, (short)0x4321);
+		mkStack(22, 33, testLongMemLow + 1, testLongMemHigh, 700, testLongMemLow, testLongMemHigh);
+		Ch08_Block_Transfers.ESC_x27_BLTLR.execute();
+		checkStack(22, 33);
+		checkWords("rippled block", testLongMem, 701, 0x4321, 0);
+		checkWords("after block", testLongMem + 701, 1, 0x0000, 0);
+	}
+	
+	// dst = src + 3 => the block is moved up
+	@Test
+	public void test_BLTLR_overlap_forward_pages() {
+		fillWords(testLongMem + 10, 600, 0x2000);
+		mkStack(22, 33, testLongMemLow + 10, testLongMemHigh, 600, testLongMemLow + 13, testLongMemHigh);
+		Ch08_Block_Transfers.ESC_x27_BLTLR.execute();
+		checkStack(22, 33);
+		checkWords("unchanged block start", testLongMem + 10, 3, 0x2000, 1);
+		checkWords("moved block", testLongMem + 13, 600, 0x2000, 1);
+		checkWords("after block", testLongMem + 613, 1, 0x0000, 0);
+	}
+	
+	// the destination extends into an unmapped page: the words up to the page end
+	// are copied before the fault and the restarted instruction copies the whole block
+	@Test
+	public void test_BLTL_pageFault_restart() {
+		int src = testLongMem;
+		int dst = testLongMem + 0x0200 + 100;
+		int vacantPage = (testLongMem + 0x0300) >>> 8;
+		fillWords(src, 300, 0x3000);
+		
+		PageFaultAborter faultHandler = new PageFaultAborter();
+		Cpu.thrower = faultHandler;
+		Mem.setMap("test", vacantPage, 0, PrincOpsDefs.MAPFLAGS_VACANT);
+		mkStack(22, 33, src & 0xFFFF, src >>> 16, 300, dst & 0xFFFF, dst >>> 16);
+		try {
+			Ch08_Block_Transfers.OPC_xF4_BLTL.execute();
+			fail("page fault expected");
+		} catch (Cpu.MesaAbort ma) {
+			// expected
+		} finally {
+			Mem.setMap("test", vacantPage, vacantPage, PrincOpsDefs.MAPFLAGS_CLEAR);
+		}
+		assertEquals("faulting page", vacantPage, faultHandler.faultingLongPointer >>> 8);
+		checkStack(22, 33, src & 0xFFFF, src >>> 16, 300, dst & 0xFFFF, dst >>> 16);
+		checkWords("copied before fault", dst, 156, 0x3000, 1);
+		
+		// restart after the page fault was resolved
+		Ch08_Block_Transfers.OPC_xF4_BLTL.execute();
+		checkStack(22, 33);
+		checkWords("copied after restart", dst, 300, 0x3000, 1);
+	}
+	
 	/*
 	 * BLTC
 	 */
@@ -316,6 +438,51 @@ public class Ch08_BlockTrfInsnsTest extends AbstractInstructionTest {
 		checkStack(11, 22, 0x1759);
 	}
 	
+	// checksum over several pages
+	@Test
+	public void test_CKSUM_pages() {
+		fillWords(testLongMem + 200, 600, 0x8000);
+		mkStack(11, 22, 0, 600, testLongMemLow + 200, testLongMemHigh);
+		Ch08_Block_Transfers.ESC_x2A_CKSUM.execute();
+		checkStack(11, 22, 0xFE4C);
+	}
+	
+	// starting with a checksum of 0177777 (e.g. when restarted after an interrupt)
+	@Test
+	public void test_CKSUM_pages_minusZeroStart() {
+		fillWords(testLongMem + 200, 600, 0x8000);
+		mkStack(11, 22, 0xFFFF, 600, testLongMemLow + 200, testLongMemHigh);
+		Ch08_Block_Transfers.ESC_x2A_CKSUM.execute();
+		checkStack(11, 22, 0xFE4C);
+	}
+	
+	// all words 0 => the checksum stays 0 over all pages
+	@Test
+	public void test_CKSUM_pages_zero() {
+		mkStack(11, 22, 0, 300, testLongMemLow + 200, testLongMemHigh);
+		Ch08_Block_Transfers.ESC_x2A_CKSUM.execute();
+		checkStack(11, 22, 0x0000);
+	}
+	
+	// all words 0177777 => the checksum stays 0177777 over all pages, which is returned as 0
+	@Test
+	public void test_CKSUM_pages_minusZero() {
+		for (int i = 0; i < 300; i++) {
+			Mem.writeWord(testLongMem + 200 + i, (short)0xFFFF);
+		}
+		mkStack(11, 22, 0, 300, testLongMemLow + 200, testLongMemHigh);
+		Ch08_Block_Transfers.ESC_x2A_CKSUM.execute();
+		checkStack(11, 22, 0x0000);
+	}
+	
+	// checksum 0177777 with no words left to add is returned as 0
+	@Test
+	public void test_CKSUM_minusZero_empty() {
+		mkStack(11, 22, 0xFFFF, 0, testLongMemLow + 200, testLongMemHigh);
+		Ch08_Block_Transfers.ESC_x2A_CKSUM.execute();
+		checkStack(11, 22, 0x0000);
+	}
+	
 	/*
 	 * BLEL
 	 */
@@ -388,6 +555,46 @@ public class Ch08_BlockTrfInsnsTest extends AbstractInstructionTest {
 		checkStack(11, 22, 0);
 	}
 	
+	// blocks spanning several pages, differing only in the last word resp. in a middle page
+	
+	@Test
+	public void test_BLEL_pages_eq() {
+		fillWords(testLongMem + 100, 600, 0x5000);
+		fillWords(testLongMem + 1000, 600, 0x5000);
+		mkStack(11, 22, testLongMemLow + 1000, testLongMemHigh, 600, testLongMemLow + 100, testLongMemHigh);
+		Ch08_Block_Transfers.ESC_x28_BLEL.execute();
+		checkStack(11, 22, 1);
+	}
+	
+	@Test
+	public void test_BLEL_pages_neq_last() {
+		fillWords(testLongMem + 100, 600, 0x5000);
+		fillWords(testLongMem + 1000, 600, 0x5000);
+		Mem.writeWord(testLongMem + 1599, (short)0);
+		mkStack(11, 22, testLongMemLow + 1000, testLongMemHigh, 600, testLongMemLow + 100, testLongMemHigh);
+		Ch08_Block_Transfers.ESC_x28_BLEL.execute();
+		checkStack(11, 22, 0);
+	}
+	
+	@Test
+	public void test_BLECL_pages_eq() {
+		fillWords(Cpu.CB + 10, 600, 0x6000);
+		fillWords(testLongMem + 100, 600, 0x6000);
+		mkStack(11, 22, 10, 600, testLongMemLow + 100, testLongMemHigh);
+		Ch08_Block_Transfers.ESC_x29_BLECL.execute();
+		checkStack(11, 22, 1);
+	}
+	
+	@Test
+	public void test_BLECL_pages_neq() {
+		fillWords(Cpu.CB + 10, 600, 0x6000);
+		fillWords(testLongMem + 100, 600, 0x6000);
+		Mem.writeWord(testLongMem + 100 + 300, (short)0);
+		mkStack(11, 22, 10, 600, testLongMemLow + 100, testLongMemHigh);
+		Ch08_Block_Transfers.ESC_x29_BLECL.execute();
+		checkStack(11, 22, 0);
+	}
+	
 	/*
 	 * 8.3 Byte Boundary Block Transfers
 	 */
@@ -620,6 +827,95 @@ public class Ch08_BlockTrfInsnsTest extends AbstractInstructionTest {
 			);
 	}
 	
+	/*
+	 * BYTBLT/BYTBLTR with overlapping byte blocks at odd byte offsets spanning several
+	 * pages (the instructions copy page-wise spans, but must give the same result as
+	 * the byte by byte transfer defined by PrincOps)
+	 */
+	
+	// the byte value at byte offset 'idx' in the pattern filled by fillBytePattern()
+	private static int patternByte(int idx) {
+		return ((idx * 7) + 3) & 0xFF;
+	}
+	
+	// fill 'byteCount' bytes starting at the word at LONG POINTER 'at' with patternByte()
+	private void fillBytePattern(int at, int byteCount) {
+		for (int i = 0; i < byteCount; i += 2) {
+			Mem.writeWord(at + (i / 2), (short)((patternByte(i) << 8) | patternByte(i + 1)));
+		}
+	}
+	
+	// get the byte at byte offset 'idx' relative to the word at LONG POINTER 'at'
+	private int getByte(int at, int idx) {
+		int w = Mem.readWord(at + (idx / 2)) & 0xFFFF;
+		return ((idx & 1) == 0) ? w >>> 8 : w & 0xFF;
+	}
+	
+	// dst = src + 1 byte => the first byte ripples through the destination
+	@Test
+	public void test_BYTBLT_overlap_ripple_pages() {
+		fillBytePattern(testLongMem, 1400);
+		mkStack(11, 22, testLongMemLow, testLongMemHigh, 302, 900, testLongMemLow, testLongMemHigh, 301);
+		Ch08_Block_Transfers.ESC_x2D_BYTBLT.execute();
+		checkStack(11, 22);
+		for (int i = 300; i < 1400; i++) {
+			int expected = (i >= 302 && i < 1202) ? patternByte(301) : patternByte(i);
+			assertEquals("byte # " + i, expected, getByte(testLongMem, i));
+		}
+	}
+	
+	// dst = src - 5 bytes => the block is moved down
+	@Test
+	public void test_BYTBLT_overlap_down_odd() {
+		fillBytePattern(testLongMem, 1400);
+		mkStack(11, 22, testLongMemLow, testLongMemHigh, 300, 900, testLongMemLow, testLongMemHigh, 305);
+		Ch08_Block_Transfers.ESC_x2D_BYTBLT.execute();
+		checkStack(11, 22);
+		for (int i = 290; i < 1400; i++) {
+			int expected = (i >= 300 && i < 1200) ? patternByte(i + 5) : patternByte(i);
+			assertEquals("byte # " + i, expected, getByte(testLongMem, i));
+		}
+	}
+	
+	// dst = src - 1 byte => the last byte ripples through the destination
+	@Test
+	public void test_BYTBLTR_overlap_ripple_pages() {
+		fillBytePattern(testLongMem, 1400);
+		mkStack(11, 22, testLongMemLow, testLongMemHigh, 301, 900, testLongMemLow, testLongMemHigh, 302);
+		Ch08_Block_Transfers.ESC_x2E_BYTBLTR.execute();
+		checkStack(11, 22);
+		for (int i = 290; i < 1400; i++) {
+			int expected = (i >= 301 && i < 1201) ? patternByte(1201) : patternByte(i);
+			assertEquals("byte # " + i, expected, getByte(testLongMem, i));
+		}
+	}
+	
+	// dst = src + 5 bytes => the block is moved up
+	@Test
+	public void test_BYTBLTR_overlap_up_odd() {
+		fillBytePattern(testLongMem, 1400);
+		mkStack(11, 22, testLongMemLow, testLongMemHigh, 305, 900, testLongMemLow, testLongMemHigh, 300);
+		Ch08_Block_Transfers.ESC_x2E_BYTBLTR.execute();
+		checkStack(11, 22);
+		for (int i = 290; i < 1400; i++) {
+			int expected = (i >= 305 && i < 1205) ? patternByte(i - 5) : patternByte(i);
+			assertEquals("byte # " + i, expected, getByte(testLongMem, i));
+		}
+	}
+	
+	// base pointers with odd byte offsets beyond the first word (offsets are normalized)
+	@Test
+	public void test_BYTBLT_odd_offsets_bases() {
+		fillBytePattern(testLongMem, 1400);
+		mkStack(11, 22, testLongMemLow + 3, testLongMemHigh, 1001, 333, testLongMemLow + 1, testLongMemHigh, 7);
+		Ch08_Block_Transfers.ESC_x2D_BYTBLT.execute();
+		checkStack(11, 22);
+		for (int i = 1000; i < 1400; i++) {
+			int expected = (i >= 1007 && i < 1340) ? patternByte(i - 1007 + 9) : patternByte(i);
+			assertEquals("byte # " + i, expected, getByte(testLongMem, i));
+		}
+	}
+	
 	/*
 	 * Bit Boundary Block Transfer
 	 */
@@ -1726,5 +2022,283 @@ public class Ch08_BlockTrfInsnsTest extends AbstractInstructionTest {
 			ch('y','x'),ch('c','v'),ch('b','n'),ch('m','m'),ch('%','%'),ch('+','+')
 			);
 	}
+	
+	/*
+	 * BITBLT of large areas, transferred in parallel bands: the result must be the same as
+	 * when transferring line by line (band parallelism 1), the bitmaps (1056 x 256 pixels)
+	 * are located in the 64K block below the MDS
+	 */
+	
+	private static final int BAND_SRC = 0x10000;
+	private static final int BAND_DST = 0x18000;
+	private static final int BAND_WPL = 66;
+	private static final int BAND_LINES = 256;
+	
+	private void fillBandBitmap(int at, int seed) {
+		int w = seed;
+		for (int i = 0; i < BAND_WPL * BAND_LINES; i++) {
+			w = (w * 1103515245 + 12345) & 0x7FFFFFFF;
+			Mem.writeWord(at + i, (short)(w >>> 12));
+		}
+	}
+	
+	private short[] readBandBitmap(int at) {
+		short[] words = new short[BAND_WPL * BAND_LINES];
+		for (int i = 0; i < words.length; i++) {
+			words[i] = Mem.readWord(at + i);
+		}
+		return words;
+	}
+	
+	private void checkBandBitmap(String intro, short[] expected, int at) {
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(intro + " line " + (i / BAND_WPL) + " word " + (i % BAND_WPL), expected[i] & 0xFFFF, Mem.readWord(at + i) & 0xFFFF);
+		}
+	}
+	
+	// prepare source and destination bitmaps and the BITBLT argument record for 1024 x 256 pixels
+	private void mkBandBitBlt(boolean gray, int dstBit, int srcBit, int... flagBits) {
+		fillBandBitmap(BAND_DST, 4711);
+		fillBandBitmap(BAND_SRC, 815);
+		mkBitBltArg(testShortMem,
+				BAND_DST + 1, // dstWord
+				dstBit, // dstBit
+				BAND_WPL * 16, // dstBpl
+				BAND_SRC, // srcWord
+				srcBit, // srcBit
+				(gray) ? mkGrayParm(0, 0, 3) : BAND_WPL * 16, // srcBpl resp. grayparm :: yOffset = 0 line, width = 1 word, height 4 lines
+				1024, // width
+				BAND_LINES, // height
+				flagBits);
+	}
+	
+	// do the prepared BITBLT with the given band parallelism, returning the destination bitmap 
+	private short[] runBandBitBlt(int parallelism, boolean gray, int dstBit, int srcBit, int... flagBits) {
+		mkBandBitBlt(gray, dstBit, srcBit, flagBits);
+		Ch08_Block_Transfers.setBandParallelism(parallelism);
+		try {
+			mkStack(testShortMem);
+			Ch08_Block_Transfers.ESC_x2B_BITBLT.execute();
+			checkStack();
+		} finally {
+			Ch08_Block_Transfers.setBandParallelism(Runtime.getRuntime().availableProcessors());
+		}
+		return readBandBitmap(BAND_DST);
+	}
+	
+	private void checkBandsLikeLines(String intro, boolean gray, int dstBit, int srcBit, int... flagBits) {
+		short[] byLines = runBandBitBlt(1, gray, dstBit, srcBit, flagBits);
+		short[] byBands = runBandBitBlt(4, gray, dstBit, srcBit, flagBits);
+		fillBandBitmap(BAND_DST, 4711);
+		short[] original = readBandBitmap(BAND_DST);
+		int changed = 0;
+		for (int i = 0; i < original.length; i++) {
+			if (byLines[i] != original[i]) { changed++; }
+		}
+		assertNotEquals(intro + " changed words", 0, changed);
+		fillBandBitmap(BAND_DST, 0);
+		for (int i = 0; i < byBands.length; i++) {
+			Mem.writeWord(BAND_DST + i, byBands[i]);
+		}
+		checkBandBitmap(intro, byLines, BAND_DST);
+	}
+	
+	@Test
+	public void test_BITBLT_bands_forward_null_null() {
+		checkBandsLikeLines("BITBLT_bands_forward_null_null", false, 3, 5,
+				flg_forward, flg_disjoint, flg_disjointItems, flg_srcFuncNull, flg_dstFuncNull);
+	}
+	
+	@Test
+	public void test_BITBLT_bands_forward_complement_xor() {
+		checkBandsLikeLines("BITBLT_bands_forward_complement_xor", false, 0, 15,
+				flg_forward, flg_disjoint, flg_disjointItems, flg_srcFuncComplement, flg_dstFuncXor);
+	}
+	
+	@Test
+	public void test_BITBLT_bands_backward_null_and() {
+		checkBandsLikeLines("BITBLT_bands_backward_null_and", false, 7, 2,
+				flg_backward, flg_disjoint, flg_disjointItems, flg_srcFuncNull, flg_dstFuncAnd);
+	}
+	
+	@Test
+	public void test_BITBLT_bands_gray_null_or() {
+		checkBandsLikeLines("BITBLT_bands_gray_null_or", true, 9, 4,
+				flg_gray, flg_srcFuncNull, flg_dstFuncOr);
+	}
+	
+	@Test
+	public void test_BITBLT_bands_gray_complement_null() {
+		checkBandsLikeLines("BITBLT_bands_gray_complement_null", true, 0, 0,
+				flg_gray, flg_srcFuncComplement, flg_dstFuncNull);
+	}
+	
+	// a page fault while touching the pages before transferring in bands must leave the
+	// operation restartable (and not drop it)
+	private void checkBandsPageFaultRestart(String intro, int vacantPage) {
+		short[] expected = runBandBitBlt(1, false, 3, 5,
+				flg_forward, flg_disjoint, flg_disjointItems, flg_srcFuncNull, flg_dstFuncNull);
+		mkBandBitBlt(false, 3, 5,
+				flg_forward, flg_disjoint, flg_disjointItems, flg_srcFuncNull, flg_dstFuncNull);
+		
+		PageFaultAborter faultHandler = new PageFaultAborter();
+		Cpu.thrower = faultHandler;
+		Ch08_Block_Transfers.setBandParallelism(4);
+		try {
+			Mem.setMap("test", vacantPage, 0, PrincOpsDefs.MAPFLAGS_VACANT);
+			mkStack(testShortMem);
+			try {
+				Ch08_Block_Transfers.ESC_x2B_BITBLT.execute();
+				fail("page fault expected");
+			} catch (Cpu.MesaAbort ma) {
+				// expected
+			} finally {
+				Mem.setMap("test", vacantPage, vacantPage, PrincOpsDefs.MAPFLAGS_CLEAR);
+			}
+			assertEquals(intro + " faulting page", vacantPage, faultHandler.faultingLongPointer >>> 8);
+			assertEquals(intro + " restart info on stack", 2, Cpu.SP);
+			
+			// restart after the page fault was resolved
+			Ch08_Block_Transfers.ESC_x2B_BITBLT.execute();
+			checkStack();
+		} finally {
+			Ch08_Block_Transfers.setBandParallelism(Runtime.getRuntime().availableProcessors());
+		}
+		checkBandBitmap(intro, expected, BAND_DST);
+	}
+	
+	@Test
+	public void test_BITBLT_bands_dstPageFault_restart() {
+		checkBandsPageFaultRestart("BITBLT_bands_dstPageFault_restart", (BAND_DST + (100 * BAND_WPL)) >>> 8);
+	}
+	
+	@Test
+	public void test_BITBLT_bands_srcPageFault_restart() {
+		checkBandsPageFaultRestart("BITBLT_bands_srcPageFault_restart", (BAND_SRC + (200 * BAND_WPL)) >>> 8);
+	}
+	
+	/*
+	 * TRAPZBLT
+	 */
+	
+	private void mkTrapezoidBltArg(int target,
+					int dstWordLp,	// LONG POINTER : first dst bitmap word
+					int dstBpl,		// dst bits per line
+					int grayWordLp,	// LONG POINTER : gray pattern line at yOffset
+					int srcPixel,	// first pattern pixel
+					int misc,		// srcFunc, dstFunc, yOffset, widthMinusOne, heightMinusOne
+					int xMin,		// left edge (integer part)
+					int xMinDelta,	// left edge change per line (integer part)
+					int xMax,		// right edge (integer part)
+					int xMaxDelta,	// right edge change per line (integer part)
+					int height		// number of lines
+					) {
+		Mem.writeWord(target + 0, (short)(dstWordLp & 0xFFFF));
+		Mem.writeWord(target + 1, (short)(dstWordLp >>> 16));
+		Mem.writeWord(target + 2, (short)0);
+		Mem.writeWord(target + 3, (short)dstBpl);
+		Mem.writeWord(target + 4, (short)(grayWordLp & 0xFFFF));
+		Mem.writeWord(target + 5, (short)(grayWordLp >>> 16));
+		Mem.writeWord(target + 6, (short)srcPixel);
+		Mem.writeWord(target + 7, (short)misc);
+		Mem.writeWord(target + 8, (short)0); // xMin fraction
+		Mem.writeWord(target + 9, (short)xMin);
+		Mem.writeWord(target + 10, (short)0); // xMin delta fraction
+		Mem.writeWord(target + 11, (short)xMinDelta);
+		Mem.writeWord(target + 12, (short)0); // xMax fraction
+		Mem.writeWord(target + 13, (short)xMax);
+		Mem.writeWord(target + 14, (short)0); // xMax delta fraction
+		Mem.writeWord(target + 15, (short)xMaxDelta);
+		Mem.writeWord(target + 16, (short)height);
+	}
+	
+	// the bitmap has 4 words per line and starts after a guard line at testLongMem, the
+	// expected bitmaps (including the guard line) are the results of the original pixel
+	// by pixel implementation, which the scanline span implementation must reproduce
+	
+	// left edge moving from negative to positive x positions
+	@Test
+	public void test_TRAPZBLT_negativeXMin_null_null() {
+		int gray = testLongMem + 0x100;
+		Mem.writeWord(gray + 0, (short)0xAAAA);
+		Mem.writeWord(gray + 1, (short)0x5555);
+		int tb = testLongMem + 0x200;
+		mkTrapezoidBltArg(tb, testLongMem + 4, 64, gray, 0, 0x0001, -5, 2, 40, 0, 8);
+		
+		mkStack(tb & 0xFFFF, tb >>> 16);
+		Ch08_Block_Transfers.ESC_xA4_TRAPZBLT.execute();
+		checkStack();
+		
+		checkBitmap("TRAPZBLT result", testLongMem, 4,
+				"                                                                ",
+				" X X X X X X X X X X X X X X X X X X X X                        ",
+				"X X X X X X X X X X X X X X X X X X X X                         ",
+				" X X X X X X X X X X X X X X X X X X X X                        ",
+				"  X X X X X X X X X X X X X X X X X X X                         ",
+				"   X X X X X X X X X X X X X X X X X X X                        ",
+				"      X X X X X X X X X X X X X X X X X                         ",
+				"       X X X X X X X X X X X X X X X X X                        ",
+				"          X X X X X X X X X X X X X X X                         ",
+				"                                                                "
+			);
+	}
+	
+	// left edge constantly negative, complemented pattern xor-ed into a non-white bitmap
+	@Test
+	public void test_TRAPZBLT_negativeXMin_complement_xor() {
+		for (int i = 0; i < 4 * 8; i++) {
+			Mem.writeWord(testLongMem + i, (short)0x0F0F);
+		}
+		int gray = testLongMem + 0x100;
+		Mem.writeWord(gray + 0, (short)0x1248);
+		Mem.writeWord(gray + 1, (short)0x8421);
+		Mem.writeWord(gray + 2, (short)0xF00F);
+		int tb = testLongMem + 0x200;
+		mkTrapezoidBltArg(tb, testLongMem + 4, 64, gray, 3, 0x8000 | 0x6000 | 0x0100 | 0x0002, -3, 0, 20, 3, 6);
+		
+		mkStack(tb & 0xFFFF, tb >>> 16);
+		Ch08_Block_Transfers.ESC_xA4_TRAPZBLT.execute();
+		checkStack();
+		
+		checkBitmap("TRAPZBLT result", testLongMem, 4,
+				"    XXXX    XXXX    XXXX    XXXX    XXXX    XXXX    XXXX    XXXX",
+				" XX   X XXXX X   XX XXXX    XXXX    XXXX    XXXX    XXXX    XXXX",
+				"XXXXX   X  X   XXXXXX  X    XXXX    XXXX    XXXX    XXXX    XXXX",
+				"XXXX    XXXX    XXXX    XX  XXXX    XXXX    XXXX    XXXX    XXXX",
+				" XX   X XXXX X   XX   X XXXX XXX    XXXX    XXXX    XXXX    XXXX",
+				"XXXXX   X  X   XXXXXX   X  X   X    XXXX    XXXX    XXXX    XXXX",
+				"XXXX    XXXX    XXXX    XXXX    XXX XXXX    XXXX    XXXX    XXXX",
+				"    XXXX    XXXX    XXXX    XXXX    XXXX    XXXX    XXXX    XXXX"
+			);
+	}
+	
+	// left edge starting more than a word left of the bitmap, pattern or-ed into the bitmap
+	// (pixels left of x = 0 go to the words before the line, as in the original implementation)
+	@Test
+	public void test_TRAPZBLT_negativeXMin_null_or() {
+		for (int i = 0; i < 4 * 8; i++) {
+			Mem.writeWord(testLongMem + i, (short)0x0F0F);
+		}
+		int gray = testLongMem + 0x100;
+		Mem.writeWord(gray + 0, (short)0xFFFF);
+		Mem.writeWord(gray + 1, (short)0x0FF0);
+		int tb = testLongMem + 0x200;
+		mkTrapezoidBltArg(tb, testLongMem + 4, 64, gray, 0, 0x4000 | 0x0001, -20, 8, 50, -4, 6);
+		
+		mkStack(tb & 0xFFFF, tb >>> 16);
+		Ch08_Block_Transfers.ESC_xA4_TRAPZBLT.execute();
+		checkStack();
+		
+		checkBitmap("TRAPZBLT result", testLongMem, 4,
+				"    XXXX    XXXX    XXXX    XXXX    XXXX    XXXXXXXXXXXXXXXXXXXX",
+				"XXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXX  XXXX    XXXX",
+				"XXXXXXXX    XXXXXXXXXXXX    XXXXXXXXXXXX    XXXX    XXXX    XXXX",
+				"XXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXXX  XXXX    XXXX    XXXX",
+				"    XXXX    XXXXXXXXXXXX    XXXXXXXXXXXX    XXXX    XXXX    XXXX",
+				"    XXXX    XXXXXXXXXXXXXXXXXXXXXX  XXXX    XXXX    XXXX    XXXX",
+				"    XXXX    XXXX    XXXX    XXXX    XXXX    XXXX    XXXX    XXXX",
+				"    XXXX    XXXX    XXXX    XXXX    XXXX    XXXX    XXXX    XXXX"
+			);
+	}
 
 }